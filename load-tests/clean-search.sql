@@ -0,0 +1,3 @@
+-- Удаление набора данных, созданного seed-search.sql.
+delete from comments where task_id in (select id from tasks where title like '%#seed');
+delete from tasks where title like '%#seed';
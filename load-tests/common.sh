@@ -0,0 +1,31 @@
+#!/usr/bin/env bash
+# Общие функции нагрузочных сценариев. Нужны curl и hey (https://github.com/rakyll/hey).
+
+BASE_URL=${BASE_URL:-http://localhost:8080}
+OUT=${OUT:-build/load-tests}
+TASKS_URL="$BASE_URL/api/tasks/scroll?size=20"
+mkdir -p "$OUT"
+
+# Токен доступа из куки accessToken, которую выставляет вход через форму.
+# Куку читаем из заголовка: curl не сохраняет Secure-куки, полученные по http.
+token() {
+  curl -s -o /dev/null -D - -d "username=$1&password=$2" "$BASE_URL/login" \
+    | tr -d '\r' | sed -n 's/^[Ss]et-[Cc]ookie: accessToken=\([^;]*\).*/\1/p'
+}
+
+# Ждет, пока приложение начнет отвечать.
+wait_for_app() {
+  for _ in $(seq 1 120); do
+    curl -s -o /dev/null "$BASE_URL/actuator/health" && return 0
+    sleep 1
+  done
+  echo "Приложение на $BASE_URL не запустилось" >&2
+  return 1
+}
+
+# Запросов в секунду, p99 и распределение кодов ответа из отчета hey.
+summary() {
+  echo "== $1"
+  grep -E 'Requests/sec|99% in' "$2"
+  sed -n '/Status code distribution/,/^$/p' "$2" | grep '\['
+}
@@ -0,0 +1,34 @@
+#!/usr/bin/env bash
+# Задержка эндпоинта задач во время всплеска входов. Хэширование паролей идет на отдельном ограниченном пуле,
+# поэтому p99 списка задач при всплеске должен остаться близким к p99 без него, а лишние входы получают 503.
+# Запуск: "docker-compose up -d", приложение на $BASE_URL, затем ./load-tests/login-spike.sh
+set -euo pipefail
+cd "$(dirname "$0")/.."
+source load-tests/common.sh
+
+DURATION=${DURATION:-60s}
+TASK_CONCURRENCY=${TASK_CONCURRENCY:-20}
+LOGIN_CONCURRENCY=${LOGIN_CONCURRENCY:-200}
+
+wait_for_app
+TOKEN=$(token admin@example.com admin)
+[ -n "$TOKEN" ] || { echo "Не удалось войти как admin@example.com" >&2; exit 1; }
+
+tasks() {
+  hey -z "$DURATION" -c "$TASK_CONCURRENCY" -H "Authorization: Bearer $TOKEN" "$TASKS_URL"
+}
+
+hey -z 15s -c "$TASK_CONCURRENCY" -H "Authorization: Bearer $TOKEN" "$TASKS_URL" > /dev/null # прогрев
+tasks > "$OUT/tasks-baseline.txt"
+
+hey -z "$DURATION" -c "$LOGIN_CONCURRENCY" -disable-redirects -m POST -T application/x-www-form-urlencoded \
+  -d 'username=user1@example.com&password=admin' "$BASE_URL/login" > "$OUT/logins-spike.txt" &
+LOGINS=$!
+tasks > "$OUT/tasks-during-spike.txt"
+wait "$LOGINS"
+
+summary "Список задач без всплеска" "$OUT/tasks-baseline.txt"
+summary "Список задач во время всплеска входов" "$OUT/tasks-during-spike.txt"
+summary "Входы (302 - успешный вход, остальные коды - отклонены при занятом пуле хэширования)" "$OUT/logins-spike.txt"
+curl -s -H "Authorization: Bearer $TOKEN" "$BASE_URL/actuator/metrics/executor.queued?tag=name:passwordHashing"
+echo
@@ -0,0 +1,40 @@
+-- Набор данных для TaskTextSearchBenchmark: :tasks задач (по умолчанию 2 000 000) и по два комментария к каждой.
+-- Задачи распределены между тремя пользователями из миграций, название заканчивается на #seed.
+-- Запуск: psql -h localhost -p 5445 -U postgres -d task_management -v tasks=2000000 -f load-tests/seed-search.sql
+-- Удаление: psql ... -f load-tests/clean-search.sql
+\if :{?tasks}
+\else
+\set tasks 2000000
+\endif
+
+create temporary table seed_words as
+select array['отчет', 'сервер', 'клиент', 'ошибка', 'релиз', 'оплата', 'договор', 'миграция', 'база', 'данных',
+             'интерфейс', 'тестирование', 'документация', 'счет', 'доставка', 'склад', 'поставщик', 'встреча',
+             'бюджет', 'аналитика', 'сотрудник', 'отпуск', 'закупка', 'проверка', 'настройка', 'обновление',
+             'резервная', 'копия', 'безопасность', 'доступ', 'квартал', 'план', 'презентация', 'заявка', 'срочно',
+             'задержка', 'производительность', 'мобильное', 'приложение', 'уведомление'] as words;
+
+-- Случайная фраза из count слов. Аргумент seed связывает подзапрос со строкой, иначе он вычисляется один раз.
+create function pg_temp.seed_phrase(count int, seed bigint) returns text
+language sql volatile as $$
+    select string_agg(words[1 + floor(random() * array_length(words, 1))::int], ' ')
+    from seed_words, generate_series(1, count + 0 * seed)
+$$;
+
+insert into tasks (title, description, status, priority, author_id, assignee_id, created_at)
+select pg_temp.seed_phrase(3, i) || ' #seed',
+       pg_temp.seed_phrase(25, i),
+       (array['PENDING', 'IN_PROGRESS', 'COMPLETED'])[1 + i % 3],
+       (array['HIGH', 'MEDIUM', 'LOW'])[1 + i % 3],
+       1 + i % 3,
+       1 + (i / 3) % 3,
+       current_timestamp - random() * interval '365 days'
+from generate_series(1, :tasks) as i;
+
+insert into comments (content, task_id, user_id, created_at)
+select pg_temp.seed_phrase(15, t.id + n), t.id, 1 + (t.id + n) % 3, t.created_at + n * interval '1 hour'
+from tasks t, generate_series(1, 2) as n
+where t.title like '%#seed';
+
+analyze tasks;
+analyze comments;
@@ -0,0 +1,45 @@
+#!/usr/bin/env bash
+# Сравнение обработки запросов на платформенных и виртуальных потоках: для каждого режима запускает приложение
+# из собранного jar, прогревает его, затем нагружает список задач и выводит Requests/sec, p99, коды ответов и
+# ожидание соединений пула Hikari и очереди ConcurrencyLimitFilter.
+# Запуск: "docker-compose up -d", "gradle bootJar", затем ./load-tests/thread-modes.sh
+set -euo pipefail
+cd "$(dirname "$0")/.."
+source load-tests/common.sh
+
+JAR=${JAR:-$(ls build/libs/*.jar | grep -v -- '-plain' | head -n 1)}
+DURATION=${DURATION:-60s}
+CONCURRENCY=${CONCURRENCY:-400}
+PORT=${BASE_URL##*:}
+
+# Текущее значение метрики из /actuator/metrics.
+metric() {
+  curl -s -H "Authorization: Bearer $TOKEN" "$BASE_URL/actuator/metrics/$1" \
+    | sed -n 's/.*"value":\([-0-9.E]*\).*/\1/p'
+}
+
+for mode in platform virtual; do
+  VIRTUAL_THREADS_ENABLED=$([ "$mode" = virtual ] && echo true || echo false) \
+    java -jar "$JAR" --server.port="$PORT" > "$OUT/app-$mode.log" 2>&1 &
+  APP=$!
+  trap 'kill $APP 2>/dev/null' EXIT
+  wait_for_app
+  TOKEN=$(token admin@example.com admin)
+
+  hey -z "$DURATION" -c "$CONCURRENCY" -H "Authorization: Bearer $TOKEN" "$TASKS_URL" > /dev/null # прогрев
+  hey -z "$DURATION" -c "$CONCURRENCY" -H "Authorization: Bearer $TOKEN" "$TASKS_URL" > "$OUT/tasks-$mode.txt" &
+  HEY=$!
+  # Ожидание измеряется во время нагрузки: после прогона обе очереди пусты
+  while kill -0 "$HEY" 2>/dev/null; do
+    echo "$(metric hikaricp.connections.pending) $(metric tms.http.concurrency.waiting)"
+    sleep 5
+  done > "$OUT/waiting-$mode.txt"
+  wait "$HEY"
+
+  summary "Список задач, потоки: $mode" "$OUT/tasks-$mode.txt"
+  awk '$1 > pool { pool = $1 } $2 > queue { queue = $2 } END { print "Максимум ожидающих соединения пула:", pool + 0,
+    "ожидающих в очереди ConcurrencyLimitFilter:", queue + 0 }' "$OUT/waiting-$mode.txt"
+
+  kill "$APP"
+  wait "$APP" || true
+done
@@ -0,0 +1,48 @@
+package com.olegandreevich.tms.benchmarks;
+
+import com.olegandreevich.tms.TmsApplication;
+import com.olegandreevich.tms.entities.enums.Role;
+import com.olegandreevich.tms.security.UserDetailsTMS;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Контекст приложения для бенчмарков, работающих с БД. * Подключение берется из application.yaml (по умолчанию
+ * БД из docker-compose), архиватор отключен, HTTP-сервер слушает случайный порт. Сервисы вызываются от имени
+ * администратора из миграций.
+ */
+final class BenchmarkContext {
+
+    static final Long ADMIN_ID = 1L;
+    static final Long USER_ID = 2L;
+
+    private BenchmarkContext() {
+    }
+
+    /** * Запускает приложение. Аргументы имеют вид --свойство=значение и переопределяют application.yaml. */
+    static ConfigurableApplicationContext start(String... args) {
+        List<String> allArgs = new ArrayList<>(List.of("--server.port=0", "--app.archive.enabled=false",
+                "--spring.main.banner-mode=off", "--logging.level.root=WARN"));
+        allArgs.addAll(List.of(args));
+        // Потоки JMH отличаются от потока настройки, поэтому контекст безопасности общий для всех потоков
+        SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_GLOBAL);
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(TmsApplication.class)
+                .run(allArgs.toArray(String[]::new));
+        authenticate(ADMIN_ID, "admin@example.com", Role.ADMIN);
+        return context;
+    }
+
+    /** * Дальнейшие вызовы сервисов выполняются от имени указанного пользователя. */
+    static void authenticate(Long userId, String email, Role role) {
+        List<SimpleGrantedAuthority> authorities = List.of(new SimpleGrantedAuthority(role.name()));
+        UserDetailsTMS user = new UserDetailsTMS(userId, email, "", authorities);
+        SecurityContextHolder.getContext()
+                .setAuthentication(new UsernamePasswordAuthenticationToken(user, null, authorities));
+    }
+}
@@ -0,0 +1,90 @@
+package com.olegandreevich.tms.benchmarks;
+
+import com.olegandreevich.tms.dto.BulkItemResultDTO;
+import com.olegandreevich.tms.dto.TaskDTO;
+import com.olegandreevich.tms.entities.enums.Priority;
+import com.olegandreevich.tms.entities.enums.Status;
+import com.olegandreevich.tms.servicies.TaskBulkService;
+import com.olegandreevich.tms.servicies.TaskService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Создание задач по одной (TaskService.createTask, как при отдельном HTTP-запросе на задачу) против
+ * массового создания (TaskBulkService.createTasks). Результат - задач в секунду. Нужна БД из docker-compose:
+ * gradle jmh -PjmhArgs="BulkTaskBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class BulkTaskBenchmark {
+
+    private static final int TASKS = 500;
+    private static final String TITLE = "benchmark-bulk";
+
+    private ConfigurableApplicationContext context;
+    private TaskService taskService;
+    private TaskBulkService taskBulkService;
+    private JdbcTemplate jdbcTemplate;
+    private List<TaskDTO> tasks;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkContext.start();
+        taskService = context.getBean(TaskService.class);
+        taskBulkService = context.getBean(TaskBulkService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        tasks = new ArrayList<>(TASKS);
+        for (int i = 0; i < TASKS; i++) {
+            tasks.add(new TaskDTO(TITLE, "Описание " + i, Status.PENDING, Priority.LOW,
+                    BenchmarkContext.ADMIN_ID, BenchmarkContext.USER_ID));
+        }
+    }
+
+    /** * Созданные задачи удаляются после каждой итерации, чтобы размер таблицы не влиял на результат. */
+    @TearDown(Level.Iteration)
+    public void deleteCreatedTasks() {
+        jdbcTemplate.update("delete from tasks where title = ?", TITLE);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        deleteCreatedTasks();
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TASKS)
+    public void createOneByOne(Blackhole blackhole) {
+        for (TaskDTO task : tasks) {
+            blackhole.consume(taskService.createTask(task));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TASKS)
+    public List<BulkItemResultDTO> createInBulk() {
+        return taskBulkService.createTasks(tasks);
+    }
+}
@@ -0,0 +1,81 @@
+package com.olegandreevich.tms.benchmarks;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.olegandreevich.tms.entities.enums.Role;
+import com.olegandreevich.tms.security.JwtPrincipal;
+import com.olegandreevich.tms.security.JwtTokenProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.beans.DirectFieldAccessor;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость аутентификации одного запроса по JWT. Прежний путь фильтра: isTokenValid, getUsernameFromJWT и
+ * getRoleFromJWT, каждый с новым Algorithm.HMAC512 и JWTVerifier. Сравнивается с одной проверкой общим
+ * верификатором и с JwtTokenProvider.verify, когда токен уже в кэше проверенных. Без БД:
+ * gradle jmh -PjmhArgs="JwtVerificationBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    private static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret-benchmark-secret";
+
+    private JwtTokenProvider jwtTokenProvider;
+    private JWTVerifier sharedVerifier;
+    private String token;
+
+    @Setup
+    public void setup() {
+        jwtTokenProvider = new JwtTokenProvider();
+        DirectFieldAccessor fields = new DirectFieldAccessor(jwtTokenProvider);
+        fields.setPropertyValue("jwtSecret", SECRET);
+        fields.setPropertyValue("jwtExpirationInMs", TimeUnit.HOURS.toMillis(1));
+        fields.setPropertyValue("jwtCacheMaxSize", 10_000L);
+        jwtTokenProvider.init();
+        sharedVerifier = JWT.require(Algorithm.HMAC512(SECRET)).withIssuer("tms").build();
+        token = jwtTokenProvider.generateToken(BenchmarkContext.ADMIN_ID, "admin@example.com", Role.ADMIN);
+    }
+
+    /** * Три полные проверки подписи на запрос, как до кэша проверенных токенов. */
+    @Benchmark
+    public void threeVerificationsPerRequest(Blackhole blackhole) {
+        blackhole.consume(oldVerifier().verify(token) != null);
+        blackhole.consume(oldVerifier().verify(token).getSubject());
+        blackhole.consume(Role.valueOf(oldVerifier().verify(token).getClaim("role").asString()));
+    }
+
+    /** * Первый запрос с токеном: одна проверка подписи общим верификатором. */
+    @Benchmark
+    public DecodedJWT singleVerification() {
+        return sharedVerifier.verify(token);
+    }
+
+    /** * Последующие запросы с тем же токеном: хэш токена и обращение к кэшу. */
+    @Benchmark
+    public Optional<JwtPrincipal> cachedVerification() {
+        return jwtTokenProvider.verify(token);
+    }
+
+    private static JWTVerifier oldVerifier() {
+        return JWT.require(Algorithm.HMAC512(SECRET)).withIssuer("tms").build();
+    }
+}
@@ -0,0 +1,101 @@
+package com.olegandreevich.tms.benchmarks;
+
+import com.olegandreevich.tms.dto.CommentDTO;
+import com.olegandreevich.tms.dto.TaskDTO;
+import com.olegandreevich.tms.dto.TaskDTOGet;
+import com.olegandreevich.tms.entities.Comment;
+import com.olegandreevich.tms.entities.Task;
+import com.olegandreevich.tms.entities.User;
+import com.olegandreevich.tms.entities.enums.Priority;
+import com.olegandreevich.tms.entities.enums.Role;
+import com.olegandreevich.tms.entities.enums.Status;
+import com.olegandreevich.tms.mappers.CommentMapper;
+import com.olegandreevich.tms.mappers.TaskMapper;
+import com.olegandreevich.tms.mappers.TaskMapperGet;
+import org.modelmapper.ModelMapper;
+import org.modelmapper.convention.MatchingStrategies;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Преобразование сущностей в DTO: прежний ModelMapper в режиме STRICT (как в удаленном MapperConfig) против
+ * мапперов без рефлексии. Без БД. Выделение памяти на преобразование показывает профилировщик gc:
+ * gradle jmh -PjmhArgs="TaskMapperBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskMapperBenchmark {
+
+    private ModelMapper modelMapper;
+    private TaskMapper taskMapper;
+    private TaskMapperGet taskMapperGet;
+    private CommentMapper commentMapper;
+    private Task task;
+    private Comment comment;
+
+    @Setup
+    public void setup() {
+        modelMapper = new ModelMapper();
+        modelMapper.getConfiguration().setMatchingStrategy(MatchingStrategies.STRICT);
+        taskMapper = new TaskMapper();
+        taskMapperGet = new TaskMapperGet();
+        commentMapper = new CommentMapper();
+
+        User author = new User(1L, "admin@example.com", "admin", "pass", Role.ADMIN, null, null);
+        User assignee = new User(2L, "user1@example.com", "user1", "pass", Role.USER, null, null);
+        task = new Task(1L, "Задача", "Описание задачи", Status.IN_PROGRESS, Priority.HIGH, author, assignee,
+                new ArrayList<>());
+        comment = new Comment(1L, "Комментарий к задаче", assignee, task);
+    }
+
+    @Benchmark
+    public TaskDTO taskToDtoModelMapper() {
+        TaskDTO taskDTO = modelMapper.map(task, TaskDTO.class);
+        taskDTO.setAuthorId(task.getAuthor().getId());
+        taskDTO.setAssigneeId(task.getAssignee().getId());
+        return taskDTO;
+    }
+
+    @Benchmark
+    public TaskDTO taskToDto() {
+        return taskMapper.toDto(task);
+    }
+
+    @Benchmark
+    public TaskDTOGet taskToDtoGetModelMapper() {
+        TaskDTOGet taskDTOGet = modelMapper.map(task, TaskDTOGet.class);
+        taskDTOGet.setAuthorId(task.getAuthor().getId());
+        taskDTOGet.setAssigneeId(task.getAssignee().getId());
+        return taskDTOGet;
+    }
+
+    @Benchmark
+    public TaskDTOGet taskToDtoGet() {
+        return taskMapperGet.toDto(task);
+    }
+
+    @Benchmark
+    public CommentDTO commentToDtoModelMapper() {
+        return modelMapper.map(comment, CommentDTO.class);
+    }
+
+    @Benchmark
+    public CommentDTO commentToDto() {
+        return commentMapper.toDto(comment);
+    }
+}
@@ -0,0 +1,111 @@
+package com.olegandreevich.tms.benchmarks;
+
+import com.olegandreevich.tms.dto.TaskDTO;
+import com.olegandreevich.tms.dto.TaskDTOGet;
+import com.olegandreevich.tms.entities.Task;
+import com.olegandreevich.tms.mappers.TaskMapper;
+import com.olegandreevich.tms.mappers.TaskMapperGet;
+import com.olegandreevich.tms.repositories.TaskRepository;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Чтение списков задач: загрузка сущностей в контекст персистентности с преобразованием мапперами (прежний путь)
+ * против DTO, построенных прямо из результата SQL. Выделение памяти на запрос показывает профилировщик gc:
+ * gradle jmh -PjmhArgs="TaskReadBenchmark -prof gc". Нужна БД из docker-compose.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TaskReadBenchmark {
+
+    private static final Long AUTHOR_ID = 3L;
+    private static final String TITLE = "benchmark-read";
+    private static final String HOT_TASKS_JPQL = "SELECT t FROM Task t WHERE t.archived = false ORDER BY t.id";
+
+    /** * Количество задач автора и размер страницы. */
+    @Param({"20", "200"})
+    public int tasks;
+
+    private ConfigurableApplicationContext context;
+    private TaskRepository taskRepository;
+    private TaskMapper taskMapper;
+    private TaskMapperGet taskMapperGet;
+    private EntityManager entityManager;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readWriteTransaction;
+    private TransactionTemplate readOnlyTransaction;
+
+    @Setup
+    public void start() {
+        context = BenchmarkContext.start();
+        taskRepository = context.getBean(TaskRepository.class);
+        taskMapper = context.getBean(TaskMapper.class);
+        taskMapperGet = context.getBean(TaskMapperGet.class);
+        entityManager = context.getBean(EntityManager.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+        readWriteTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+
+        jdbcTemplate.batchUpdate("insert into tasks (title, description, status, priority, author_id, assignee_id) " +
+                "values (?, 'Описание задачи для бенчмарка', 'PENDING', 'LOW', ?, 2)",
+                Collections.nCopies(tasks, new Object[]{TITLE, AUTHOR_ID}));
+    }
+
+    @TearDown
+    public void stop() {
+        jdbcTemplate.update("delete from tasks where title = ?", TITLE);
+        context.close();
+    }
+
+    /** * Прежний путь списка автора: сущности в транзакции чтения-записи со снимками для dirty checking. */
+    @Benchmark
+    public List<TaskDTO> authorTasksFromEntities() {
+        return readWriteTransaction.execute(status -> taskRepository.findByAuthor_IdAndArchivedFalse(AUTHOR_ID)
+                .stream().map(taskMapper::toDto).toList());
+    }
+
+    @Benchmark
+    public List<TaskDTO> authorTasksFromProjection() {
+        return readOnlyTransaction.execute(status -> taskRepository.findDtosByAuthorId(AUTHOR_ID));
+    }
+
+    /** * Прежний путь страницы администратора: сущности без запроса count(*), затем маппер. */
+    @Benchmark
+    public List<TaskDTOGet> hotPageFromEntities() {
+        return readWriteTransaction.execute(status -> entityManager.createQuery(HOT_TASKS_JPQL, Task.class)
+                .setMaxResults(tasks).getResultStream().map(taskMapperGet::toDto).toList());
+    }
+
+    @Benchmark
+    public List<TaskDTOGet> hotPageFromProjection() {
+        return readOnlyTransaction.execute(status -> taskRepository
+                .findHotDtosBy(PageRequest.of(0, tasks, Sort.by("id"))).getContent());
+    }
+}
@@ -0,0 +1,77 @@
+package com.olegandreevich.tms.benchmarks;
+
+import com.olegandreevich.tms.dto.CursorPageDTO;
+import com.olegandreevich.tms.dto.TaskSearchResultDTO;
+import com.olegandreevich.tms.entities.enums.Role;
+import com.olegandreevich.tms.servicies.TaskTextSearchService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Полнотекстовый поиск на наборе из нескольких миллионов строк: первая и вторая страница результатов для
+ * администратора и для пользователя, который видит только свои задачи. Перед запуском БД из docker-compose
+ * заполняется скриптом load-tests/seed-search.sql, затем: gradle jmh -PjmhArgs="TaskTextSearchBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class TaskTextSearchBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    /** * Одно частое слово, два слова и фраза в синтаксисе websearch. */
+    @Param({"отчет", "оплата договор", "\"резервная копия\""})
+    public String query;
+
+    @Param({"ADMIN", "USER"})
+    public Role role;
+
+    private ConfigurableApplicationContext context;
+    private TaskTextSearchService taskTextSearchService;
+    private String secondPageCursor;
+
+    @Setup
+    public void start() {
+        context = BenchmarkContext.start();
+        if (role == Role.USER) {
+            BenchmarkContext.authenticate(BenchmarkContext.USER_ID, "user1@example.com", Role.USER);
+        }
+        taskTextSearchService = context.getBean(TaskTextSearchService.class);
+        secondPageCursor = firstPage().getNextCursor();
+        if (secondPageCursor == null) {
+            throw new IllegalStateException("Нет второй страницы результатов: заполните БД скриптом " +
+                    "load-tests/seed-search.sql");
+        }
+    }
+
+    @TearDown
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public CursorPageDTO<TaskSearchResultDTO> firstPage() {
+        return taskTextSearchService.search(query, null, PAGE_SIZE, false);
+    }
+
+    @Benchmark
+    public CursorPageDTO<TaskSearchResultDTO> secondPage() {
+        return taskTextSearchService.search(query, secondPageCursor, PAGE_SIZE, false);
+    }
+}
@@ -0,0 +1,105 @@
+package com.olegandreevich.tms.configs;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.olegandreevich.tms.util.ApiError;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ограничивает количество одновременно обрабатываемых запросов. * С виртуальными потоками Tomcat не ограничивает
+ * число запросов пулом потоков, и без этого фильтра тысячи запросов одновременно встали бы в очередь за
+ * соединениями Hikari. Запрос ждет разрешения не дольше acquireTimeout, затем получает 503 с Retry-After.
+ * Фильтр стоит перед Spring Security, чтобы отклоненный запрос не обращался к БД за пользователем.
+ * Асинхронная часть запроса (SSE, потоковая выгрузка) выполняется уже без разрешения.
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER - 1)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    /** * Имя метрики количества запросов в обработке. */
+    static final String ACTIVE_METRIC = "tms.http.concurrency.active";
+
+    /** * Имя метрики количества запросов, ожидающих разрешения. */
+    static final String WAITING_METRIC = "tms.http.concurrency.waiting";
+
+    private final int maxRequests;
+    private final Duration acquireTimeout;
+    private final Semaphore permits;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public ConcurrencyLimitFilter(@Value("${app.concurrency.maxRequests:64}") int maxRequests,
+                                  @Value("${app.concurrency.acquireTimeout:1s}") Duration acquireTimeout,
+                                  ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        if (maxRequests < 1) {
+            throw new IllegalArgumentException("app.concurrency.maxRequests должен быть положительным.");
+        }
+        this.maxRequests = maxRequests;
+        this.acquireTimeout = acquireTimeout;
+        // Честная очередь: при перегрузке первыми обслуживаются запросы, которые ждут дольше
+        this.permits = new Semaphore(maxRequests, true);
+        this.objectMapper = objectMapper;
+        Gauge.builder(ACTIVE_METRIC, this, ConcurrencyLimitFilter::activeRequests).register(meterRegistry);
+        Gauge.builder(WAITING_METRIC, permits, Semaphore::getQueueLength).register(meterRegistry);
+    }
+
+    /** * Проверки состояния не ограничиваются: под нагрузкой под не должен считаться неработающим. */
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith(request.getContextPath() + "/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            reject(response);
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /** * Количество запросов, которые сейчас обрабатываются. */
+    int activeRequests() {
+        return maxRequests - permits.availablePermits();
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), new ApiError(HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "Сервер перегружен, повторите попытку позже."));
+    }
+}
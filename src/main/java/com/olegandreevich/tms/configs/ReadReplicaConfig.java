@@ -0,0 +1,89 @@
+package com.olegandreevich.tms.configs;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Чтение с реплик. * Включается, если задан app.datasource.replica.urls (переменная SPRING_DATASOURCE_REPLICA_URLS).
+ * Транзакции с readOnly = true получают соединение с реплики, остальные - с основной БД. Соединение
+ * берется лениво, при первом запросе, когда признак readOnly транзакции уже известен.
+ * Реплики используют логин, пароль и настройки пула основной БД.
+ */
+@Configuration
+@ConditionalOnExpression("'${app.datasource.replica.urls:}' != ''")
+public class ReadReplicaConfig implements WebMvcConfigurer {
+
+    @Value("${app.datasource.replica.readYourWritesWindow:5s}")
+    private Duration readYourWritesWindow;
+
+    /** * Пул основной БД с настройками spring.datasource.*, как при автоконфигурации. */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaDataSource replicaDataSource(HikariDataSource primaryDataSource, MeterRegistry meterRegistry,
+                                               @Value("${app.datasource.replica.urls}") List<String> urls,
+                                               @Value("${app.datasource.replica.retryAfter:10s}") Duration retryAfter) {
+        List<DataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < urls.size(); i++) {
+            replicas.add(replicaPool(primaryDataSource, meterRegistry, "tms-replica-" + (i + 1), urls.get(i).trim()));
+        }
+        return new ReplicaDataSource(primaryDataSource, replicas, retryAfter, Clock.systemUTC());
+    }
+
+    private static HikariDataSource replicaPool(HikariDataSource primary, MeterRegistry meterRegistry, String poolName,
+                                                String url) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(poolName);
+        config.setJdbcUrl(url);
+        config.setDriverClassName(primary.getDriverClassName());
+        config.setUsername(primary.getUsername());
+        config.setPassword(primary.getPassword());
+        config.setMaximumPoolSize(primary.getMaximumPoolSize());
+        config.setMinimumIdle(primary.getMinimumIdle());
+        config.setConnectionTimeout(primary.getConnectionTimeout());
+        config.setIdleTimeout(primary.getIdleTimeout());
+        config.setMaxLifetime(primary.getMaxLifetime());
+        config.setReadOnly(true);
+        // Имя приложения видно в pg_stat_activity и позволяет отличить реплику в тестах
+        config.addDataSourceProperty("ApplicationName", poolName);
+        config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        // Реплика может быть недоступна при запуске: пул создается без проверочного подключения
+        config.setInitializationFailTimeout(-1);
+        return new HikariDataSource(config);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaDataSource replicaDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(replicaDataSource);
+        return dataSource;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ReadYourWritesInterceptor(readYourWritesWindow));
+    }
+}
@@ -0,0 +1,79 @@
+package com.olegandreevich.tms.configs;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Чтение своих изменений при работе с репликами. * После изменяющего запроса пользователя (POST, PUT, PATCH,
+ * DELETE) его запросы в течение window читают из основной БД. Время запоминается и до, и после изменения:
+ * клиент может получить ответ и отправить следующий запрос раньше, чем завершится afterCompletion.
+ * Время хранится в памяти узла, поэтому окно должно перекрывать обычное отставание реплик с запасом.
+ */
+public class ReadYourWritesInterceptor implements AsyncHandlerInterceptor {
+
+    private static final Set<HttpMethod> WRITE_METHODS =
+            Set.of(HttpMethod.POST, HttpMethod.PUT, HttpMethod.PATCH, HttpMethod.DELETE);
+
+    /** * Пользователи, изменявшие данные в течение окна (ключ - имя пользователя). */
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReadYourWritesInterceptor(Duration window) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .build();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String user = currentUser();
+        if (user == null) {
+            return true;
+        }
+        if (isWrite(request)) {
+            recentWriters.put(user, Boolean.TRUE);
+        }
+        if (recentWriters.getIfPresent(user) != null) {
+            ReplicaDataSource.requirePrimary();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        ReplicaDataSource.clearPrimaryRequired();
+        String user = currentUser();
+        if (user != null && isWrite(request)) {
+            recentWriters.put(user, Boolean.TRUE);
+        }
+    }
+
+    /** * Асинхронная часть запроса выполняется в другом потоке, поэтому флаг потока запроса снимается сразу. */
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        ReplicaDataSource.clearPrimaryRequired();
+    }
+
+    private static boolean isWrite(HttpServletRequest request) {
+        return WRITE_METHODS.contains(HttpMethod.valueOf(request.getMethod()));
+    }
+
+    private static String currentUser() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated() || auth instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return auth.getName();
+    }
+}
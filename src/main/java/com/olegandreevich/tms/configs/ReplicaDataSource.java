@@ -0,0 +1,97 @@
+package com.olegandreevich.tms.configs;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Источник соединений для транзакций только для чтения. * Реплики выбираются по кругу; реплика, к которой
+ * не удалось подключиться, пропускается в течение retryAfter, а если недоступны все, соединение берется из
+ * основной БД. Запросы пользователя, недавно изменявшего данные, идут в основную БД (см.
+ * {@link ReadYourWritesInterceptor}), чтобы он сразу видел свои изменения несмотря на отставание реплик.
+ */
+public class ReplicaDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaDataSource.class);
+
+    private static final ThreadLocal<Boolean> primaryRequired = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final List<DataSource> replicas;
+    private final Duration retryAfter;
+    private final Clock clock;
+    private final AtomicInteger next = new AtomicInteger();
+
+    /** * Момент (мс), до которого реплика считается недоступной. */
+    private final AtomicLongArray unavailableUntil;
+
+    public ReplicaDataSource(DataSource primary, List<DataSource> replicas, Duration retryAfter, Clock clock) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.retryAfter = retryAfter;
+        this.clock = clock;
+        this.unavailableUntil = new AtomicLongArray(replicas.size());
+    }
+
+    /** * Направляет чтения текущего потока в основную БД до вызова {@link #clearPrimaryRequired()}. */
+    public static void requirePrimary() {
+        primaryRequired.set(Boolean.TRUE);
+    }
+
+    public static void clearPrimaryRequired() {
+        primaryRequired.remove();
+    }
+
+    public static boolean isPrimaryRequired() {
+        return Boolean.TRUE.equals(primaryRequired.get());
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return getConnection(null, null);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        if (!isPrimaryRequired()) {
+            int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+            for (int i = 0; i < replicas.size(); i++) {
+                int index = (start + i) % replicas.size();
+                if (unavailableUntil.get(index) > clock.millis()) {
+                    continue;
+                }
+                try {
+                    return connect(replicas.get(index), username, password);
+                } catch (SQLException e) {
+                    unavailableUntil.set(index, clock.millis() + retryAfter.toMillis());
+                    logger.warn("Реплика {} недоступна, повторная попытка через {}: {}", index + 1, retryAfter,
+                            e.getMessage());
+                }
+            }
+        }
+        return connect(primary, username, password);
+    }
+
+    /** * Закрывает пулы реплик; основной пул закрывается отдельно. */
+    @Override
+    public void close() throws Exception {
+        for (DataSource replica : replicas) {
+            if (replica instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private static Connection connect(DataSource dataSource, String username, String password) throws SQLException {
+        return username == null ? dataSource.getConnection() : dataSource.getConnection(username, password);
+    }
+}
@@ -2,6 +2,7 @@ package com.olegandreevich.tms.controllers;
 
 import com.olegandreevich.tms.entities.enums.Role;
 import com.olegandreevich.tms.security.JwtTokenProvider;
+import com.olegandreevich.tms.security.UserDetailsTMS;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -56,7 +57,8 @@ public class AuthController {
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
 
-        String jwt = tokenProvider.generateToken(loginRequest.email(), loginRequest.role());
+        UserDetailsTMS userDetails = (UserDetailsTMS) authentication.getPrincipal();
+        String jwt = tokenProvider.generateToken(userDetails.getUserId(), loginRequest.email(), loginRequest.role());
         Map<String, String> response = new HashMap<>();
         response.put("accessToken", jwt);
         return new ResponseEntity<>(response, HttpStatus.OK);
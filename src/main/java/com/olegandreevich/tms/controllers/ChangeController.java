@@ -0,0 +1,45 @@
+package com.olegandreevich.tms.controllers;
+
+import com.olegandreevich.tms.dto.ChangePageDTO;
+import com.olegandreevich.tms.servicies.ChangeLogService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/changes")
+@Tag(name = "Журнал изменений", description = "Инкрементальная синхронизация задач и комментариев")
+public class ChangeController {
+
+    private final ChangeLogService changeLogService;
+
+    public ChangeController(ChangeLogService changeLogService) {
+        this.changeLogService = changeLogService;
+    }
+
+    /** * Получение изменений после курсора. *
+     * @param after Курсор из предыдущего ответа.
+     * @param limit Размер страницы.
+     * @return Страница изменений с курсором для следующего запроса. */
+    @GetMapping
+    @Operation(summary = "Изменения задач и комментариев после курсора",
+            description = "Возвращает изменения в порядке фиксации транзакций. Первый запрос выполняется без курсора, " +
+                    "следующие - с nextCursor из предыдущего ответа. Курсор возвращается и для пустой страницы; " +
+                    "hasMore означает, что следующую страницу можно запросить сразу.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Изменения успешно получены"),
+                    @ApiResponse(responseCode = "400", description = "Некорректный курсор"),
+                    @ApiResponse(responseCode = "403", description = "Нет прав администратора")
+            })
+    public ChangePageDTO getChanges(
+            @Parameter(description = "Курсор из предыдущего ответа") @RequestParam(required = false) String after,
+            @Parameter(description = "Размер страницы") @RequestParam(defaultValue = "100") int limit
+    ) {
+        return changeLogService.getChanges(after, limit);
+    }
+}
@@ -1,6 +1,7 @@
 package com.olegandreevich.tms.controllers;
 
 import com.olegandreevich.tms.dto.CommentDTO;
+import com.olegandreevich.tms.dto.CursorPageDTO;
 import com.olegandreevich.tms.entities.Comment;
 import com.olegandreevich.tms.servicies.CommentService;
 import com.olegandreevich.tms.util.exceptions.ResourceNotFoundException;
@@ -44,20 +45,25 @@ public class CommentController {
         return commentService.addComment(taskId, userId, commentDTO);
     }
 
-    /** * Получение списка комментариев для задачи. *
+    /** * Получение страницы комментариев для задачи. *
      * @param taskId Идентификатор задачи.
-     * @return Список комментариев для указанной задачи. */
+     * @param cursor Курсор следующей страницы.
+     * @param size Размер страницы.
+     * @return Страница комментариев для указанной задачи. */
     @GetMapping
     @Operation(summary = "Получение списка комментариев для задачи",
-            description = "Возвращает список всех комментариев для указанной задачи.",
+            description = "Возвращает страницу комментариев для указанной задачи. " +
+                    "Для получения следующей страницы передайте nextCursor из предыдущего ответа.",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Список комментариев успешно получен"),
                     @ApiResponse(responseCode = "404", description = "Задача не найдена")
             })
-    public List<CommentDTO> getCommentsForTask(
-            @Parameter(description = "Идентификатор задачи") @PathVariable Long taskId
+    public CursorPageDTO<CommentDTO> getCommentsForTask(
+            @Parameter(description = "Идентификатор задачи") @PathVariable Long taskId,
+            @Parameter(description = "Курсор следующей страницы") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Размер страницы") @RequestParam(defaultValue = "50") int size
     ) {
-        return commentService.getCommentsForTask(taskId);
+        return commentService.getCommentsForTask(taskId, cursor, size);
     }
 
     /** * Удаление комментария. *
@@ -82,7 +88,8 @@ public class CommentController {
      */
     @GetMapping("/")
     @Operation(summary = "Получение всех комментариев",
-            description = "Возвращает список всех существующих комментариев.",
+            description = "Возвращает список всех существующих комментариев. " +
+                    "Для выгрузки всех комментариев используйте /api/export/comments.",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Список комментариев успешно получен")
             })
@@ -0,0 +1,76 @@
+package com.olegandreevich.tms.controllers;
+
+import com.olegandreevich.tms.servicies.DataFormat;
+import com.olegandreevich.tms.servicies.ExportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequestMapping("/api/export")
+@Tag(name = "Выгрузка", description = "Потоковая выгрузка задач и комментариев")
+public class ExportController {
+
+    private final ExportService exportService;
+
+    public ExportController(ExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    /** * Выгрузка всех задач. *
+     * @param format Формат выгрузки.
+     * @param gzip Сжимать ли выгрузку.
+     * @return Файл выгрузки, передаваемый по мере чтения из БД. */
+    @GetMapping("/tasks")
+    @Operation(summary = "Выгрузка всех задач",
+            description = "Передает все задачи в формате NDJSON или CSV по мере чтения из БД, без загрузки " +
+                    "всего списка в память.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Выгрузка началась"),
+                    @ApiResponse(responseCode = "403", description = "Нет прав администратора")
+            })
+    public ResponseEntity<StreamingResponseBody> exportTasks(
+            @Parameter(description = "Формат выгрузки") @RequestParam(defaultValue = "NDJSON") DataFormat format,
+            @Parameter(description = "Сжимать выгрузку gzip") @RequestParam(defaultValue = "false") boolean gzip
+    ) {
+        return attachment("tasks", format, gzip, exportService.exportTasks(format, gzip));
+    }
+
+    /** * Выгрузка всех комментариев. *
+     * @param format Формат выгрузки.
+     * @param gzip Сжимать ли выгрузку.
+     * @return Файл выгрузки, передаваемый по мере чтения из БД. */
+    @GetMapping("/comments")
+    @Operation(summary = "Выгрузка всех комментариев",
+            description = "Передает все комментарии в формате NDJSON или CSV по мере чтения из БД, без загрузки " +
+                    "всего списка в память.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Выгрузка началась"),
+                    @ApiResponse(responseCode = "403", description = "Нет прав администратора")
+            })
+    public ResponseEntity<StreamingResponseBody> exportComments(
+            @Parameter(description = "Формат выгрузки") @RequestParam(defaultValue = "NDJSON") DataFormat format,
+            @Parameter(description = "Сжимать выгрузку gzip") @RequestParam(defaultValue = "false") boolean gzip
+    ) {
+        return attachment("comments", format, gzip, exportService.exportComments(format, gzip));
+    }
+
+    private ResponseEntity<StreamingResponseBody> attachment(String name, DataFormat format, boolean gzip,
+                                                             StreamingResponseBody body) {
+        String filename = name + "." + format.getExtension() + (gzip ? ".gz" : "");
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+}
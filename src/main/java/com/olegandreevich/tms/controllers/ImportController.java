@@ -0,0 +1,88 @@
+package com.olegandreevich.tms.controllers;
+
+import com.olegandreevich.tms.dto.ImportResultDTO;
+import com.olegandreevich.tms.servicies.DataFormat;
+import com.olegandreevich.tms.servicies.ImportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+@RestController
+@RequestMapping("/api/import")
+@Tag(name = "Загрузка", description = "Массовая загрузка задач и комментариев")
+public class ImportController {
+
+    private final ImportService importService;
+
+    public ImportController(ImportService importService) {
+        this.importService = importService;
+    }
+
+    /** * Загрузка задач из тела запроса. *
+     * @param format Формат данных.
+     * @param gzip Сжаты ли данные gzip.
+     * @param body Данные.
+     * @return Результат загрузки. */
+    @PostMapping("/tasks")
+    @Operation(summary = "Загрузка задач",
+            description = "Загружает задачи из CSV с заголовком или NDJSON в одной транзакции. Колонки совпадают " +
+                    "с выгрузкой /api/export/tasks. Строки с ошибками пропускаются и перечисляются в ответе.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Загрузка завершена"),
+                    @ApiResponse(responseCode = "400", description = "Данные нельзя разобрать"),
+                    @ApiResponse(responseCode = "403", description = "Нет прав администратора")
+            })
+    public ImportResultDTO importTasks(
+            @Parameter(description = "Формат данных") @RequestParam(defaultValue = "NDJSON") DataFormat format,
+            @Parameter(description = "Данные сжаты gzip") @RequestParam(defaultValue = "false") boolean gzip,
+            InputStream body
+    ) throws IOException {
+        return importService.importTasks(gzip ? new GZIPInputStream(body) : body, format);
+    }
+
+    /** * Загрузка комментариев из тела запроса. *
+     * @param format Формат данных.
+     * @param gzip Сжаты ли данные gzip.
+     * @param body Данные.
+     * @return Результат загрузки. */
+    @PostMapping("/comments")
+    @Operation(summary = "Загрузка комментариев",
+            description = "Загружает комментарии из CSV с заголовком или NDJSON в одной транзакции. Колонки: " +
+                    "taskId, userId, content, createdAt. Строки с ошибками пропускаются и перечисляются в ответе.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Загрузка завершена"),
+                    @ApiResponse(responseCode = "400", description = "Данные нельзя разобрать"),
+                    @ApiResponse(responseCode = "403", description = "Нет прав администратора")
+            })
+    public ImportResultDTO importComments(
+            @Parameter(description = "Формат данных") @RequestParam(defaultValue = "NDJSON") DataFormat format,
+            @Parameter(description = "Данные сжаты gzip") @RequestParam(defaultValue = "false") boolean gzip,
+            InputStream body
+    ) throws IOException {
+        return importService.importComments(gzip ? new GZIPInputStream(body) : body, format);
+    }
+
+    /** * Состояние выполняющихся загрузок. *
+     * @return Прогресс загрузок. */
+    @GetMapping("/active")
+    @Operation(summary = "Выполняющиеся загрузки",
+            description = "Возвращает количество прочитанных и отклоненных строк для загрузок, которые еще идут.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Состояние загрузок получено"),
+                    @ApiResponse(responseCode = "403", description = "Нет прав администратора")
+            })
+    public List<ImportResultDTO> getActiveImports() {
+        return importService.getActiveImports();
+    }
+}
@@ -1,9 +1,18 @@
 package com.olegandreevich.tms.controllers;
 
+import com.olegandreevich.tms.dto.BulkItemResultDTO;
+import com.olegandreevich.tms.dto.CursorPageDTO;
 import com.olegandreevich.tms.dto.TaskDTO;
 import com.olegandreevich.tms.dto.TaskDTOGet;
+import com.olegandreevich.tms.dto.TaskFilterDTO;
+import com.olegandreevich.tms.dto.TaskSearchResultDTO;
 import com.olegandreevich.tms.dto.TaskWithCommentsDTO;
+import com.olegandreevich.tms.entities.enums.Priority;
+import com.olegandreevich.tms.entities.enums.Status;
+import com.olegandreevich.tms.servicies.TaskBulkService;
 import com.olegandreevich.tms.servicies.TaskService;
+import com.olegandreevich.tms.servicies.TaskTextSearchService;
+import com.olegandreevich.tms.util.ETagUtil;
 import com.olegandreevich.tms.util.exceptions.ResourceNotFoundException;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -12,10 +21,15 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.apache.coyote.BadRequestException;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 @RestController
@@ -25,26 +39,114 @@ import java.util.List;
 public class TaskController {
 
     private final TaskService taskService;
+    private final TaskBulkService taskBulkService;
+    private final TaskTextSearchService taskTextSearchService;
 
-    public TaskController(TaskService taskService) {
+    public TaskController(TaskService taskService, TaskBulkService taskBulkService,
+                          TaskTextSearchService taskTextSearchService) {
         this.taskService = taskService;
+        this.taskBulkService = taskBulkService;
+        this.taskTextSearchService = taskTextSearchService;
     }
 
     @GetMapping
     @Operation(summary = "Получение списка задач",
-            description = "Возвращает список задач с учетом параметров пагинации и сортировки.",
+            description = "Возвращает список задач с учетом параметров пагинации и сортировки. " +
+                    "Номер страницы ограничен, для глубоких страниц используйте /api/tasks/scroll. " +
+                    "Ответ содержит слабый ETag, при совпадении с If-None-Match возвращается 304.",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Успешное получение списка задач"),
+                    @ApiResponse(responseCode = "304", description = "Список не изменился"),
                     @ApiResponse(responseCode = "400", description = "Некорректные параметры запроса")
             })
-    public List<TaskDTOGet> getTasks(
+    public ResponseEntity<List<TaskDTOGet>> getTasks(
             @Parameter(description = "Номер страницы") @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Размер страницы") @RequestParam(defaultValue = "10") int size,
             @Parameter(description = "Направление сортировки")
             @RequestParam(defaultValue = "ASC") Sort.Direction direction,
-            @Parameter(description = "Поле для сортировки") @RequestParam(defaultValue = "id") String sortField
+            @Parameter(description = "Поле для сортировки") @RequestParam(defaultValue = "id") String sortField,
+            @Parameter(description = "Включать архивные задачи")
+            @RequestParam(defaultValue = "false") boolean includeArchived
     ) {
-        return taskService.getTasks(page, size, direction, sortField).getContent();
+        List<TaskDTOGet> tasks = taskService.getTasks(page, size, direction, sortField, includeArchived).getContent();
+        return ResponseEntity.ok().eTag(pageETag(tasks, null)).body(tasks);
+    }
+
+    @GetMapping("/scroll")
+    @Operation(summary = "Постраничное получение задач по курсору",
+            description = "Возвращает страницу задач и курсор следующей страницы. " +
+                    "Подходит для глубокой пагинации: не выполняет OFFSET и подсчет общего количества. " +
+                    "Ответ содержит слабый ETag, при совпадении с If-None-Match возвращается 304.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Успешное получение страницы задач"),
+                    @ApiResponse(responseCode = "304", description = "Страница не изменилась"),
+                    @ApiResponse(responseCode = "400", description = "Некорректные параметры запроса или курсор")
+            })
+    public ResponseEntity<CursorPageDTO<TaskDTOGet>> scrollTasks(
+            @Parameter(description = "Курсор следующей страницы") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Размер страницы") @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Направление сортировки")
+            @RequestParam(defaultValue = "ASC") Sort.Direction direction,
+            @Parameter(description = "Поле для сортировки") @RequestParam(defaultValue = "id") String sortField,
+            @Parameter(description = "Включать архивные задачи")
+            @RequestParam(defaultValue = "false") boolean includeArchived
+    ) {
+        return withETag(taskService.scrollTasks(cursor, size, direction, sortField, includeArchived));
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "Поиск задач по фильтрам",
+            description = "Возвращает страницу задач, отфильтрованных по статусу, приоритету, автору, исполнителю " +
+                    "и диапазону даты создания. Пользователь без прав администратора должен указать себя " +
+                    "в качестве автора или исполнителя. Ответ содержит слабый ETag, при совпадении с If-None-Match " +
+                    "возвращается 304.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Успешное получение страницы задач"),
+                    @ApiResponse(responseCode = "304", description = "Страница не изменилась"),
+                    @ApiResponse(responseCode = "400", description = "Некорректные параметры запроса или курсор"),
+                    @ApiResponse(responseCode = "403", description = "Нет доступа к задачам других пользователей")
+            })
+    public ResponseEntity<CursorPageDTO<TaskDTOGet>> searchTasks(
+            @Parameter(description = "Статус задачи") @RequestParam(required = false) Status status,
+            @Parameter(description = "Приоритет задачи") @RequestParam(required = false) Priority priority,
+            @Parameter(description = "Идентификатор автора") @RequestParam(required = false) Long authorId,
+            @Parameter(description = "Идентификатор исполнителя") @RequestParam(required = false) Long assigneeId,
+            @Parameter(description = "Дата создания с (включительно)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            LocalDateTime createdFrom,
+            @Parameter(description = "Дата создания по (не включительно)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            LocalDateTime createdTo,
+            @Parameter(description = "Курсор следующей страницы") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Размер страницы") @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Направление сортировки")
+            @RequestParam(defaultValue = "DESC") Sort.Direction direction,
+            @Parameter(description = "Поле для сортировки") @RequestParam(defaultValue = "createdAt") String sortField,
+            @Parameter(description = "Включать архивные задачи")
+            @RequestParam(defaultValue = "false") boolean includeArchived
+    ) {
+        TaskFilterDTO filter = new TaskFilterDTO(status, priority, authorId, assigneeId, createdFrom, createdTo);
+        filter.setIncludeArchived(includeArchived);
+        return withETag(taskService.searchTasks(filter, cursor, size, direction, sortField));
+    }
+
+    @GetMapping("/text-search")
+    @Operation(summary = "Полнотекстовый поиск задач",
+            description = "Ищет слова запроса в названии, описании и комментариях задач. Результаты отсортированы " +
+                    "по релевантности, найденные слова во фрагментах выделены тегом mark. Пользователь без прав " +
+                    "администратора находит только задачи, автором или исполнителем которых является.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Успешное получение результатов поиска"),
+                    @ApiResponse(responseCode = "400", description = "Пустой или слишком длинный запрос, некорректный курсор")
+            })
+    public CursorPageDTO<TaskSearchResultDTO> textSearchTasks(
+            @Parameter(description = "Поисковый запрос") @RequestParam String q,
+            @Parameter(description = "Курсор следующей страницы") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Размер страницы") @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Искать также в архивных задачах")
+            @RequestParam(defaultValue = "false") boolean includeArchived
+    ) {
+        return taskTextSearchService.search(q, cursor, size, includeArchived);
     }
 
     @PostMapping
@@ -60,18 +162,66 @@ public class TaskController {
         return taskService.createTask(taskDTO);
     }
 
+    @PostMapping("/bulk")
+    @Operation(summary = "Массовое создание задач",
+            description = "Создает задачи из массива в одной транзакции и возвращает результат по каждому элементу.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Массив обработан, результаты по элементам"),
+                    @ApiResponse(responseCode = "400", description = "Слишком много элементов в запросе"),
+                    @ApiResponse(responseCode = "403", description = "Нет прав администратора")
+            })
+    public List<BulkItemResultDTO> createTasks(@Parameter(description = "Данные для создания задач")
+                                               @RequestBody List<TaskDTO> taskDTOs) {
+        return taskBulkService.createTasks(taskDTOs);
+    }
+
+    @PutMapping("/bulk")
+    @Operation(summary = "Массовое обновление задач",
+            description = "Обновляет задачи из массива в одной транзакции и возвращает результат по каждому элементу. " +
+                    "Каждый элемент должен содержать версию задачи: без нее результат элемента 428, " +
+                    "если задача изменена после чтения - 412. Результат обновленной задачи содержит ее новую версию.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Массив обработан, результаты по элементам"),
+                    @ApiResponse(responseCode = "400", description = "Слишком много элементов в запросе"),
+                    @ApiResponse(responseCode = "403", description = "Нет прав администратора")
+            })
+    public List<BulkItemResultDTO> updateTasks(@Parameter(description = "Идентификаторы и новые данные задач")
+                                               @RequestBody List<TaskDTOGet> taskDTOs) {
+        return taskBulkService.updateTasks(taskDTOs);
+    }
+
+    @DeleteMapping("/bulk")
+    @Operation(summary = "Массовое удаление задач",
+            description = "Удаляет задачи с указанными идентификаторами в одной транзакции " +
+                    "и возвращает результат по каждому элементу.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Массив обработан, результаты по элементам"),
+                    @ApiResponse(responseCode = "400", description = "Слишком много элементов в запросе"),
+                    @ApiResponse(responseCode = "403", description = "Нет прав администратора")
+            })
+    public List<BulkItemResultDTO> deleteTasks(@Parameter(description = "Идентификаторы задач")
+                                               @RequestBody List<Long> ids) {
+        return taskBulkService.deleteTasks(ids);
+    }
+
     @PutMapping("/{id}")
     @Operation(summary = "Обновление существующей задачи",
-            description = "Обновляет задачу с указанным идентификатором.",
+            description = "Обновляет задачу с указанным идентификатором. Заголовок If-Match должен содержать ETag, " +
+                    "полученный при чтении задачи: если задача с тех пор изменена, возвращается 412.",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Задача успешно обновлена"),
-                    @ApiResponse(responseCode = "404", description = "Задача не найдена")
+                    @ApiResponse(responseCode = "404", description = "Задача не найдена"),
+                    @ApiResponse(responseCode = "412", description = "Задача изменена после чтения"),
+                    @ApiResponse(responseCode = "428", description = "Не указан заголовок If-Match")
             })
-    public TaskDTO updateTask(
+    public ResponseEntity<TaskDTO> updateTask(
             @Parameter(description = "Идентификатор задачи") @PathVariable Long id,
+            @Parameter(description = "ETag задачи, полученный при чтении, или * для изменения любой версии")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Parameter(description = "Новые данные для задачи") @Valid @RequestBody TaskDTO taskDTO
     ) throws BadRequestException {
-        return taskService.updateTask(id, taskDTO);
+        TaskDTO updated = taskService.updateTask(id, taskDTO, ETagUtil.expectedVersion(ifMatch));
+        return ResponseEntity.ok().eTag(ETagUtil.strong(updated.getVersion())).body(updated);
     }
 
     @DeleteMapping("/{id}")
@@ -90,41 +240,51 @@ public class TaskController {
 
     @GetMapping("/{id}")
     @Operation(summary = "Получение задачи по идентификатору",
-            description = "Возвращает задачу с указанным идентификатором.",
+            description = "Возвращает задачу с указанным идентификатором. Заголовок ETag содержит версию задачи, " +
+                    "при совпадении с If-None-Match возвращается 304.",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Задача успешно получена"),
+                    @ApiResponse(responseCode = "304", description = "Задача не изменилась"),
                     @ApiResponse(responseCode = "404", description = "Задача не найдена")
             })
-    public TaskDTO getTaskById(
+    public ResponseEntity<TaskDTO> getTaskById(
             @Parameter(description = "Идентификатор задачи") @PathVariable Long id
     ) throws ResourceNotFoundException {
-        return taskService.getTaskById(id);
+        TaskDTO task = taskService.getTaskById(id);
+        // При совпадении с If-None-Match Spring отвечает 304 без сериализации тела
+        return ResponseEntity.ok().eTag(ETagUtil.strong(task.getVersion())).body(task);
     }
 
     @GetMapping("/author/{authorId}")
     @Operation(summary = "Поиск задач по идентификатору автора",
-            description = "Возвращает список задач, созданных автором с указанным идентификатором.",
+            description = "Возвращает список задач, созданных автором с указанным идентификатором. " +
+                    "Ответ содержит слабый ETag, при совпадении с If-None-Match возвращается 304.",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Список задач успешно получен"),
+                    @ApiResponse(responseCode = "304", description = "Список не изменился"),
                     @ApiResponse(responseCode = "404", description = "Автор не найден")
             })
-    public List<TaskDTO> findTasksByAuthorId(
+    public ResponseEntity<List<TaskDTO>> findTasksByAuthorId(
             @Parameter(description = "Идентификатор автора") @PathVariable Long authorId
     ) {
-        return taskService.findTasksByAuthorId(authorId);
+        List<TaskDTO> tasks = taskService.findTasksByAuthorId(authorId);
+        return ResponseEntity.ok().eTag(listETag(tasks)).body(tasks);
     }
 
     @GetMapping("/assignee/{assigneeId}")
     @Operation(summary = "Поиск задач по идентификатору исполнителя",
-            description = "Возвращает список задач, назначенных исполнителю с указанным идентификатором.",
+            description = "Возвращает список задач, назначенных исполнителю с указанным идентификатором. " +
+                    "Ответ содержит слабый ETag, при совпадении с If-None-Match возвращается 304.",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Список задач успешно получен"),
+                    @ApiResponse(responseCode = "304", description = "Список не изменился"),
                     @ApiResponse(responseCode = "404", description = "Исполнитель не найден")
             })
-    public List<TaskDTO> findTasksByAssigneeId(
+    public ResponseEntity<List<TaskDTO>> findTasksByAssigneeId(
             @Parameter(description = "Идентификатор исполнителя") @PathVariable Long assigneeId
     ) {
-        return taskService.findTasksByAssigneeId(assigneeId);
+        List<TaskDTO> tasks = taskService.findTasksByAssigneeId(assigneeId);
+        return ResponseEntity.ok().eTag(listETag(tasks)).body(tasks);
     }
 
     @GetMapping("/author/{authorId}/with-comments")
@@ -153,4 +313,27 @@ public class TaskController {
     ) {
         return taskService.findTasksByAssigneeIdWithComments(assigneeId);
     }
+
+    private static ResponseEntity<CursorPageDTO<TaskDTOGet>> withETag(CursorPageDTO<TaskDTOGet> page) {
+        return ResponseEntity.ok().eTag(pageETag(page.getItems(), page.getNextCursor())).body(page);
+    }
+
+    /** * Слабый ETag страницы по ID и версиям задач: строится из уже загруженной страницы, без запросов к БД. */
+    private static String pageETag(List<TaskDTOGet> tasks, String nextCursor) {
+        List<Object> parts = new ArrayList<>();
+        for (TaskDTOGet task : tasks) {
+            parts.add(task.getId() + ":" + task.getVersion());
+        }
+        parts.add(nextCursor);
+        return ETagUtil.weak(parts);
+    }
+
+    /** * Слабый ETag списка задач по ID и версиям, как у страницы. */
+    private static String listETag(List<TaskDTO> tasks) {
+        List<Object> parts = new ArrayList<>();
+        for (TaskDTO task : tasks) {
+            parts.add(task.getId() + ":" + task.getVersion());
+        }
+        return ETagUtil.weak(parts);
+    }
 }
@@ -0,0 +1,44 @@
+package com.olegandreevich.tms.controllers;
+
+import com.olegandreevich.tms.servicies.TaskEventStreamService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/tasks/events")
+@Tag(name = "События задач", description = "Поток изменений задач и комментариев")
+public class TaskEventController {
+
+    private final TaskEventStreamService taskEventStreamService;
+
+    public TaskEventController(TaskEventStreamService taskEventStreamService) {
+        this.taskEventStreamService = taskEventStreamService;
+    }
+
+    /** * Подписка на изменения задач текущего пользователя. *
+     * @param lastEventId ID последнего полученного события для возобновления потока.
+     * @return Поток Server-Sent Events. */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Поток изменений задач",
+            description = "Отправляет события task-change для задач, автором или исполнителем которых является " +
+                    "пользователь. При переподключении передайте заголовок Last-Event-ID. Событие reset означает, " +
+                    "что часть событий потеряна и данные нужно загрузить заново.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Поток событий открыт"),
+                    @ApiResponse(responseCode = "503", description = "Превышено количество подключений")
+            })
+    public SseEmitter streamEvents(
+            @Parameter(description = "ID последнего полученного события")
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId
+    ) {
+        return taskEventStreamService.subscribe(lastEventId);
+    }
+}
@@ -0,0 +1,86 @@
+package com.olegandreevich.tms.dto;
+
+import java.util.Objects;
+
+/** * Результат обработки одного элемента массовой операции. */
+public class BulkItemResultDTO {
+    private int index;
+    private Long id;
+    private int status;
+    private String message;
+    /** * Новая версия задачи (ETag) после успешного обновления, в остальных случаях null. */
+    private Long version;
+
+    public BulkItemResultDTO(int index, Long id, int status, String message) {
+        this.index = index;
+        this.id = id;
+        this.status = status;
+        this.message = message;
+    }
+
+    public BulkItemResultDTO(int index, Long id, int status, String message, Long version) {
+        this(index, id, status, message);
+        this.version = version;
+    }
+
+    public BulkItemResultDTO() {
+
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BulkItemResultDTO that = (BulkItemResultDTO) o;
+        return index == that.index &&
+                status == that.status &&
+                Objects.equals(id, that.id) &&
+                Objects.equals(message, that.message) &&
+                Objects.equals(version, that.version);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(index, id, status, message, version);
+    }
+}
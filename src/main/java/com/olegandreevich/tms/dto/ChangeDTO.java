@@ -0,0 +1,94 @@
+package com.olegandreevich.tms.dto;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import com.olegandreevich.tms.events.ChangeType;
+
+import java.time.LocalDateTime;
+
+/** * Запись журнала изменений. Для удалений payload равен null; удаление задачи означает
+ * и удаление всех ее комментариев, отдельные записи для них не пишутся. */
+public class ChangeDTO {
+
+    private Long id;
+
+    /** * Тип сущности: task или comment. */
+    private String entity;
+    private Long entityId;
+    private Long taskId;
+    private ChangeType change;
+    private LocalDateTime changedAt;
+
+    /** * Состояние сущности после изменения в виде JSON. */
+    @JsonRawValue
+    private String payload;
+
+    public ChangeDTO(Long id, String entity, Long entityId, Long taskId, ChangeType change,
+                     LocalDateTime changedAt, String payload) {
+        this.id = id;
+        this.entity = entity;
+        this.entityId = entityId;
+        this.taskId = taskId;
+        this.change = change;
+        this.changedAt = changedAt;
+        this.payload = payload;
+    }
+
+    public ChangeDTO() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getEntity() {
+        return entity;
+    }
+
+    public void setEntity(String entity) {
+        this.entity = entity;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public void setEntityId(Long entityId) {
+        this.entityId = entityId;
+    }
+
+    public Long getTaskId() {
+        return taskId;
+    }
+
+    public void setTaskId(Long taskId) {
+        this.taskId = taskId;
+    }
+
+    public ChangeType getChange() {
+        return change;
+    }
+
+    public void setChange(ChangeType change) {
+        this.change = change;
+    }
+
+    public LocalDateTime getChangedAt() {
+        return changedAt;
+    }
+
+    public void setChangedAt(LocalDateTime changedAt) {
+        this.changedAt = changedAt;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+}
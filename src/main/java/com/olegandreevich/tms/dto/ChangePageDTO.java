@@ -0,0 +1,45 @@
+package com.olegandreevich.tms.dto;
+
+import java.util.List;
+
+/** * Страница журнала изменений. Курсор возвращается всегда, даже для пустой страницы:
+ * клиент сохраняет его и передает в следующий запрос. */
+public class ChangePageDTO {
+    private List<ChangeDTO> items;
+    private String nextCursor;
+    private boolean hasMore;
+
+    public ChangePageDTO(List<ChangeDTO> items, String nextCursor, boolean hasMore) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    public ChangePageDTO() {
+
+    }
+
+    public List<ChangeDTO> getItems() {
+        return items;
+    }
+
+    public void setItems(List<ChangeDTO> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
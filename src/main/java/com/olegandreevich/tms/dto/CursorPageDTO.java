@@ -0,0 +1,34 @@
+package com.olegandreevich.tms.dto;
+
+import java.util.List;
+
+/** * Страница данных с курсором для получения следующей страницы (null, если страница последняя). */
+public class CursorPageDTO<T> {
+    private List<T> items;
+    private String nextCursor;
+
+    public CursorPageDTO(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public CursorPageDTO() {
+
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
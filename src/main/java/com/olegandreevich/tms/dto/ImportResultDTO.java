@@ -0,0 +1,113 @@
+package com.olegandreevich.tms.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/** * Состояние или результат загрузки данных. Номер строки в отклоненных записях (index) считается
+ * с единицы без учета заголовка CSV. */
+public class ImportResultDTO {
+    private String importId;
+
+    /** * Тип загружаемых данных: task или comment. */
+    private String entity;
+
+    /** * Этап: copy - чтение и копирование во временную таблицу, merge - перенос в основные таблицы, done. */
+    private String stage;
+    private LocalDateTime startedAt;
+    private long rowsRead;
+    private long rowsImported;
+    private long rowsRejected;
+    private double rowsPerSecond;
+
+    /** * Первые отклоненные строки с причиной (не более ImportService.MAX_REPORTED_ERRORS). */
+    private List<BulkItemResultDTO> rejected;
+
+    public ImportResultDTO(String importId, String entity, String stage, LocalDateTime startedAt, long rowsRead,
+                           long rowsImported, long rowsRejected, double rowsPerSecond,
+                           List<BulkItemResultDTO> rejected) {
+        this.importId = importId;
+        this.entity = entity;
+        this.stage = stage;
+        this.startedAt = startedAt;
+        this.rowsRead = rowsRead;
+        this.rowsImported = rowsImported;
+        this.rowsRejected = rowsRejected;
+        this.rowsPerSecond = rowsPerSecond;
+        this.rejected = rejected;
+    }
+
+    public ImportResultDTO() {
+    }
+
+    public String getImportId() {
+        return importId;
+    }
+
+    public void setImportId(String importId) {
+        this.importId = importId;
+    }
+
+    public String getEntity() {
+        return entity;
+    }
+
+    public void setEntity(String entity) {
+        this.entity = entity;
+    }
+
+    public String getStage() {
+        return stage;
+    }
+
+    public void setStage(String stage) {
+        this.stage = stage;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public void setRowsRead(long rowsRead) {
+        this.rowsRead = rowsRead;
+    }
+
+    public long getRowsImported() {
+        return rowsImported;
+    }
+
+    public void setRowsImported(long rowsImported) {
+        this.rowsImported = rowsImported;
+    }
+
+    public long getRowsRejected() {
+        return rowsRejected;
+    }
+
+    public void setRowsRejected(long rowsRejected) {
+        this.rowsRejected = rowsRejected;
+    }
+
+    public double getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    public void setRowsPerSecond(double rowsPerSecond) {
+        this.rowsPerSecond = rowsPerSecond;
+    }
+
+    public List<BulkItemResultDTO> getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(List<BulkItemResultDTO> rejected) {
+        this.rejected = rejected;
+    }
+}
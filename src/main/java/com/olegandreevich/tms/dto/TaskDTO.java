@@ -1,17 +1,24 @@
 package com.olegandreevich.tms.dto;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.olegandreevich.tms.entities.enums.Priority;
 import com.olegandreevich.tms.entities.enums.Status;
 
 import java.util.Objects;
 
 public class TaskDTO {
+    /** * Идентификатор задачи. Игнорируется во входных данных. */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long id;
     private String title;
     private String description;
     private Status status;
     private Priority priority;
     private Long authorId;
     private Long assigneeId;
+    /** * Версия задачи, совпадает с ETag задачи. Игнорируется во входных данных. */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
 
     public TaskDTO(String title, String description, Status status, Priority priority, Long authorId, Long assigneeId) {
         this.title = title;
@@ -22,10 +29,30 @@ public class TaskDTO {
         this.assigneeId = assigneeId;
     }
 
+    public TaskDTO(String title, String description, Status status, Priority priority, Long authorId, Long assigneeId,
+                   Long version) {
+        this(title, description, status, priority, authorId, assigneeId);
+        this.version = version;
+    }
+
+    public TaskDTO(Long id, String title, String description, Status status, Priority priority, Long authorId,
+                   Long assigneeId, Long version) {
+        this(title, description, status, priority, authorId, assigneeId, version);
+        this.id = id;
+    }
+
     public TaskDTO() {
 
     }
 
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
     public String getTitle() {
         return title;
     }
@@ -74,6 +101,14 @@ public class TaskDTO {
         this.assigneeId = assigneeId;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
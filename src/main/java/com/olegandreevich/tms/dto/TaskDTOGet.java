@@ -13,6 +13,8 @@ public class TaskDTOGet {
     private Priority priority;
     private Long authorId;
     private Long assigneeId;
+    /** * Версия задачи, совпадает с ETag задачи. При массовом обновлении - версия, которую видел клиент. */
+    private Long version;
 
     public TaskDTOGet(Long id, String title, String description, Status status, Priority priority, Long authorId, Long assigneeId) {
         this.id = id;
@@ -24,6 +26,12 @@ public class TaskDTOGet {
         this.assigneeId = assigneeId;
     }
 
+    public TaskDTOGet(Long id, String title, String description, Status status, Priority priority, Long authorId,
+                      Long assigneeId, Long version) {
+        this(id, title, description, status, priority, authorId, assigneeId);
+        this.version = version;
+    }
+
     public TaskDTOGet() {
 
     }
@@ -84,6 +92,14 @@ public class TaskDTOGet {
         this.assigneeId = assigneeId;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
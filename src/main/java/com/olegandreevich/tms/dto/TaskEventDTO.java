@@ -0,0 +1,72 @@
+package com.olegandreevich.tms.dto;
+
+import com.olegandreevich.tms.events.ChangeType;
+
+import java.util.Objects;
+
+/** * Событие потока изменений задач, отправляемое клиенту. Содержит только ссылки на измененные данные,
+ * сами данные клиент запрашивает обычными эндпоинтами. */
+public class TaskEventDTO {
+
+    /** * Тип сущности: task или comment. */
+    private String entity;
+    private ChangeType change;
+    private Long taskId;
+    private Long commentId;
+
+    public TaskEventDTO(String entity, ChangeType change, Long taskId, Long commentId) {
+        this.entity = entity;
+        this.change = change;
+        this.taskId = taskId;
+        this.commentId = commentId;
+    }
+
+    public TaskEventDTO() {
+    }
+
+    public String getEntity() {
+        return entity;
+    }
+
+    public void setEntity(String entity) {
+        this.entity = entity;
+    }
+
+    public ChangeType getChange() {
+        return change;
+    }
+
+    public void setChange(ChangeType change) {
+        this.change = change;
+    }
+
+    public Long getTaskId() {
+        return taskId;
+    }
+
+    public void setTaskId(Long taskId) {
+        this.taskId = taskId;
+    }
+
+    public Long getCommentId() {
+        return commentId;
+    }
+
+    public void setCommentId(Long commentId) {
+        this.commentId = commentId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TaskEventDTO that = (TaskEventDTO) o;
+        return Objects.equals(entity, that.entity) && change == that.change
+                && Objects.equals(taskId, that.taskId) && Objects.equals(commentId, that.commentId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(entity, change, taskId, commentId);
+    }
+}
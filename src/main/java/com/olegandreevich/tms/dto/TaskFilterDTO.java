@@ -0,0 +1,87 @@
+package com.olegandreevich.tms.dto;
+
+import com.olegandreevich.tms.entities.enums.Priority;
+import com.olegandreevich.tms.entities.enums.Status;
+
+import java.time.LocalDateTime;
+
+/** * Условия поиска задач. Незаполненные поля не участвуют в фильтрации. */
+public class TaskFilterDTO {
+    private Status status;
+    private Priority priority;
+    private Long authorId;
+    private Long assigneeId;
+    private LocalDateTime createdFrom;
+    private LocalDateTime createdTo;
+    private boolean includeArchived;
+
+    public TaskFilterDTO(Status status, Priority priority, Long authorId, Long assigneeId,
+                         LocalDateTime createdFrom, LocalDateTime createdTo) {
+        this.status = status;
+        this.priority = priority;
+        this.authorId = authorId;
+        this.assigneeId = assigneeId;
+        this.createdFrom = createdFrom;
+        this.createdTo = createdTo;
+    }
+
+    public TaskFilterDTO() {
+
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Priority getPriority() {
+        return priority;
+    }
+
+    public void setPriority(Priority priority) {
+        this.priority = priority;
+    }
+
+    public Long getAuthorId() {
+        return authorId;
+    }
+
+    public void setAuthorId(Long authorId) {
+        this.authorId = authorId;
+    }
+
+    public Long getAssigneeId() {
+        return assigneeId;
+    }
+
+    public void setAssigneeId(Long assigneeId) {
+        this.assigneeId = assigneeId;
+    }
+
+    public LocalDateTime getCreatedFrom() {
+        return createdFrom;
+    }
+
+    public void setCreatedFrom(LocalDateTime createdFrom) {
+        this.createdFrom = createdFrom;
+    }
+
+    public LocalDateTime getCreatedTo() {
+        return createdTo;
+    }
+
+    public void setCreatedTo(LocalDateTime createdTo) {
+        this.createdTo = createdTo;
+    }
+
+    public boolean isIncludeArchived() {
+        return includeArchived;
+    }
+
+    public void setIncludeArchived(boolean includeArchived) {
+        this.includeArchived = includeArchived;
+    }
+}
@@ -0,0 +1,125 @@
+package com.olegandreevich.tms.dto;
+
+import com.olegandreevich.tms.entities.enums.Priority;
+import com.olegandreevich.tms.entities.enums.Status;
+
+/** * Результат полнотекстового поиска задачи с выделенными фрагментами текста. */
+public class TaskSearchResultDTO {
+
+    private Long id;
+    private String title;
+    private Status status;
+    private Priority priority;
+    private Long authorId;
+    private Long assigneeId;
+
+    /** * Релевантность задачи запросу: чем больше, тем выше задача в выдаче. */
+    private Double rank;
+
+    /** * Название, в котором найденные слова выделены тегом mark. Остальной текст экранирован для HTML. */
+    private String titleHighlight;
+
+    /** * Фрагмент описания с выделенными словами. */
+    private String descriptionSnippet;
+
+    /** * Фрагмент самого релевантного найденного комментария или null, если комментарии не совпали. */
+    private String commentSnippet;
+
+    public TaskSearchResultDTO(Long id, String title, Status status, Priority priority, Long authorId,
+                               Long assigneeId, Double rank, String titleHighlight, String descriptionSnippet,
+                               String commentSnippet) {
+        this.id = id;
+        this.title = title;
+        this.status = status;
+        this.priority = priority;
+        this.authorId = authorId;
+        this.assigneeId = assigneeId;
+        this.rank = rank;
+        this.titleHighlight = titleHighlight;
+        this.descriptionSnippet = descriptionSnippet;
+        this.commentSnippet = commentSnippet;
+    }
+
+    public TaskSearchResultDTO() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Priority getPriority() {
+        return priority;
+    }
+
+    public void setPriority(Priority priority) {
+        this.priority = priority;
+    }
+
+    public Long getAuthorId() {
+        return authorId;
+    }
+
+    public void setAuthorId(Long authorId) {
+        this.authorId = authorId;
+    }
+
+    public Long getAssigneeId() {
+        return assigneeId;
+    }
+
+    public void setAssigneeId(Long assigneeId) {
+        this.assigneeId = assigneeId;
+    }
+
+    public Double getRank() {
+        return rank;
+    }
+
+    public void setRank(Double rank) {
+        this.rank = rank;
+    }
+
+    public String getTitleHighlight() {
+        return titleHighlight;
+    }
+
+    public void setTitleHighlight(String titleHighlight) {
+        this.titleHighlight = titleHighlight;
+    }
+
+    public String getDescriptionSnippet() {
+        return descriptionSnippet;
+    }
+
+    public void setDescriptionSnippet(String descriptionSnippet) {
+        this.descriptionSnippet = descriptionSnippet;
+    }
+
+    public String getCommentSnippet() {
+        return commentSnippet;
+    }
+
+    public void setCommentSnippet(String commentSnippet) {
+        this.commentSnippet = commentSnippet;
+    }
+}
@@ -7,6 +7,9 @@ import com.olegandreevich.tms.entities.enums.Status;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -14,7 +17,8 @@ import java.util.List;
 @Table(name = "tasks")
 public class Task {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tasks_id_seq")
+    @SequenceGenerator(name = "tasks_id_seq", sequenceName = "tasks_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -47,6 +51,19 @@ public class Task {
     @OneToMany(mappedBy = "task", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Comment> comments = new ArrayList<>();
 
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    /** * Версия для оптимистической блокировки, отдается клиентам как ETag задачи. */
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
+    /** * Признак переноса в архивную секцию. Изменяется только через {@code TaskArchiveService}. */
+    @Column(insertable = false, updatable = false)
+    private boolean archived;
+
     public Task(Long taskId) {
         this.id = taskId;
     }
@@ -129,6 +146,20 @@ public class Task {
     public void setComments(List<Comment> comments) {
         this.comments = comments;
     }
-}
 
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
 
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public boolean isArchived() {
+        return archived;
+    }
+}
@@ -5,13 +5,25 @@ import com.fasterxml.jackson.annotation.JsonManagedReference;
 import com.olegandreevich.tms.entities.enums.Role;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Pattern;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.Set;
 
+/** * Пользователи читаются почти на каждый запрос и меняются редко, поэтому хранятся в кэше второго уровня
+ * Hibernate (регион {@link #CACHE_REGION}). Сброс на других узлах выполняет UserEntityCache. */
 @Entity
 @Table(name = "users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = User.CACHE_REGION)
 public class User {
 
+    /** * Регион кэша второго уровня для сущностей пользователей. */
+    public static final String CACHE_REGION = "users";
+
+    /** * Регион кэша запросов, находящих пользователя по email или имени. */
+    public static final String QUERY_CACHE_REGION = "users.queries";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -0,0 +1,8 @@
+package com.olegandreevich.tms.events;
+
+/** * Тип изменения сущности. */
+public enum ChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
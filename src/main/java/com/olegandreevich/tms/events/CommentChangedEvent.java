@@ -0,0 +1,8 @@
+package com.olegandreevich.tms.events;
+
+/** * Событие изменения комментария. Публикуется сервисами и обрабатывается после коммита транзакции. *
+ * @param commentId ID комментария.
+ * @param taskId ID задачи, к которой относится комментарий.
+ * @param type Тип изменения. */
+public record CommentChangedEvent(Long commentId, Long taskId, ChangeType type) {
+}
@@ -0,0 +1,9 @@
+package com.olegandreevich.tms.events;
+
+/** * Событие изменения задачи. Публикуется сервисами и обрабатывается после коммита транзакции. *
+ * @param taskId ID задачи.
+ * @param authorId ID автора задачи.
+ * @param assigneeId ID исполнителя задачи.
+ * @param type Тип изменения. */
+public record TaskChangedEvent(Long taskId, Long authorId, Long assigneeId, ChangeType type) {
+}
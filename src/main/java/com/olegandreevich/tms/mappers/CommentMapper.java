@@ -2,24 +2,19 @@ package com.olegandreevich.tms.mappers;
 
 import com.olegandreevich.tms.dto.CommentDTO;
 import com.olegandreevich.tms.entities.Comment;
-import org.modelmapper.ModelMapper;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 @Component
 public class CommentMapper {
 
-    @Autowired
-    private ModelMapper modelMapper;
-
+    /** * Преобразование CommentDTO в Comment. Задача и пользователь устанавливаются сервисом. */
     public Comment toEntity(CommentDTO commentDTO) {
-        return modelMapper.map(commentDTO, Comment.class);
+        Comment comment = new Comment();
+        comment.setContent(commentDTO.getContent());
+        return comment;
     }
 
     public CommentDTO toDto(Comment comment) {
-        CommentDTO commentDTO = modelMapper.map(comment, CommentDTO.class);
-
-
-        return commentDTO;
+        return new CommentDTO(comment.getContent());
     }
 }
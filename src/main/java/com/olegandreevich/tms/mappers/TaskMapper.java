@@ -2,22 +2,29 @@ package com.olegandreevich.tms.mappers;
 
 import com.olegandreevich.tms.dto.TaskDTO;
 import com.olegandreevich.tms.entities.Task;
-import org.modelmapper.ModelMapper;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 @Component
 public class TaskMapper {
 
-    @Autowired
-    private ModelMapper modelMapper;
-
+    /** * Преобразование TaskDTO в Task. Автор и исполнитель устанавливаются сервисом. */
     public Task toEntity(TaskDTO taskDTO) {
-        return modelMapper.map(taskDTO, Task.class);
+        Task task = new Task();
+        task.setTitle(taskDTO.getTitle());
+        task.setDescription(taskDTO.getDescription());
+        task.setStatus(taskDTO.getStatus());
+        task.setPriority(taskDTO.getPriority());
+        return task;
     }
 
     public TaskDTO toDto(Task task) {
-        TaskDTO taskDTO = modelMapper.map(task, TaskDTO.class);
+        TaskDTO taskDTO = new TaskDTO();
+        taskDTO.setId(task.getId());
+        taskDTO.setTitle(task.getTitle());
+        taskDTO.setDescription(task.getDescription());
+        taskDTO.setStatus(task.getStatus());
+        taskDTO.setPriority(task.getPriority());
+        taskDTO.setVersion(task.getVersion());
 
         if (task.getAuthor() != null) {
             taskDTO.setAuthorId(task.getAuthor().getId());
@@ -2,22 +2,30 @@ package com.olegandreevich.tms.mappers;
 
 import com.olegandreevich.tms.dto.TaskDTOGet;
 import com.olegandreevich.tms.entities.Task;
-import org.modelmapper.ModelMapper;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 @Component
 public class TaskMapperGet {
 
-    @Autowired
-    private ModelMapper modelMapper;
-
+    /** * Преобразование TaskDTOGet в Task. Автор и исполнитель устанавливаются сервисом. */
     public Task toEntity(TaskDTOGet taskDTOGet) {
-        return modelMapper.map(taskDTOGet, Task.class);
+        Task task = new Task();
+        task.setId(taskDTOGet.getId());
+        task.setTitle(taskDTOGet.getTitle());
+        task.setDescription(taskDTOGet.getDescription());
+        task.setStatus(taskDTOGet.getStatus());
+        task.setPriority(taskDTOGet.getPriority());
+        return task;
     }
 
     public TaskDTOGet toDto(Task task) {
-        TaskDTOGet taskDTOGet = modelMapper.map(task, TaskDTOGet.class);
+        TaskDTOGet taskDTOGet = new TaskDTOGet();
+        taskDTOGet.setId(task.getId());
+        taskDTOGet.setTitle(task.getTitle());
+        taskDTOGet.setDescription(task.getDescription());
+        taskDTOGet.setStatus(task.getStatus());
+        taskDTOGet.setPriority(task.getPriority());
+        taskDTOGet.setVersion(task.getVersion());
 
         if (task.getAuthor() != null) {
             taskDTOGet.setAuthorId(task.getAuthor().getId());
@@ -3,20 +3,15 @@ package com.olegandreevich.tms.mappers;
 import com.olegandreevich.tms.dto.CommentDTO;
 import com.olegandreevich.tms.dto.TaskWithCommentsDTO;
 import com.olegandreevich.tms.entities.Task;
-import com.olegandreevich.tms.servicies.CommentService;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.util.stream.Collectors;
+import java.util.List;
 
 @Component
 public class TaskWithCommentsMapper {
 
-    @Autowired
-    private CommentService commentService;
-
-    /** * Преобразование Task в TaskWithCommentsDTO. */
-    public TaskWithCommentsDTO toDtoWithComments(Task task) {
+    /** * Преобразование Task в TaskWithCommentsDTO с заранее загруженными комментариями. */
+    public TaskWithCommentsDTO toDtoWithComments(Task task, List<CommentDTO> comments) {
         TaskWithCommentsDTO taskWithCommentsDTO = new TaskWithCommentsDTO();
 
         taskWithCommentsDTO.setId(task.getId());
@@ -26,10 +21,7 @@ public class TaskWithCommentsMapper {
         taskWithCommentsDTO.setPriority(task.getPriority());
         taskWithCommentsDTO.setAuthorId(task.getAuthor().getId()); // Добавляем авторский ID
         taskWithCommentsDTO.setAssigneeId(task.getAssignee().getId()); // Добавляем ID назначенного
-
-        taskWithCommentsDTO.setComments(commentService.getCommentsForTask(task.getId()).stream()
-                .map(comment -> new CommentDTO(comment.getContent()))
-                .collect(Collectors.toList())); // Получаем комментарии через сервис
+        taskWithCommentsDTO.setComments(comments);
 
         return taskWithCommentsDTO;
     }
@@ -1,9 +1,40 @@
 package com.olegandreevich.tms.repositories;
 
 import com.olegandreevich.tms.entities.Comment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface CommentRepository extends JpaRepository<Comment, Long> {
+
+    /** * Первая страница комментариев задачи в порядке (created_at, id). */
+    @Query("SELECT c FROM Comment c WHERE c.task.id = :taskId ORDER BY c.createdAt, c.id")
+    List<Comment> findPageByTaskId(@Param("taskId") Long taskId, Pageable pageable);
+
+    /** * Следующая страница комментариев задачи после позиции курсора (created_at, id).
+     * Первое условие задает нижнюю границу диапазона по индексу comments(task_id, created_at, id). */
+    @Query("SELECT c FROM Comment c WHERE c.task.id = :taskId AND c.createdAt >= :createdAt " +
+            "AND (c.createdAt > :createdAt OR c.id > :id) ORDER BY c.createdAt, c.id")
+    List<Comment> findPageByTaskIdAfter(@Param("taskId") Long taskId,
+                                        @Param("createdAt") LocalDateTime createdAt,
+                                        @Param("id") Long id,
+                                        Pageable pageable);
+
+    /** * Комментарии сразу для нескольких задач одним запросом. Каждый ID - отдельный параметр запроса,
+     * поэтому большие списки вызывающий код разбивает на части (см. CommentService.getCommentsForTasks). */
+    @Query("SELECT c FROM Comment c WHERE c.task.id IN :taskIds ORDER BY c.createdAt, c.id")
+    List<Comment> findByTaskIds(@Param("taskIds") Collection<Long> taskIds);
+
+    /** * Удаляет комментарии сразу нескольких задач одним запросом. */
+    @Modifying
+    @Query("DELETE FROM Comment c WHERE c.task.id IN :taskIds")
+    void deleteByTaskIds(@Param("taskIds") Collection<Long> taskIds);
 }
@@ -1,18 +1,55 @@
 package com.olegandreevich.tms.repositories;
 
+import com.olegandreevich.tms.dto.TaskDTO;
+import com.olegandreevich.tms.dto.TaskDTOGet;
 import com.olegandreevich.tms.entities.Task;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
+/** * Связи задачи (author, assignee, comments) ленивые. Методы, возвращающие сущности, не загружают связи:
+ * мапперы используют только ID автора и исполнителя из внешних ключей, а комментарии загружаются отдельным
+ * запросом сразу для всех задач. Если связь нужна, метод объявляет ее явно через {@link EntityGraph}. */
 @Repository
-public interface TaskRepository extends JpaRepository<Task, Long> {
+public interface TaskRepository extends JpaRepository<Task, Long>, JpaSpecificationExecutor<Task> {
 
-    List<Task> findByAuthor_Id(Long authorId);
+    /** * Задача вместе с комментариями одним запросом: при удалении каскад обходит все комментарии задачи. */
+    @EntityGraph(attributePaths = "comments")
+    Optional<Task> findWithCommentsById(Long id);
 
-    List<Task> findByAssignee_Id(Long assigneeId);
+    List<Task> findByAuthor_IdAndArchivedFalse(Long authorId);
+
+    List<Task> findByAssignee_IdAndArchivedFalse(Long assigneeId);
+
+    /** * Задачи автора в виде DTO, построенных прямо из результата SQL без загрузки сущностей.
+     * Списки автора и исполнителя содержат только задачи горячей секции, архив доступен через поиск. */
+    @Query("SELECT new com.olegandreevich.tms.dto.TaskDTO(t.id, t.title, t.description, t.status, t.priority, " +
+            "t.author.id, t.assignee.id, t.version) FROM Task t " +
+            "WHERE t.author.id = :authorId AND t.archived = false ORDER BY t.id")
+    List<TaskDTO> findDtosByAuthorId(@Param("authorId") Long authorId);
+
+    /** * Задачи исполнителя в виде DTO, построенных прямо из результата SQL без загрузки сущностей. */
+    @Query("SELECT new com.olegandreevich.tms.dto.TaskDTO(t.id, t.title, t.description, t.status, t.priority, " +
+            "t.author.id, t.assignee.id, t.version) FROM Task t " +
+            "WHERE t.assignee.id = :assigneeId AND t.archived = false ORDER BY t.id")
+    List<TaskDTO> findDtosByAssigneeId(@Param("assigneeId") Long assigneeId);
+
+    /** * Страница задач горячей секции в виде DTO без загрузки сущностей и без запроса count(*). */
+    @Query("SELECT new com.olegandreevich.tms.dto.TaskDTOGet(t.id, t.title, t.description, t.status, t.priority, " +
+            "t.author.id, t.assignee.id, t.version) FROM Task t WHERE t.archived = false")
+    Slice<TaskDTOGet> findHotDtosBy(Pageable pageable);
+
+    /** * Страница задач в виде DTO без загрузки сущностей и без запроса count(*), включая архив. */
+    @Query("SELECT new com.olegandreevich.tms.dto.TaskDTOGet(t.id, t.title, t.description, t.status, t.priority, " +
+            "t.author.id, t.assignee.id, t.version) FROM Task t")
+    Slice<TaskDTOGet> findAllDtosBy(Pageable pageable);
 
 }
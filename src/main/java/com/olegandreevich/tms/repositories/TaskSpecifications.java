@@ -0,0 +1,85 @@
+package com.olegandreevich.tms.repositories;
+
+import com.olegandreevich.tms.dto.TaskFilterDTO;
+import com.olegandreevich.tms.entities.Task;
+import com.olegandreevich.tms.entities.enums.Priority;
+import com.olegandreevich.tms.entities.enums.Status;
+import jakarta.persistence.criteria.Path;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+
+/** * Спецификации для построения запросов к задачам. */
+public final class TaskSpecifications {
+
+    private TaskSpecifications() {
+    }
+
+    /** * Спецификация по условиям поиска. Незаполненные условия не добавляются в запрос,
+     * архивные задачи исключаются, если не запрошены явно. */
+    public static Specification<Task> matches(TaskFilterDTO filter) {
+        return Specification.where(filter.isIncludeArchived() ? null : notArchived())
+                .and(hasStatus(filter.getStatus()))
+                .and(hasPriority(filter.getPriority()))
+                .and(hasAuthor(filter.getAuthorId()))
+                .and(hasAssignee(filter.getAssigneeId()))
+                .and(createdFrom(filter.getCreatedFrom()))
+                .and(createdBefore(filter.getCreatedTo()));
+    }
+
+    /** * Задачи горячей секции: запрос не обращается к секциям архива. */
+    public static Specification<Task> notArchived() {
+        return (root, query, cb) -> cb.isFalse(root.get("archived"));
+    }
+
+    public static Specification<Task> hasStatus(Status status) {
+        return status == null ? null : (root, query, cb) -> cb.equal(root.get("status"), status);
+    }
+
+    public static Specification<Task> hasPriority(Priority priority) {
+        return priority == null ? null : (root, query, cb) -> cb.equal(root.get("priority"), priority);
+    }
+
+    public static Specification<Task> hasAuthor(Long authorId) {
+        return authorId == null ? null : (root, query, cb) -> cb.equal(root.get("author").get("id"), authorId);
+    }
+
+    public static Specification<Task> hasAssignee(Long assigneeId) {
+        return assigneeId == null ? null : (root, query, cb) -> cb.equal(root.get("assignee").get("id"), assigneeId);
+    }
+
+    /** * Задачи, созданные не раньше указанного момента (включительно). */
+    public static Specification<Task> createdFrom(LocalDateTime from) {
+        return from == null ? null : (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("createdAt"), from);
+    }
+
+    /** * Задачи, созданные раньше указанного момента (не включительно). */
+    public static Specification<Task> createdBefore(LocalDateTime to) {
+        return to == null ? null : (root, query, cb) -> cb.lessThan(root.get("createdAt"), to);
+    }
+
+    /** * Задачи, расположенные после позиции курсора (value, id) при сортировке по (sortField, id). *
+     * @param sortField Поле сортировки.
+     * @param direction Направление сортировки (одинаковое для поля и id).
+     * @param value Значение поля сортировки в позиции курсора.
+     * @param id ID задачи в позиции курсора.
+     * @return Спецификация keyset-условия. */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Specification<Task> after(String sortField, Sort.Direction direction, Comparable value, Long id) {
+        return (root, query, cb) -> {
+            Path<Long> idPath = root.get("id");
+            if ("id".equals(sortField)) {
+                return direction.isAscending() ? cb.greaterThan(idPath, id) : cb.lessThan(idPath, id);
+            }
+            Path<Comparable> field = root.get(sortField);
+            // Первое условие задает границу диапазона по составному индексу (sortField, id)
+            if (direction.isAscending()) {
+                return cb.and(cb.greaterThanOrEqualTo(field, value),
+                        cb.or(cb.greaterThan(field, value), cb.greaterThan(idPath, id)));
+            }
+            return cb.and(cb.lessThanOrEqualTo(field, value),
+                    cb.or(cb.lessThan(field, value), cb.lessThan(idPath, id)));
+        };
+    }
+}
@@ -1,23 +1,47 @@
 package com.olegandreevich.tms.repositories;
 
 import com.olegandreevich.tms.entities.User;
+import jakarta.persistence.QueryHint;
 import jakarta.transaction.Transactional;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
 
+    /** * Результат кэшируется в регионе {@link User#QUERY_CACHE_REGION}: в кэше хранится только ID,
+     * сам пользователь берется из кэша сущностей. */
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = User.QUERY_CACHE_REGION)})
     Optional<User> findByEmail(String email);
 
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = User.QUERY_CACHE_REGION)})
     Optional<User> findByUsername(String username);
 
+    /** * Возвращает ID существующих пользователей из переданного набора. */
+    @Query("SELECT u.id FROM User u WHERE u.id IN :ids")
+    Set<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    /** * Массовое обновление минует события сущности: Hibernate сбрасывает регион пользователей только
+     * на этом узле, поэтому вызывающий код должен вызвать UserEntityCache.evict для остальных узлов. */
     @Modifying
     @Transactional
     @Query("UPDATE User u SET u.password = ?1 WHERE u.username = ?2")
     void updatePassword(String password, String username);
+
+    /** * Как и {@link #updatePassword}, требует вызова UserEntityCache.evict. */
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.password = ?1 WHERE u.email = ?2")
+    void updatePasswordByEmail(String password, String email);
 }
@@ -69,7 +69,7 @@ public class CustomAuthenticationSuccessHandler implements AuthenticationSuccess
                 .collect(Collectors.toList());
 
         // Генерация JWT-токена
-        String jwt = tokenProvider.generateToken(username, roles.get(0));
+        String jwt = tokenProvider.generateToken(userDetailsTMS.getUserId(), username, roles.get(0));
 
         // Создание куки с токеном
         Cookie cookie = new Cookie("accessToken", jwt);
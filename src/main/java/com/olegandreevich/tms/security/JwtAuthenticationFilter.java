@@ -1,33 +1,69 @@
 package com.olegandreevich.tms.security;
 
-import com.olegandreevich.tms.entities.enums.Role;
 import com.olegandreevich.tms.servicies.UserDetailsServiceTMS;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
+
 import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 
-/** * Фильтр для проверки и обработки JWT-токена в каждом запросе. */
+/** * Единый фильтр аутентификации по JWT-токену. Токен берется из заголовка Authorization, а если его нет —
+ * из куки accessToken. Токен проверяется один раз за запрос, а если контекст безопасности уже заполнен,
+ * фильтр ничего не делает. Время каждого этапа пишется в метрику tms.auth.stage. */
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    /** * Имя куки с JWT-токеном. */
+    static final String ACCESS_TOKEN_COOKIE = "accessToken";
+
+    /** * Имя метрики времени этапов аутентификации. */
+    static final String STAGE_METRIC = "tms.auth.stage";
+
     /** * Сервис для получения деталей пользователя. */
-    @Autowired
-    private UserDetailsServiceTMS userDetailsServiceTMS;
+    private final UserDetailsServiceTMS userDetailsServiceTMS;
 
     /** * Провайдер для работы с JWT-токенами. */
+    private final JwtTokenProvider tokenProvider;
+
+    private final Timer resolveTimer;
+    private final Timer verifyTimer;
+    private final Timer loadUserTimer;
+    private final Timer totalTimer;
+
     @Autowired
-    private JwtTokenProvider tokenProvider;
+    public JwtAuthenticationFilter(UserDetailsServiceTMS userDetailsServiceTMS, JwtTokenProvider tokenProvider,
+                                   MeterRegistry meterRegistry) {
+        this.userDetailsServiceTMS = userDetailsServiceTMS;
+        this.tokenProvider = tokenProvider;
+        this.resolveTimer = stageTimer(meterRegistry, "resolve");
+        this.verifyTimer = stageTimer(meterRegistry, "verify");
+        this.loadUserTimer = stageTimer(meterRegistry, "load_user");
+        this.totalTimer = stageTimer(meterRegistry, "total");
+    }
+
+    private static Timer stageTimer(MeterRegistry meterRegistry, String stage) {
+        return Timer.builder(STAGE_METRIC)
+                .description("Время этапов JWT-аутентификации")
+                .tag("stage", stage)
+                .register(meterRegistry);
+    }
 
     /** * Основной метод фильтрации запроса. *
      * @param request HTTP-запрос.
@@ -39,34 +75,35 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
 
-        // Получение JWT-токена из заголовка Authorization
-        String jwt = resolveToken(request);
-
-        // Проверяем валидность токена
-        if (jwt != null && tokenProvider.isTokenValid(jwt)) {
-            // Аутентификация пользователя
-            authenticate(request, jwt);
+        // Если пользователь уже аутентифицирован, повторно токен не проверяем
+        if (!isAuthenticated()) {
+            totalTimer.record(() -> authenticate(request));
         }
 
         // Продолжаем выполнение остальных фильтров
         filterChain.doFilter(request, response);
     }
 
-    /** * Метод для аутентификации пользователя на основе JWT-токена. *
-     * @param request HTTP-запрос.
-     * @param jwt JWT-токен. */
-    private void authenticate(HttpServletRequest request, String jwt) {
-        // Извлечение имени пользователя из токена
-        String username = tokenProvider.getUsernameFromJWT(jwt);
-
-        // Извлечение роли из токена
-        Role role = tokenProvider.getRoleFromJWT(jwt);
+    /** * Находит токен, проверяет его и заполняет контекст безопасности. *
+     * @param request HTTP-запрос. */
+    private void authenticate(HttpServletRequest request) {
+        // Bearer-токен имеет приоритет над куки
+        String bearer = resolveTimer.record(() -> resolveToken(request));
+        String cookie = bearer == null ? resolveTimer.record(() -> extractJwtFromCookie(request)) : null;
+        String jwt = bearer != null ? bearer : cookie;
+        if (jwt == null) {
+            return;
+        }
 
-        // Создание списка полномочий
-        List<SimpleGrantedAuthority> authorities = Collections.singletonList(new SimpleGrantedAuthority(role.name()));
+        Optional<JwtPrincipal> principal = verifyTimer.record(() -> tokenProvider.verify(jwt));
+        if (principal.isEmpty()) {
+            return;
+        }
 
-        // Создание объекта UserDetails
-        UserDetailsTMS userDetails = new UserDetailsTMS(username, "", authorities);
+        UserDetails userDetails = bearer != null
+                ? fromClaims(principal.get())
+                // Для браузерной сессии роль берется из БД (через кэш), чтобы изменения ролей применялись сразу
+                : loadUserTimer.record(() -> userDetailsServiceTMS.loadUserByUsername(principal.get().subject()));
 
         // Создание объекта аутентификации
         UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
@@ -79,6 +116,21 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         SecurityContextHolder.getContext().setAuthentication(authentication);
     }
 
+    /** * Создает детали пользователя из данных проверенного токена без обращения к БД. *
+     * @param principal Данные проверенного токена.
+     * @return Детали пользователя. */
+    private UserDetailsTMS fromClaims(JwtPrincipal principal) {
+        List<SimpleGrantedAuthority> authorities =
+                Collections.singletonList(new SimpleGrantedAuthority(principal.role().name()));
+        return new UserDetailsTMS(principal.userId(), principal.subject(), "", authorities);
+    }
+
+    /** * Проверяет, заполнен ли контекст безопасности не анонимным пользователем. */
+    private boolean isAuthenticated() {
+        Authentication existing = SecurityContextHolder.getContext().getAuthentication();
+        return existing != null && existing.isAuthenticated() && !(existing instanceof AnonymousAuthenticationToken);
+    }
+
     /** * Метод для извлечения JWT-токена из заголовка Authorization. *
      * @param req HTTP-запрос.
      * @return JWT-токен или null, если токен не найден. */
@@ -89,4 +141,19 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         return null;
     }
-}
\ No newline at end of file
+
+    /** * Метод для извлечения JWT-токена из куки. *
+     * @param request HTTP-запрос.
+     * @return JWT-токен или null, если токен не найден. */
+    private String extractJwtFromCookie(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if (ACCESS_TOKEN_COOKIE.equals(cookie.getName())) {
+                    return cookie.getValue();
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,13 @@
+package com.olegandreevich.tms.security;
+
+import com.olegandreevich.tms.entities.enums.Role;
+
+import java.time.Instant;
+
+/** * Данные проверенного JWT-токена. *
+ * @param userId ID пользователя или null для токенов, выпущенных без этого claim.
+ * @param subject Имя пользователя (email).
+ * @param role Роль пользователя.
+ * @param expiresAt Момент истечения срока действия токена. */
+public record JwtPrincipal(Long userId, String subject, Role role, Instant expiresAt) {
+}
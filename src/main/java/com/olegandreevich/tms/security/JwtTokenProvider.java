@@ -1,12 +1,26 @@
 package com.olegandreevich.tms.security;
 
 import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.olegandreevich.tms.entities.enums.Role;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
+import java.util.HexFormat;
+import java.util.Optional;
 
 /** * Компонент для генерации и валидации JWT-токенов. */
 @Component
@@ -20,19 +34,63 @@ public class JwtTokenProvider {
     @Value("${app.jwtExpirationInMs}")
     private long jwtExpirationInMs;
 
+    /** * Максимальное количество проверенных токенов в кэше. */
+    @Value("${app.jwtCacheMaxSize:10000}")
+    private long jwtCacheMaxSize;
+
+    /** * Алгоритм подписи, создается один раз. */
+    private Algorithm algorithm;
+
+    /** * Потокобезопасный верификатор, общий для всех запросов. */
+    private JWTVerifier verifier;
+
+    /** * Кэш проверенных токенов по хэшу токена. Запись живет не дольше срока действия токена. */
+    private Cache<String, JwtPrincipal> verifiedTokens;
+
+    /** * Инициализирует алгоритм, верификатор и кэш проверенных токенов. */
+    @PostConstruct
+    public void init() {
+        algorithm = Algorithm.HMAC512(jwtSecret);
+        verifier = JWT.require(algorithm)
+                .withIssuer("tms")
+                .build();
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(jwtCacheMaxSize)
+                .expireAfter(new Expiry<String, JwtPrincipal>() {
+                    @Override
+                    public long expireAfterCreate(String key, JwtPrincipal value, long currentTime) {
+                        return Math.max(0, Duration.between(Instant.now(), value.expiresAt()).toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, JwtPrincipal value, long currentTime,
+                                                  long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, JwtPrincipal value, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
     /** * Генерирует JWT-токен для указанного пользователя и роли. *
+     * @param userId ID пользователя.
      * @param username Имя пользователя.
      * @param role Роль пользователя.
      * @return Сгенерированный JWT-токен.
      * @throws IllegalStateException Если произошла ошибка при создании токена. */
-    public String generateToken(String username, Role role) {
+    public String generateToken(Long userId, String username, Role role) {
         try {
-            Algorithm algorithm = Algorithm.HMAC512(jwtSecret);
             return JWT.create()
                     .withIssuer("tms")             // Указывает издателя токена
                     .withSubject(username)         // Указывает субъект (пользователь)
                     .withExpiresAt(new Date(System.currentTimeMillis() + jwtExpirationInMs))
                         // Устанавливает срок действия токена
+                    .withClaim("uid", userId)      // Добавляет ID пользователя в токен
                     .withClaim("role", role.name()) // Добавляет роль в токен
                     .sign(algorithm);              // Подписывает токен
         } catch (IllegalArgumentException e) {
@@ -40,21 +98,40 @@ public class JwtTokenProvider {
         }
     }
 
+    /** * Проверяет JWT-токен один раз и возвращает его данные. Повторная проверка того же токена
+     * берется из кэша, пока не истек срок действия токена. *
+     * @param token JWT-токен.
+     * @return Данные токена или пустой Optional, если токен недействителен или истек. */
+    public Optional<JwtPrincipal> verify(String token) {
+        String key = hash(token);
+        JwtPrincipal cached = verifiedTokens.getIfPresent(key);
+        if (cached != null && cached.expiresAt().isAfter(Instant.now())) {
+            return Optional.of(cached);
+        }
+        try {
+            DecodedJWT decoded = verifier.verify(token);
+            String role = decoded.getClaim("role").asString();
+            Instant expiresAt = decoded.getExpiresAtAsInstant();
+            if (decoded.getSubject() == null || role == null || expiresAt == null) {
+                return Optional.empty();
+            }
+            Long userId = decoded.getClaim("uid").asLong();
+            JwtPrincipal principal = new JwtPrincipal(userId, decoded.getSubject(), Role.valueOf(role), expiresAt);
+            verifiedTokens.put(key, principal);
+            return Optional.of(principal);
+        } catch (IllegalArgumentException | JWTVerificationException e) {
+            return Optional.empty();
+        }
+    }
+
     /** * Извлекает имя пользователя из JWT-токена. *
      * @param token JWT-токен.
      * @return Имя пользователя.
      * @throws IllegalStateException Если токен недействителен или истек. */
     public String getUsernameFromJWT(String token) {
-        try {
-            Algorithm algorithm = Algorithm.HMAC512(jwtSecret);
-            return JWT.require(algorithm)
-                    .withIssuer("tms")
-                    .build()
-                    .verify(token)
-                    .getSubject();
-        } catch (IllegalArgumentException e) {
-            throw new IllegalStateException("JWT токен недействителен или истек.", e);
-        }
+        return verify(token)
+                .map(JwtPrincipal::subject)
+                .orElseThrow(() -> new IllegalStateException("JWT токен недействителен или истек."));
     }
 
     /** * Извлекает роль пользователя из JWT-токена. *
@@ -62,32 +139,25 @@ public class JwtTokenProvider {
      * @return Роль пользователя.
      * @throws IllegalStateException Если токен недействителен или истек. */
     public Role getRoleFromJWT(String token) {
-        try {
-            Algorithm algorithm = Algorithm.HMAC512(jwtSecret);
-            String roleString = JWT.require(algorithm)
-                    .withIssuer("tms")
-                    .build()
-                    .verify(token)
-                    .getClaim("role").asString(); // Получает роль из токена
-            return Role.valueOf(roleString);                     // Преобразует строку в перечисление Role
-        } catch (IllegalArgumentException e) {
-            throw new IllegalStateException("JWT токен недействителен или истек.", e);
-        }
+        return verify(token)
+                .map(JwtPrincipal::role)
+                .orElseThrow(() -> new IllegalStateException("JWT токен недействителен или истек."));
     }
 
     /** * Проверяет валидность JWT-токена. *
      * @param token JWT-токен.
      * @return {@code true}, если токен действительный, иначе {@code false}. */
     public boolean isTokenValid(String token) {
+        return verify(token).isPresent();
+    }
+
+    /** * Хэш токена для ключа кэша, чтобы не хранить сами токены в памяти. */
+    private static String hash(String token) {
         try {
-            Algorithm algorithm = Algorithm.HMAC512(jwtSecret);
-            JWT.require(algorithm)
-                    .withIssuer("tms")
-                    .build()
-                    .verify(token);
-            return true;
-        } catch (IllegalArgumentException | JWTVerificationException e) {
-            return false;
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен.", e);
         }
     }
-}
\ No newline at end of file
+}
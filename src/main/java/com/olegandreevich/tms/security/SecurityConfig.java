@@ -1,7 +1,11 @@
 package com.olegandreevich.tms.security;
 
 import com.olegandreevich.tms.servicies.UserDetailsServiceTMS;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -13,13 +17,13 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import java.time.Duration;
 import java.util.Arrays;
 
 
@@ -32,17 +36,11 @@ import java.util.Arrays;
 public class SecurityConfig {
 
     /**
-     * Фильтр для проверки и обработки JWT-токена в каждом запросе.
+     * Фильтр для проверки JWT-токена из заголовка Authorization или куки в каждом запросе.
      */
     @Autowired
     private JwtAuthenticationFilter jwtAuthenticationFilter;
 
-    /**
-     * Фильтр для проверки и обработки JWT-токена, полученного из куки, в каждом запросе.
-     */
-    @Autowired
-    private JwtCookieAuthenticationFilter jwtCookieAuthenticationFilter;
-
     /**
      * Обработчик успешного завершения аутентификации.
      */
@@ -81,6 +79,8 @@ public class SecurityConfig {
                 .cors(corsCustomizer -> corsCustomizer.configurationSource(corsConfigurationSource()))
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(authorize -> authorize
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
+                        // Асинхронная отправка SSE и страница ошибки идут после проверки исходного запроса
                         .requestMatchers("/api/users/register").permitAll()
                         // Регистрация доступна всем
                         .requestMatchers(HttpMethod.GET, "/api/users").hasAuthority("ADMIN")
@@ -108,19 +108,32 @@ public class SecurityConfig {
                         // Указываем наш кастомный обработчик успеха
                         .failureUrl("/login-error")
                         .permitAll())
-                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
-                .addFilterBefore(jwtCookieAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
         return http.build();
     }
 
     /**
-     * Создает и возвращает экземпляр шифровальщика паролей, использующего алгоритм BCrypt. *
+     * Создает и возвращает экземпляр шифровальщика паролей, использующего алгоритм BCrypt. Хэширование
+     * выполняется в ограниченном пуле потоков, а не в потоках обработки запросов. *
      *
-     * @return Экземпляр шифровальщика паролей типа {@link BCryptPasswordEncoder}.
+     * @param strength      стоимость BCrypt. При увеличении старые хэши пересчитываются при входе.
+     * @param poolSize      количество потоков хэширования (0 — по количеству процессоров).
+     * @param queueCapacity максимальное количество ожидающих хэширования запросов.
+     * @param timeout       максимальное время ожидания результата хэширования.
+     * @param meterRegistry реестр метрик для пула потоков.
+     * @return Экземпляр шифровальщика паролей типа {@link BoundedPasswordEncoder}.
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public BoundedPasswordEncoder passwordEncoder(@Value("${app.security.bcrypt.strength:10}") int strength,
+                                                 @Value("${app.security.bcrypt.poolSize:0}") int poolSize,
+                                                 @Value("${app.security.bcrypt.queueCapacity:64}") int queueCapacity,
+                                                 @Value("${app.security.bcrypt.timeout:5s}") Duration timeout,
+                                                 MeterRegistry meterRegistry) {
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(
+                new BCryptPasswordEncoder(strength), threads, queueCapacity, timeout);
+        ExecutorServiceMetrics.monitor(meterRegistry, encoder.getExecutor(), "passwordHashing");
+        return encoder;
     }
 
     /**
@@ -9,16 +9,23 @@ import java.util.Collections;
 
 public class UserDetailsTMS implements UserDetails {
 
+    private final Long userId;
     private final String email;
     private final String password;
     private final Collection<? extends GrantedAuthority> authorities;
 
-    public UserDetailsTMS(String email, String password, Collection<? extends GrantedAuthority> authorities) {
+    public UserDetailsTMS(Long userId, String email, String password,
+                          Collection<? extends GrantedAuthority> authorities) {
+        this.userId = userId;
         this.email = email;
         this.password = password;
         this.authorities = authorities;
     }
 
+    public Long getUserId() {
+        return userId;
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return authorities;
@@ -56,6 +63,7 @@ public class UserDetailsTMS implements UserDetails {
 
     public static UserDetailsTMS build(User user) {
         return new UserDetailsTMS(
+                user.getId(),
                 user.getEmail(),
                 user.getPassword(),
                 Collections.singletonList(new SimpleGrantedAuthority(user.getRole().name())
@@ -0,0 +1,254 @@
+package com.olegandreevich.tms.servicies;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/** * Шина межузловой инвалидации кэшей через Postgres LISTEN/NOTIFY. Изменения, опубликованные в транзакции,
+ * собираются в одно уведомление и отправляются через NOTIFY на соединении этой транзакции: Postgres доставляет
+ * его только после коммита и не доставляет при откате. Каждый узел слушает канал на отдельном соединении,
+ * при обрыве переподключается с экспоненциальной задержкой и полностью сбрасывает свои кэши, так как
+ * уведомления за время обрыва потеряны. */
+@Service
+public class CacheInvalidationBus {
+
+    /** * Канал уведомлений. */
+    static final String CHANNEL = "tms_cache_invalidation";
+
+    /** * Ограничение Postgres на размер уведомления — 8000 байт, оставляем запас. */
+    static final int MAX_PAYLOAD_BYTES = 7500;
+
+    private static final Logger log = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSourceProperties dataSourceProperties;
+    private final ObjectMapper objectMapper;
+    private final boolean listenerEnabled;
+    private final long pollTimeoutMs;
+    private final long maxBackoffMs;
+
+    /** * Идентификатор узла: собственные уведомления узел пропускает, свой кэш он уже сбросил. */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Map<String, Handler> handlers = new ConcurrentHashMap<>();
+
+    private volatile boolean running;
+    private volatile boolean listening;
+    private Thread listenerThread;
+
+    @Autowired
+    public CacheInvalidationBus(JdbcTemplate jdbcTemplate, DataSourceProperties dataSourceProperties,
+                                ObjectMapper objectMapper,
+                                @Value("${app.invalidation.enabled:true}") boolean listenerEnabled,
+                                @Value("${app.invalidation.pollTimeoutMs:500}") long pollTimeoutMs,
+                                @Value("${app.invalidation.maxBackoffMs:30000}") long maxBackoffMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSourceProperties = dataSourceProperties;
+        this.objectMapper = objectMapper;
+        this.listenerEnabled = listenerEnabled;
+        this.pollTimeoutMs = pollTimeoutMs;
+        this.maxBackoffMs = maxBackoffMs;
+    }
+
+    /** * Сообщение шины. Если keys для кэша равен null, кэш сбрасывается полностью. */
+    record Message(String node, Map<String, Set<String>> caches) {
+    }
+
+    private record Handler(Consumer<Collection<String>> evictKeys, Runnable evictAll) {
+    }
+
+    /** * Регистрирует обработчик уведомлений для кэша. *
+     * @param cache Имя кэша.
+     * @param evictKeys Сброс записей по ключам, полученным от других узлов.
+     * @param evictAll Полный сброс кэша (слишком большое сообщение или переподключение). */
+    public void register(String cache, Consumer<Collection<String>> evictKeys, Runnable evictAll) {
+        handlers.put(cache, new Handler(evictKeys, evictAll));
+    }
+
+    /** * Публикует изменение записей кэша для остальных узлов. В транзакции изменения накапливаются и
+     * отправляются одним уведомлением при коммите, вне транзакции — сразу. *
+     * @param cache Имя кэша.
+     * @param keys Ключи измененных записей. */
+    public void publish(String cache, Collection<?> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        Set<String> stringKeys = keys.stream().map(String::valueOf).collect(Collectors.toSet());
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            send(Map.of(cache, stringKeys));
+            return;
+        }
+        pendingForTransaction().computeIfAbsent(cache, key -> new HashSet<>()).addAll(stringKeys);
+    }
+
+    /** * Изменения текущей транзакции; при первом обращении регистрирует отправку перед коммитом. */
+    @SuppressWarnings("unchecked")
+    private Map<String, Set<String>> pendingForTransaction() {
+        Map<String, Set<String>> pending = (Map<String, Set<String>>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Map<String, Set<String>> batch = new LinkedHashMap<>();
+            TransactionSynchronizationManager.bindResource(this, batch);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    // NOTIFY на соединении транзакции доставляется только после успешного коммита
+                    send(batch);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(CacheInvalidationBus.this);
+                }
+            });
+            pending = batch;
+        }
+        return pending;
+    }
+
+    private void send(Map<String, Set<String>> caches) {
+        if (caches.isEmpty()) {
+            return;
+        }
+        String payload = toPayload(caches);
+        jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", CHANNEL, payload);
+    }
+
+    /** * Сериализует сообщение; если оно не помещается в уведомление, ключи заменяются полным сбросом кэшей. */
+    String toPayload(Map<String, Set<String>> caches) {
+        try {
+            String payload = objectMapper.writeValueAsString(new Message(nodeId, caches));
+            if (payload.getBytes(StandardCharsets.UTF_8).length <= MAX_PAYLOAD_BYTES) {
+                return payload;
+            }
+            Map<String, Set<String>> evictAll = new LinkedHashMap<>();
+            caches.keySet().forEach(cache -> evictAll.put(cache, null));
+            return objectMapper.writeValueAsString(new Message(nodeId, evictAll));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сериализовать уведомление об изменении кэша.", e);
+        }
+    }
+
+    /** * Применяет уведомление другого узла к зарегистрированным кэшам. */
+    void handle(String payload) {
+        Message message;
+        try {
+            message = objectMapper.readValue(payload, Message.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Некорректное уведомление об изменении кэша: {}", payload);
+            return;
+        }
+        if (nodeId.equals(message.node()) || message.caches() == null) {
+            return;
+        }
+        message.caches().forEach((cache, keys) -> {
+            Handler handler = handlers.get(cache);
+            if (handler == null) {
+                return;
+            }
+            if (keys == null) {
+                handler.evictAll().run();
+            } else {
+                handler.evictKeys().accept(keys);
+            }
+        });
+    }
+
+    /** * Полностью сбрасывает все зарегистрированные кэши. */
+    void resync() {
+        handlers.values().forEach(handler -> handler.evictAll().run());
+    }
+
+    /** * Возвращает истину, если узел подписан на канал и получает уведомления. */
+    public boolean isListening() {
+        return listening;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!listenerEnabled) {
+            return;
+        }
+        running = true;
+        listenerThread = new Thread(this::listen, "cache-invalidation-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+            listenerThread.join(pollTimeoutMs * 2);
+        }
+    }
+
+    /** * Цикл прослушивания канала на отдельном соединении, не входящем в пул. */
+    private void listen() {
+        long backoffMs = 500;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                // Уведомления, отправленные до подписки, потеряны: сбрасываем кэши целиком
+                resync();
+                backoffMs = 500;
+                listening = true;
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications((int) pollTimeoutMs);
+                    if (notifications != null) {
+                        for (PGNotification notification : List.of(notifications)) {
+                            handle(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                listening = false;
+                if (!running) {
+                    return;
+                }
+                log.warn("Соединение LISTEN {} потеряно, повтор через {} мс: {}", CHANNEL, backoffMs, e.getMessage());
+                try {
+                    Thread.sleep(backoffMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                backoffMs = Math.min(backoffMs * 2, maxBackoffMs);
+            }
+        }
+    }
+}
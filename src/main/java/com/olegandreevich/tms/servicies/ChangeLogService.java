@@ -0,0 +1,157 @@
+package com.olegandreevich.tms.servicies;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.olegandreevich.tms.dto.ChangeDTO;
+import com.olegandreevich.tms.dto.ChangePageDTO;
+import com.olegandreevich.tms.events.ChangeType;
+import com.olegandreevich.tms.util.CursorUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Журнал изменений задач и комментариев (transactional outbox). * Записи добавляются в транзакции изменения,
+ * а читаются в порядке фиксации транзакций по курсору, поэтому потребитель получает только новые изменения.
+ */
+@Service
+public class ChangeLogService {
+
+    /** * Максимальный размер страницы журнала. */
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    public static final String TASK = "task";
+    public static final String COMMENT = "comment";
+
+    private static final String INSERT_SQL = "insert into change_log (entity_type, entity_id, task_id, change_type, payload) " +
+            "values (?, ?, ?, ?, cast(? as jsonb))";
+
+    // Отдаются только завершенные транзакции (tx_id < xmin снимка): транзакция с меньшим tx_id может
+    // зафиксироваться позже, и без этого условия ее строки оказались бы позади курсора потребителя
+    private static final String SELECT_SQL = "select id, tx_id::text as tx_id, entity_type, entity_id, task_id, " +
+            "change_type, changed_at, payload::text as payload from change_log " +
+            "where tx_id < pg_snapshot_xmin(pg_current_snapshot()) and (tx_id, id) > (cast(? as xid8), ?) " +
+            "order by tx_id, id limit ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final UserCheckService userCheckService;
+
+    @Autowired
+    public ChangeLogService(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper, UserCheckService userCheckService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.userCheckService = userCheckService;
+    }
+
+    /** * Изменение одной сущности для записи в журнал. *
+     * @param payload Состояние сущности после изменения (сериализуется в JSON) или null для удаления. */
+    public record Entry(String entity, Long entityId, Long taskId, ChangeType change, Object payload) {
+
+        public static Entry task(Long taskId, ChangeType change, Object payload) {
+            return new Entry(TASK, taskId, taskId, change, payload);
+        }
+
+        public static Entry comment(Long commentId, Long taskId, ChangeType change, Object payload) {
+            return new Entry(COMMENT, commentId, taskId, change, payload);
+        }
+    }
+
+    /**
+     * Записывает изменение в журнал. Вызывается только внутри транзакции изменения. *
+     *
+     * @param entry Изменение.
+     * @throws org.springframework.transaction.IllegalTransactionStateException если транзакции нет.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Entry entry) {
+        jdbcTemplate.update(INSERT_SQL, entry.entity(), entry.entityId(), entry.taskId(), entry.change().name(),
+                toJson(entry.payload()));
+    }
+
+    /**
+     * Записывает несколько изменений одним JDBC batch. Вызывается только внутри транзакции изменения. *
+     *
+     * @param entries Изменения в порядке их выполнения.
+     * @throws org.springframework.transaction.IllegalTransactionStateException если транзакции нет.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordAll(List<Entry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            args.add(new Object[]{entry.entity(), entry.entityId(), entry.taskId(), entry.change().name(),
+                    toJson(entry.payload())});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, args);
+    }
+
+    /**
+     * Возвращает изменения, зафиксированные после позиции курсора, в порядке фиксации. *
+     *
+     * @param cursor Курсор из предыдущего ответа или null, чтобы читать журнал с начала.
+     * @param size   Размер страницы (не более {@link #MAX_PAGE_SIZE}).
+     * @return Страница изменений с курсором для следующего запроса.
+     * @throws AccessDeniedException    если у пользователя нет прав администратора.
+     * @throws IllegalArgumentException если курсор поврежден.
+     */
+    @Transactional(readOnly = true)
+    public ChangePageDTO getChanges(String cursor, int size) {
+        if (!userCheckService.isAdmin()) {
+            throw new AccessDeniedException("У вас нет прав для чтения журнала изменений.");
+        }
+        int limit = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+
+        String txId = "0";
+        long id = 0;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] position = CursorUtil.decode(cursor, 2);
+            try {
+                txId = Long.toUnsignedString(Long.parseUnsignedLong(position[0]));
+                id = Long.parseLong(position[1]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Некорректный курсор.", e);
+            }
+        }
+
+        List<Row> rows = new ArrayList<>(jdbcTemplate.query(SELECT_SQL, ROW_MAPPER, txId, id, limit + 1));
+        boolean hasMore = rows.size() > limit;
+        if (hasMore) {
+            rows = rows.subList(0, limit);
+        }
+
+        String nextCursor = rows.isEmpty()
+                ? CursorUtil.encode(txId, id)
+                : CursorUtil.encode(rows.get(rows.size() - 1).txId(), rows.get(rows.size() - 1).change().getId());
+        return new ChangePageDTO(rows.stream().map(Row::change).toList(), nextCursor, hasMore);
+    }
+
+    private String toJson(Object payload) {
+        if (payload == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сериализовать изменение в JSON.", e);
+        }
+    }
+
+    /** * Строка журнала вместе с ID транзакции для курсора. */
+    private record Row(String txId, ChangeDTO change) {
+    }
+
+    private static final RowMapper<Row> ROW_MAPPER = (rs, rowNum) -> new Row(rs.getString("tx_id"),
+            new ChangeDTO(rs.getLong("id"), rs.getString("entity_type"), rs.getLong("entity_id"),
+                    rs.getLong("task_id"), ChangeType.valueOf(rs.getString("change_type")),
+                    rs.getTimestamp("changed_at").toLocalDateTime(), rs.getString("payload")));
+}
@@ -1,18 +1,31 @@
 package com.olegandreevich.tms.servicies;
 
 import com.olegandreevich.tms.dto.CommentDTO;
+import com.olegandreevich.tms.dto.CursorPageDTO;
 import com.olegandreevich.tms.entities.Comment;
-import com.olegandreevich.tms.entities.Task;
 import com.olegandreevich.tms.entities.User;
+import com.olegandreevich.tms.events.ChangeType;
+import com.olegandreevich.tms.events.CommentChangedEvent;
 import com.olegandreevich.tms.mappers.CommentMapper;
 import com.olegandreevich.tms.repositories.CommentRepository;
+import com.olegandreevich.tms.repositories.TaskRepository;
+import com.olegandreevich.tms.util.CursorUtil;
 import com.olegandreevich.tms.util.exceptions.ResourceNotFoundException;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -21,17 +34,30 @@ import java.util.stream.Collectors;
 @Service
 public class CommentService {
 
+    /** * Максимальный размер страницы комментариев. */
+    public static final int MAX_PAGE_SIZE = 100;
+
+    /** * Количество ID задач в одном запросе комментариев: список IN должен оставаться далеко
+     * от предела в 65535 параметров запроса PostgreSQL. */
+    static final int TASK_IDS_PER_QUERY = 1000;
+
     private final CommentRepository commentRepository;
     private final CommentMapper commentMapper;
-    private final ModelMapper modelMapper;
     private final UserCheckService userCheckService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ChangeLogService changeLogService;
+    private final TaskRepository taskRepository;
 
     @Autowired
-    public CommentService(CommentRepository commentRepository, CommentMapper commentMapper, ModelMapper modelMapper, UserCheckService userCheckService) {
+    public CommentService(CommentRepository commentRepository, CommentMapper commentMapper, UserCheckService userCheckService,
+                          ApplicationEventPublisher eventPublisher, ChangeLogService changeLogService,
+                          TaskRepository taskRepository) {
         this.commentRepository = commentRepository;
         this.commentMapper = commentMapper;
-        this.modelMapper = modelMapper;
         this.userCheckService = userCheckService;
+        this.eventPublisher = eventPublisher;
+        this.changeLogService = changeLogService;
+        this.taskRepository = taskRepository;
     }
 
     /**
@@ -41,25 +67,86 @@ public class CommentService {
      *               для добавления. * @return DTO добавленного комментария. * @throws ResourceNotFoundException
      *               если задача или пользователь не найдены.
      */
+    @Transactional
     public CommentDTO addComment(Long taskId, Long userId, CommentDTO commentDTO) throws ResourceNotFoundException {
         Comment comment = commentMapper.toEntity(commentDTO);
-        comment.setTask(new Task(taskId)); // Assume you have a method to fetch Task by ID
+        // Ссылка без запроса к БД. Новый объект Task с ID не подходит: без версии Hibernate считает его несохраненным
+        comment.setTask(taskRepository.getReferenceById(taskId));
         comment.setUser(new User(userId));
         Comment savedComment = commentRepository.save(comment);
-        return commentMapper.toDto(savedComment);
+        CommentDTO result = commentMapper.toDto(savedComment);
+        changeLogService.record(ChangeLogService.Entry.comment(savedComment.getId(), taskId, ChangeType.CREATED, result));
+        eventPublisher.publishEvent(new CommentChangedEvent(savedComment.getId(), taskId, ChangeType.CREATED));
+        return result;
     }
 
     /**
-     * Возвращает список комментариев для указанной задачи. * * @param taskId ID задачи,
-     * для которой возвращаются комментарии. * @return Список DTO комментариев.
+     * Возвращает страницу комментариев задачи с keyset-пагинацией по (created_at, id). *
+     *
+     * @param taskId ID задачи.
+     * @param cursor Курсор, полученный с предыдущей страницы, или null для первой страницы.
+     * @param size   Размер страницы (не более {@link #MAX_PAGE_SIZE}).
+     * @return Страница DTO комментариев с курсором следующей страницы.
+     * @throws IllegalArgumentException если курсор поврежден.
      */
     @Transactional(readOnly = true)
-    public List<CommentDTO> getCommentsForTask(Long taskId) {
-        return commentRepository.findAll()
-                .stream()
-                .filter(comment -> comment.getTask().getId().equals(taskId))
+    public CursorPageDTO<CommentDTO> getCommentsForTask(Long taskId, String cursor, int size) {
+        int limit = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        // Запрашиваем на одну запись больше, чтобы узнать, есть ли следующая страница
+        PageRequest pageRequest = PageRequest.of(0, limit + 1);
+
+        List<Comment> comments;
+        if (cursor == null || cursor.isBlank()) {
+            comments = commentRepository.findPageByTaskId(taskId, pageRequest);
+        } else {
+            String[] position = CursorUtil.decode(cursor, 2);
+            LocalDateTime createdAt;
+            Long id;
+            try {
+                createdAt = LocalDateTime.parse(position[0]);
+                id = Long.valueOf(position[1]);
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new IllegalArgumentException("Некорректный курсор.", e);
+            }
+            comments = commentRepository.findPageByTaskIdAfter(taskId, createdAt, id, pageRequest);
+        }
+
+        String nextCursor = null;
+        if (comments.size() > limit) {
+            comments = comments.subList(0, limit);
+            Comment last = comments.get(limit - 1);
+            nextCursor = CursorUtil.encode(last.getCreatedAt(), last.getId());
+        }
+
+        List<CommentDTO> items = comments.stream()
                 .map(commentMapper::toDto)
                 .collect(Collectors.toList());
+        return new CursorPageDTO<>(items, nextCursor);
+    }
+
+    /**
+     * Возвращает комментарии сразу для нескольких задач, сгруппированные по ID задачи. * Выполняется один
+     * запрос на каждые {@link #TASK_IDS_PER_QUERY} задач, комментарии задачи упорядочены по (created_at, id).
+     *
+     * @param taskIds ID задач.
+     * @return Комментарии по ID задачи; задачи без комментариев в результат не попадают.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, List<CommentDTO>> getCommentsForTasks(Collection<Long> taskIds) {
+        if (taskIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<Long> ids = List.copyOf(new LinkedHashSet<>(taskIds));
+        Map<Long, List<CommentDTO>> result = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += TASK_IDS_PER_QUERY) {
+            // Все комментарии задачи попадают в одну пачку, поэтому их порядок сохраняется
+            for (Comment comment : commentRepository.findByTaskIds(
+                    ids.subList(from, Math.min(from + TASK_IDS_PER_QUERY, ids.size())))) {
+                result.computeIfAbsent(comment.getTask().getId(), id -> new ArrayList<>())
+                        .add(commentMapper.toDto(comment));
+            }
+        }
+        return result;
     }
 
     /**
@@ -69,7 +156,11 @@ public class CommentService {
      */
     @Transactional
     public void deleteComment(Long id) throws ResourceNotFoundException {
-        commentRepository.deleteById(id);
+        Comment comment = commentRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Comment not found with id: " + id));
+        commentRepository.delete(comment);
+        changeLogService.record(ChangeLogService.Entry.comment(id, comment.getTask().getId(), ChangeType.DELETED, null));
+        eventPublisher.publishEvent(new CommentChangedEvent(id, comment.getTask().getId(), ChangeType.DELETED));
     }
 
     /**
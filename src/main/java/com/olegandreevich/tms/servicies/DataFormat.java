@@ -0,0 +1,25 @@
+package com.olegandreevich.tms.servicies;
+
+/** * Форматы выгрузки и загрузки задач и комментариев. */
+public enum DataFormat {
+    /** * JSON-объект на строку (newline-delimited JSON). */
+    NDJSON("application/x-ndjson;charset=UTF-8", "ndjson"),
+    /** * CSV с заголовком, по RFC 4180. */
+    CSV("text/csv;charset=UTF-8", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    DataFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+}
@@ -0,0 +1,219 @@
+package com.olegandreevich.tms.servicies;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Потоковая выгрузка задач и комментариев. * Строки читаются курсором БД пачками по {@link #FETCH_SIZE}
+ * и сразу пишутся в ответ, поэтому расход памяти не зависит от количества строк.
+ */
+@Service
+public class ExportService {
+
+    /** * Количество строк, получаемых от БД за одно обращение к курсору. */
+    public static final int FETCH_SIZE = 1000;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String TASKS_SQL = "select id, title, description, status, priority, author_id, " +
+            "assignee_id, created_at from tasks order by id";
+    private static final List<String> TASK_COLUMNS = List.of("id", "title", "description", "status", "priority",
+            "authorId", "assigneeId", "createdAt");
+
+    private static final String COMMENTS_SQL = "select id, task_id, user_id, content, created_at " +
+            "from comments order by id";
+    private static final List<String> COMMENT_COLUMNS = List.of("id", "taskId", "userId", "content", "createdAt");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final UserCheckService userCheckService;
+
+    @Autowired
+    public ExportService(DataSource dataSource, PlatformTransactionManager transactionManager,
+                         ObjectMapper objectMapper, UserCheckService userCheckService) {
+        // PgJDBC читает результат курсором только при заданном fetchSize и выключенном autocommit,
+        // иначе весь результат запроса загружается в память
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.userCheckService = userCheckService;
+    }
+
+    /**
+     * Выгружает все задачи в порядке ID. *
+     *
+     * @param format Формат выгрузки.
+     * @param gzip   Сжимать ли выгрузку.
+     * @return Тело ответа, которое пишет строки по мере чтения из БД.
+     * @throws AccessDeniedException если у пользователя нет прав администратора.
+     */
+    public StreamingResponseBody exportTasks(DataFormat format, boolean gzip) {
+        return export(TASKS_SQL, TASK_COLUMNS, format, gzip);
+    }
+
+    /**
+     * Выгружает все комментарии в порядке ID. *
+     *
+     * @param format Формат выгрузки.
+     * @param gzip   Сжимать ли выгрузку.
+     * @return Тело ответа, которое пишет строки по мере чтения из БД.
+     * @throws AccessDeniedException если у пользователя нет прав администратора.
+     */
+    public StreamingResponseBody exportComments(DataFormat format, boolean gzip) {
+        return export(COMMENTS_SQL, COMMENT_COLUMNS, format, gzip);
+    }
+
+    /** * Права проверяются сразу: тело ответа пишется в другом потоке, где нет контекста безопасности. */
+    private StreamingResponseBody export(String sql, List<String> columns, DataFormat format, boolean gzip) {
+        if (!userCheckService.isAdmin()) {
+            throw new AccessDeniedException("У вас нет прав для выгрузки данных.");
+        }
+        return out -> {
+            GZIPOutputStream gzipStream = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : null;
+            OutputStream target = gzipStream != null ? gzipStream : out;
+            Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), BUFFER_SIZE);
+            RowWriter rowWriter = format == DataFormat.CSV
+                    ? new CsvRowWriter(writer, columns)
+                    : new NdjsonRowWriter(writer, columns, objectMapper);
+            Object[] values = new Object[columns.size()];
+            try {
+                rowWriter.start();
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(sql, (RowCallbackHandler) rs -> {
+                    for (int i = 0; i < values.length; i++) {
+                        Object value = rs.getObject(i + 1);
+                        values[i] = value instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : value;
+                    }
+                    try {
+                        rowWriter.write(values);
+                    } catch (IOException e) {
+                        // Клиент закрыл соединение: прерываем чтение, курсор закрывается вместе с транзакцией
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            rowWriter.finish();
+            writer.flush();
+            if (gzipStream != null) {
+                gzipStream.finish();
+            }
+        };
+    }
+
+    /** * Запись строк выгрузки в выбранном формате. */
+    interface RowWriter {
+
+        void start() throws IOException;
+
+        void write(Object[] values) throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    /** * Одна строка - один JSON-объект. */
+    static class NdjsonRowWriter implements RowWriter {
+
+        private final List<String> columns;
+        private final JsonGenerator generator;
+
+        NdjsonRowWriter(Writer writer, List<String> columns, ObjectMapper objectMapper) throws IOException {
+            this.columns = columns;
+            this.generator = objectMapper.getFactory().createGenerator(writer)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .setRootValueSeparator(null);
+        }
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void write(Object[] values) throws IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < values.length; i++) {
+                generator.writeFieldName(columns.get(i));
+                generator.writeObject(values[i]);
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.flush();
+        }
+    }
+
+    /** * CSV с заголовком: значения с разделителями, кавычками и переводами строк берутся в кавычки. */
+    static class CsvRowWriter implements RowWriter {
+
+        private final Writer writer;
+        private final List<String> columns;
+
+        CsvRowWriter(Writer writer, List<String> columns) {
+            this.writer = writer;
+            this.columns = columns;
+        }
+
+        @Override
+        public void start() throws IOException {
+            write(columns.toArray());
+        }
+
+        @Override
+        public void write(Object[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                if (values[i] != null) {
+                    writeValue(values[i].toString());
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void finish() {
+        }
+
+        private void writeValue(String value) throws IOException {
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+}
@@ -0,0 +1,537 @@
+package com.olegandreevich.tms.servicies;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.olegandreevich.tms.dto.BulkItemResultDTO;
+import com.olegandreevich.tms.dto.ImportResultDTO;
+import com.olegandreevich.tms.entities.Comment;
+import com.olegandreevich.tms.entities.Task;
+import com.olegandreevich.tms.entities.enums.Priority;
+import com.olegandreevich.tms.entities.enums.Status;
+import com.olegandreevich.tms.util.CsvReader;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Массовая загрузка задач и комментариев из CSV или NDJSON. * Строки читаются потоком, проверяются
+ * по ограничениям сущностей и передаются командой COPY во временную таблицу. Затем одним запросом
+ * отклоняются строки с несуществующими ссылками, а остальные переносятся в основную таблицу вместе с записями
+ * журнала изменений. Загрузка выполняется в одной транзакции: при ошибке не сохраняется ничего.
+ */
+@Service
+public class ImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportService.class);
+
+    /** * Максимальное количество отклоненных строк в ответе; общее количество возвращается всегда. */
+    public static final int MAX_REPORTED_ERRORS = 1000;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long PROGRESS_LOG_INTERVAL = 100_000;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final UserCheckService userCheckService;
+    private final TaskReadCache taskReadCache;
+
+    private final Map<String, Progress> activeImports = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ImportService(DataSource dataSource, JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                         ObjectMapper objectMapper, Validator validator, UserCheckService userCheckService,
+                         TaskReadCache taskReadCache) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.userCheckService = userCheckService;
+        this.taskReadCache = taskReadCache;
+    }
+
+    /**
+     * Загружает задачи. Колонки совпадают с выгрузкой: id (необязательно), title, description, status, priority,
+     * authorId, assigneeId, createdAt (необязательно). Явные ID сохраняются, последовательность сдвигается
+     * за максимальный ID; загружать данные с явными ID следует, пока приложение не создает задачи.
+     *
+     * @param input  Данные.
+     * @param format Формат данных.
+     * @return Результат загрузки с отклоненными строками.
+     * @throws AccessDeniedException    если у пользователя нет прав администратора.
+     * @throws IllegalArgumentException если данные нельзя разобрать (например, нет заголовка CSV).
+     */
+    public ImportResultDTO importTasks(InputStream input, DataFormat format) throws IOException {
+        return importRows(TASKS, input, format);
+    }
+
+    /**
+     * Загружает комментарии. Колонки: taskId, userId, content, createdAt (необязательно); id игнорируется.
+     *
+     * @param input  Данные.
+     * @param format Формат данных.
+     * @return Результат загрузки с отклоненными строками.
+     * @throws AccessDeniedException    если у пользователя нет прав администратора.
+     * @throws IllegalArgumentException если данные нельзя разобрать (например, нет заголовка CSV).
+     */
+    public ImportResultDTO importComments(InputStream input, DataFormat format) throws IOException {
+        return importRows(COMMENTS, input, format);
+    }
+
+    /**
+     * Возвращает состояние выполняющихся загрузок. *
+     *
+     * @return Состояние загрузок без списков отклоненных строк.
+     * @throws AccessDeniedException если у пользователя нет прав администратора.
+     */
+    public List<ImportResultDTO> getActiveImports() {
+        checkAdmin();
+        return activeImports.values().stream()
+                .map(progress -> progress.toDto(0, List.of()))
+                .sorted(Comparator.comparing(ImportResultDTO::getStartedAt))
+                .toList();
+    }
+
+    private ImportResultDTO importRows(Target target, InputStream input, DataFormat format) throws IOException {
+        checkAdmin();
+        Progress progress = new Progress(target.entity());
+        activeImports.put(progress.id, progress);
+        try {
+            ImportResultDTO result = transactionTemplate.execute(status -> {
+                try {
+                    return importInTransaction(target, input, format, progress);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (SQLException e) {
+                    throw new IllegalStateException("Ошибка COPY при загрузке данных.", e);
+                }
+            });
+            log.info("Загрузка {} ({}): прочитано {}, загружено {}, отклонено {}, {} строк/с", progress.id,
+                    target.entity(), result.getRowsRead(), result.getRowsImported(), result.getRowsRejected(),
+                    Math.round(result.getRowsPerSecond()));
+            return result;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            activeImports.remove(progress.id);
+        }
+    }
+
+    private ImportResultDTO importInTransaction(Target target, InputStream input, DataFormat format, Progress progress)
+            throws IOException, SQLException {
+        jdbcTemplate.execute(target.createStaging());
+        List<BulkItemResultDTO> rejected = new ArrayList<>();
+
+        PGConnection connection = DataSourceUtils.getConnection(dataSource).unwrap(PGConnection.class);
+        PGCopyOutputStream copy = new PGCopyOutputStream(connection, target.copySql(), BUFFER_SIZE);
+        try {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(copy, StandardCharsets.UTF_8), BUFFER_SIZE);
+            Reader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), BUFFER_SIZE);
+            RowSource rows = format == DataFormat.CSV ? csvRows(reader) : ndjsonRows(reader);
+            for (Map<String, String> row = rows.next(); row != null; row = rows.next()) {
+                long line = progress.rowsRead.incrementAndGet();
+                try {
+                    String[] values = target.parse(row, validator);
+                    writeCopyRow(writer, line, values);
+                } catch (IllegalArgumentException e) {
+                    progress.rowsRejected.incrementAndGet();
+                    if (rejected.size() < MAX_REPORTED_ERRORS) {
+                        rejected.add(new BulkItemResultDTO((int) line, null, HttpStatus.BAD_REQUEST.value(),
+                                e.getMessage()));
+                    }
+                }
+                if (line % PROGRESS_LOG_INTERVAL == 0) {
+                    log.info("Загрузка {} ({}): прочитано {} строк", progress.id, target.entity(), line);
+                }
+            }
+            writer.flush();
+            copy.close();
+        } finally {
+            if (copy.isActive()) {
+                copy.cancelCopy();
+            }
+        }
+
+        // Временная таблица не анализируется автоматически, без статистики планировщик ошибается в соединениях
+        progress.stage = "merge";
+        jdbcTemplate.execute("analyze " + target.staging());
+        for (String sql : target.markErrors()) {
+            jdbcTemplate.update(sql);
+        }
+        Long stagingRejected = jdbcTemplate.queryForObject(
+                "select count(*) from " + target.staging() + " where error is not null", Long.class);
+        progress.rowsRejected.addAndGet(stagingRejected);
+        rejected.addAll(jdbcTemplate.query("select line, error_status, error from " + target.staging() +
+                        " where error is not null order by line limit " + MAX_REPORTED_ERRORS,
+                (rs, rowNum) -> new BulkItemResultDTO(rs.getInt("line"), null, rs.getInt("error_status"),
+                        rs.getString("error"))));
+        rejected.sort(Comparator.comparingInt(BulkItemResultDTO::getIndex));
+
+        int imported = jdbcTemplate.update(target.merge());
+        target.afterMerge(this);
+        progress.stage = "done";
+        return progress.toDto(imported, rejected.subList(0, Math.min(rejected.size(), MAX_REPORTED_ERRORS)));
+    }
+
+    private void checkAdmin() {
+        if (!userCheckService.isAdmin()) {
+            throw new AccessDeniedException("У вас нет прав для загрузки данных.");
+        }
+    }
+
+    /** * Пишет строку в текстовом формате COPY: значения через табуляцию, \N для null. */
+    static void writeCopyRow(Writer writer, long line, String[] values) throws IOException {
+        writer.write(Long.toString(line));
+        for (String value : values) {
+            writer.write('\t');
+            if (value == null) {
+                writer.write("\\N");
+                continue;
+            }
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '\\' -> writer.write("\\\\");
+                    case '\n' -> writer.write("\\n");
+                    case '\r' -> writer.write("\\r");
+                    case '\t' -> writer.write("\\t");
+                    default -> writer.write(c);
+                }
+            }
+        }
+        writer.write('\n');
+    }
+
+    /** * Источник строк: значения по имени колонки, null - данные закончились. */
+    interface RowSource {
+        Map<String, String> next() throws IOException;
+    }
+
+    static RowSource csvRows(Reader reader) throws IOException {
+        CsvReader csv = new CsvReader(reader);
+        List<String> header = csv.next();
+        if (header == null || header.isEmpty()) {
+            throw new IllegalArgumentException("В CSV нет строки заголовка.");
+        }
+        return () -> {
+            List<String> record = csv.next();
+            // Пустые строки пропускаются
+            while (record != null && record.size() == 1 && record.get(0).isEmpty()) {
+                record = csv.next();
+            }
+            if (record == null) {
+                return null;
+            }
+            Map<String, String> row = new HashMap<>();
+            for (int i = 0; i < header.size() && i < record.size(); i++) {
+                String value = record.get(i);
+                row.put(header.get(i).trim(), value.isEmpty() ? null : value);
+            }
+            return row;
+        };
+    }
+
+    RowSource ndjsonRows(Reader reader) throws IOException {
+        MappingIterator<JsonNode> nodes = objectMapper.readerFor(JsonNode.class).readValues(reader);
+        return () -> {
+            if (!nodes.hasNextValue()) {
+                return null;
+            }
+            JsonNode node = nodes.nextValue();
+            Map<String, String> row = new HashMap<>();
+            node.fields().forEachRemaining(field -> row.put(field.getKey(),
+                    field.getValue().isNull() ? null : field.getValue().asText()));
+            return row;
+        };
+    }
+
+    /** * Описание загружаемой сущности: временная таблица, разбор строки, проверки ссылок и перенос. */
+    private interface Target {
+
+        String entity();
+
+        String staging();
+
+        String createStaging();
+
+        String copySql();
+
+        /** * Проверяет строку и возвращает значения колонок временной таблицы после line. *
+         * @throws IllegalArgumentException если строка нарушает ограничения сущности. */
+        String[] parse(Map<String, String> row, Validator validator);
+
+        /** * Запросы, заполняющие error у строк временной таблицы, которые нельзя загрузить. */
+        List<String> markErrors();
+
+        /** * Переносит строки без ошибок и возвращает их количество. */
+        String merge();
+
+        default void afterMerge(ImportService service) {
+        }
+    }
+
+    private static final Target TASKS = new Target() {
+
+        @Override
+        public String entity() {
+            return ChangeLogService.TASK;
+        }
+
+        @Override
+        public String staging() {
+            return "task_import";
+        }
+
+        @Override
+        public String createStaging() {
+            return "create temp table task_import (line bigint not null, id bigint, title varchar(255) not null, " +
+                    "description text, status varchar(20) not null, priority varchar(20) not null, " +
+                    "author_id bigint not null, assignee_id bigint not null, created_at timestamp, " +
+                    "error_status int, error text) on commit drop";
+        }
+
+        @Override
+        public String copySql() {
+            return "copy task_import (line, id, title, description, status, priority, author_id, assignee_id, " +
+                    "created_at) from stdin";
+        }
+
+        @Override
+        public String[] parse(Map<String, String> row, Validator validator) {
+            String title = row.get("title");
+            String description = row.get("description");
+            checkConstraints(validator, Task.class, "title", title, "description", description);
+            return new String[]{
+                    nullableString(parseLong(row, "id", false)),
+                    title,
+                    description,
+                    parseEnum(Status.class, row.get("status"), "Не указан статус задачи.").name(),
+                    parseEnum(Priority.class, row.get("priority"), "Не указан приоритет задачи.").name(),
+                    nullableString(parseLong(row, "authorId", true)),
+                    nullableString(parseLong(row, "assigneeId", true)),
+                    nullableString(parseDateTime(row.get("createdAt")))
+            };
+        }
+
+        @Override
+        public List<String> markErrors() {
+            return List.of(
+                    "update task_import s set error_status = 404, error = 'Author not found' " +
+                            "where not exists (select 1 from users u where u.id = s.author_id)",
+                    "update task_import s set error_status = 404, error = 'Assignee not found' " +
+                            "where s.error is null and not exists (select 1 from users u where u.id = s.assignee_id)",
+                    "update task_import s set error_status = 409, error = 'Task already exists with id: ' || s.id " +
+                            "where s.error is null and s.id is not null " +
+                            "and exists (select 1 from tasks t where t.id = s.id)",
+                    "update task_import s set error_status = 409, error = 'Duplicate task id: ' || s.id " +
+                            "from (select line, row_number() over (partition by id order by line) as n " +
+                            "from task_import where id is not null and error is null) d " +
+                            "where d.line = s.line and d.n > 1");
+        }
+
+        @Override
+        public String merge() {
+            return "with inserted as (" +
+                    "insert into tasks (id, title, description, status, priority, author_id, assignee_id, created_at) " +
+                    "select coalesce(s.id, nextval('tasks_id_seq')), s.title, s.description, s.status, s.priority, " +
+                    "s.author_id, s.assignee_id, coalesce(s.created_at, current_timestamp) " +
+                    "from task_import s where s.error is null order by s.line " +
+                    "returning id, title, description, status, priority, author_id, assignee_id) " +
+                    "insert into change_log (entity_type, entity_id, task_id, change_type, payload) " +
+                    "select 'task', id, id, 'CREATED', jsonb_build_object('title', title, 'description', description, " +
+                    "'status', status, 'priority', priority, 'authorId', author_id, 'assigneeId', assignee_id) " +
+                    "from inserted";
+        }
+
+        @Override
+        public void afterMerge(ImportService service) {
+            // Последовательность сдвигается за явно заданные ID, как в миграции V1_0_4
+            service.jdbcTemplate.queryForObject("select setval('tasks_id_seq', greatest(" +
+                    "(select max(id) from tasks), (select last_value from tasks_id_seq)))", Long.class);
+            Set<Long> authorIds = new HashSet<>(service.jdbcTemplate.queryForList(
+                    "select distinct author_id from task_import where error is null", Long.class));
+            Set<Long> assigneeIds = new HashSet<>(service.jdbcTemplate.queryForList(
+                    "select distinct assignee_id from task_import where error is null", Long.class));
+            service.taskReadCache.evictTasks(List.of(), authorIds, assigneeIds);
+        }
+    };
+
+    private static final Target COMMENTS = new Target() {
+
+        @Override
+        public String entity() {
+            return ChangeLogService.COMMENT;
+        }
+
+        @Override
+        public String staging() {
+            return "comment_import";
+        }
+
+        @Override
+        public String createStaging() {
+            return "create temp table comment_import (line bigint not null, task_id bigint not null, " +
+                    "user_id bigint not null, content text, created_at timestamp, error_status int, error text) " +
+                    "on commit drop";
+        }
+
+        @Override
+        public String copySql() {
+            return "copy comment_import (line, task_id, user_id, content, created_at) from stdin";
+        }
+
+        @Override
+        public String[] parse(Map<String, String> row, Validator validator) {
+            String content = row.get("content");
+            checkConstraints(validator, Comment.class, "content", content);
+            return new String[]{
+                    nullableString(parseLong(row, "taskId", true)),
+                    nullableString(parseLong(row, "userId", true)),
+                    content,
+                    nullableString(parseDateTime(row.get("createdAt")))
+            };
+        }
+
+        @Override
+        public List<String> markErrors() {
+            return List.of(
+                    "update comment_import s set error_status = 404, error = 'Task not found with id: ' || s.task_id " +
+                            "where not exists (select 1 from tasks t where t.id = s.task_id)",
+                    "update comment_import s set error_status = 404, error = 'User not found' " +
+                            "where s.error is null and not exists (select 1 from users u where u.id = s.user_id)");
+        }
+
+        @Override
+        public String merge() {
+            return "with inserted as (" +
+                    "insert into comments (task_id, user_id, content, created_at) " +
+                    "select s.task_id, s.user_id, s.content, coalesce(s.created_at, current_timestamp) " +
+                    "from comment_import s where s.error is null order by s.line " +
+                    "returning id, task_id, content) " +
+                    "insert into change_log (entity_type, entity_id, task_id, change_type, payload) " +
+                    "select 'comment', id, task_id, 'CREATED', jsonb_build_object('content', content) " +
+                    "from inserted";
+        }
+    };
+
+    /** * Проверяет поля по ограничениям сущности: пары имя свойства - значение. */
+    private static void checkConstraints(Validator validator, Class<?> entity, String... propertiesAndValues) {
+        List<String> messages = new ArrayList<>();
+        for (int i = 0; i < propertiesAndValues.length; i += 2) {
+            String value = propertiesAndValues[i + 1];
+            if (value != null && value.indexOf('\0') >= 0) {
+                throw new IllegalArgumentException("Недопустимый символ в поле " + propertiesAndValues[i] + ".");
+            }
+            for (ConstraintViolation<?> violation : validator.validateValue(entity, propertiesAndValues[i], value)) {
+                messages.add(violation.getMessage());
+            }
+        }
+        if (!messages.isEmpty()) {
+            throw new IllegalArgumentException(messages.stream().sorted().collect(Collectors.joining(" ")));
+        }
+    }
+
+    private static Long parseLong(Map<String, String> row, String column, boolean required) {
+        String value = row.get(column);
+        if (value == null || value.isBlank()) {
+            if (required) {
+                throw new IllegalArgumentException("Не указано поле " + column + ".");
+            }
+            return null;
+        }
+        try {
+            return Long.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Некорректное значение поля " + column + ": " + value);
+        }
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String value, String missingMessage) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException(missingMessage);
+        }
+        try {
+            return Enum.valueOf(type, value.trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Некорректное значение " + value + " для " + type.getSimpleName() + ".");
+        }
+    }
+
+    private static LocalDateTime parseDateTime(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Некорректная дата createdAt: " + value);
+        }
+    }
+
+    private static String nullableString(Object value) {
+        return value == null ? null : value.toString();
+    }
+
+    /** * Счетчики выполняющейся загрузки; читаются из других запросов. */
+    private static class Progress {
+        private final String id = UUID.randomUUID().toString();
+        private final String entity;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final long startedNanos = System.nanoTime();
+        private final AtomicLong rowsRead = new AtomicLong();
+        private final AtomicLong rowsRejected = new AtomicLong();
+        private volatile String stage = "copy";
+
+        Progress(String entity) {
+            this.entity = entity;
+        }
+
+        ImportResultDTO toDto(long imported, List<BulkItemResultDTO> rejected) {
+            double seconds = Math.max(Duration.ofNanos(System.nanoTime() - startedNanos).toMillis(), 1) / 1000.0;
+            return new ImportResultDTO(id, entity, stage, startedAt, rowsRead.get(), imported, rowsRejected.get(),
+                    rowsRead.get() / seconds, List.copyOf(rejected));
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.olegandreevich.tms.servicies;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
+import com.github.benmanes.caffeine.cache.stats.StatsCounter;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/** * Кэш Caffeine, загружающий отсутствующие значения вне Cache.get(key, mappingFunction). Тот вызывает загрузчик
+ * внутри ConcurrentHashMap.compute под synchronized-блокировкой корзины, и виртуальный поток, читающий БД
+ * в загрузчике, закрепляется на несущем потоке на все время запроса и ожидания соединения, как и потоки,
+ * попавшие в ту же корзину. Здесь загрузку одного ключа по-прежнему выполняет один поток, а остальные ждут
+ * ее на ReentrantLock, который закрепления не вызывает. Ключи делят {@link #STRIPES} блокировок.
+ * <p>
+ * Сброс ключа во время загрузки не оставляет в кэше значение, прочитанное до сброса: загрузка убирает свое
+ * значение, если с ее начала были сброшены ключи той же блокировки.
+ * Статистика (попадания, промахи, время загрузки) ведется как у Cache.get. */
+final class StripedLoadingCache<K, V> {
+
+    static final int STRIPES = 64;
+
+    private final StatsCounter statsCounter = new ConcurrentStatsCounter();
+    private final Cache<K, V> cache;
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+    private final AtomicLongArray invalidations = new AtomicLongArray(STRIPES);
+    private final AtomicLong fullInvalidations = new AtomicLong();
+
+    StripedLoadingCache(Duration ttl, long maxSize) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .recordStats(() -> statsCounter)
+                .build();
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /** * Кэш Caffeine для метрик. Изменять его нужно через методы этого класса. */
+    Cache<K, V> cache() {
+        return cache;
+    }
+
+    /** * Возвращает значение из кэша или загружает его. *
+     * @param key Ключ.
+     * @param loader Загрузчик, возвращающий null, если значения нет (null не кэшируется).
+     * @return Значение или null. */
+    V get(K key, Function<? super K, ? extends V> loader) {
+        V value = cache.getIfPresent(key);
+        if (value != null) {
+            return value;
+        }
+        int stripe = stripe(key);
+        ReentrantLock lock = locks[stripe];
+        lock.lock();
+        try {
+            // Значение мог загрузить поток, пока этот ждал блокировку; asMap() не меняет статистику
+            value = cache.asMap().get(key);
+            if (value != null) {
+                return value;
+            }
+            long invalidatedBefore = invalidations.get(stripe);
+            long fullInvalidatedBefore = fullInvalidations.get();
+            long start = System.nanoTime();
+            try {
+                value = loader.apply(key);
+            } catch (RuntimeException | Error e) {
+                statsCounter.recordLoadFailure(System.nanoTime() - start);
+                throw e;
+            }
+            if (value == null) {
+                statsCounter.recordLoadFailure(System.nanoTime() - start);
+                return null;
+            }
+            statsCounter.recordLoadSuccess(System.nanoTime() - start);
+            cache.put(key, value);
+            // Сброс сначала увеличивает счетчик, затем удаляет ключ: если он начался до этой проверки,
+            // значение убирает загрузка, иначе - сам сброс
+            if (invalidations.get(stripe) != invalidatedBefore || fullInvalidations.get() != fullInvalidatedBefore) {
+                cache.asMap().remove(key, value);
+            }
+            return value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void invalidate(K key) {
+        invalidations.incrementAndGet(stripe(key));
+        cache.invalidate(key);
+    }
+
+    void invalidateAll(Collection<? extends K> keys) {
+        keys.forEach(key -> invalidations.incrementAndGet(stripe(key)));
+        cache.invalidateAll(keys);
+    }
+
+    void invalidateAll() {
+        fullInvalidations.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    private static int stripe(Object key) {
+        int hash = key.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), STRIPES);
+    }
+}
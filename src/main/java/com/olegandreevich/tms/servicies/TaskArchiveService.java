@@ -0,0 +1,275 @@
+package com.olegandreevich.tms.servicies;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Перенос давно завершенных задач в архивную секцию (миграция V1_0_7). * Задачи переносятся пачками по
+ * batchSize, каждая пачка в отдельной короткой транзакции: блокируются только строки пачки, а строки,
+ * заблокированные пользователями, пропускаются (SKIP LOCKED) до следующего запуска. Комментарии переносятся
+ * вместе с задачей. Несколько узлов могут запускать архиватор одновременно.
+ */
+@Service
+public class TaskArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskArchiveService.class);
+
+    // Перенос между секциями - это изменение ключа секционирования: Postgres удаляет строку из горячей секции
+    // и вставляет в архивную. Возвращаются автор и исполнитель для сброса кэша их списков задач.
+    private static final String ARCHIVE_TASKS_SQL = """
+            with batch as (
+                select id from tasks
+                where not archived and status = 'COMPLETED' and created_at < ?
+                order by created_at
+                limit ?
+                for update skip locked
+            )
+            update tasks t set archived = true
+            from batch
+            where t.id = batch.id and not t.archived
+            returning t.id, t.author_id, t.assignee_id
+            """;
+
+    private static final String ARCHIVE_COMMENTS_SQL = """
+            update comments c set archived = true
+            where not c.archived and c.task_id = any (?)
+            """;
+
+    // Комментарии, добавленные к задаче уже после ее переноса в архив
+    private static final String ARCHIVE_LATE_COMMENTS_SQL = """
+            update comments c set archived = true
+            where c.id in (
+                select c2.id from comments c2 join tasks t on t.id = c2.task_id
+                where not c2.archived and t.archived
+                limit ?
+            ) and not c.archived
+            """;
+
+    private static final String RESTORE_TASK_SQL = "update tasks set archived = false where id = ? and archived";
+    private static final String RESTORE_COMMENTS_SQL = "update comments set archived = false where task_id = ? and archived";
+
+    private static final String CREATE_PARTITION_SQL = "create table if not exists %1$s_archive_%2$d " +
+            "partition of %1$s_archive for values from ('%2$d-01-01') to ('%3$d-01-01')";
+
+    // Таблицы в порядке переноса: комментарии проверяют существование задачи триггером
+    private static final List<String> ARCHIVED_TABLES = List.of("tasks", "comments");
+
+    private static final String ARCHIVE_PARTITIONS_SQL = """
+            select c.relname from pg_inherits i join pg_class c on c.oid = i.inhrelid
+            where i.inhparent = ?::regclass
+            """;
+
+    // Использует частичный индекс idx_tasks_hot_completed_created
+    private static final String FIRST_CANDIDATE_YEAR_SQL = """
+            select extract(year from min(created_at))::int from tasks_hot
+            where status = 'COMPLETED' and created_at < ?
+            """;
+
+    private static final String DEFAULT_YEARS_SQL =
+            "select distinct extract(year from created_at)::int from %s_archive_default";
+
+    private static final String DEFAULT_HAS_ROWS_SQL = "select exists (select 1 from %1$s_archive_default " +
+            "where created_at >= '%2$d-01-01' and created_at < '%3$d-01-01')";
+
+    // Вычисляемый search_vector нельзя вставить явно, поэтому переносятся только обычные столбцы
+    private static final String COLUMNS_SQL = """
+            select string_agg(quote_ident(column_name), ', ' order by ordinal_position)
+            from information_schema.columns
+            where table_schema = current_schema() and table_name = ? and is_generated = 'NEVER'
+            """;
+
+    private static final String MOVE_FROM_DEFAULT_SQL = "insert into %1$s_archive_%2$d (%4$s) " +
+            "select %4$s from %1$s_archive_default where created_at >= '%2$d-01-01' and created_at < '%3$d-01-01'";
+
+    private static final String DELETE_FROM_DEFAULT_SQL = "delete from %1$s_archive_default " +
+            "where created_at >= '%2$d-01-01' and created_at < '%3$d-01-01'";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskReadCache taskReadCache;
+    private final Clock clock;
+    private final boolean enabled;
+    private final Duration archiveAfter;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+
+    @Autowired
+    public TaskArchiveService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                              TaskReadCache taskReadCache,
+                              @Value("${app.archive.enabled:true}") boolean enabled,
+                              @Value("${app.archive.after:30d}") Duration archiveAfter,
+                              @Value("${app.archive.batchSize:500}") int batchSize,
+                              @Value("${app.archive.maxBatchesPerRun:200}") int maxBatchesPerRun) {
+        this(jdbcTemplate, new TransactionTemplate(transactionManager), taskReadCache, Clock.systemDefaultZone(),
+                enabled, archiveAfter, batchSize, maxBatchesPerRun);
+    }
+
+    TaskArchiveService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                       TaskReadCache taskReadCache, Clock clock, boolean enabled, Duration archiveAfter,
+                       int batchSize, int maxBatchesPerRun) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.taskReadCache = taskReadCache;
+        this.clock = clock;
+        this.enabled = enabled;
+        this.archiveAfter = archiveAfter;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+    }
+
+    /** * Плановый запуск. Ограничение числа пачек не дает одному запуску работать слишком долго. */
+    @Scheduled(initialDelayString = "${app.archive.initialDelay:1m}", fixedDelayString = "${app.archive.interval:10m}")
+    public void scheduledRun() {
+        if (!enabled) {
+            return;
+        }
+        // Остальные ошибки, в том числе при создании секций, не перехватываются и попадают в журнал
+        // планировщика как ERROR со стеком: сами по себе они не исчезнут
+        try {
+            int archived = archiveCompleted();
+            if (archived > 0) {
+                log.info("Перенесено в архив задач: {}", archived);
+            }
+        } catch (TransientDataAccessException e) {
+            log.warn("Архивация задач прервана, продолжится при следующем запуске: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Переносит в архив задачи в статусе COMPLETED, созданные раньше чем archiveAfter назад. *
+     *
+     * @return Количество перенесенных задач.
+     */
+    public int archiveCompleted() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        Timestamp threshold = Timestamp.valueOf(now.minus(archiveAfter));
+        // Секции нужны для всех лет, за которые будут перенесены задачи, иначе строки попадут в секцию default
+        Integer firstYear = jdbcTemplate.queryForObject(FIRST_CANDIDATE_YEAR_SQL, Integer.class, threshold);
+        ensureArchivePartitions(firstYear == null ? now.getYear() : Math.min(firstYear, now.getYear()),
+                now.getYear() + 1);
+
+        int total = 0;
+        for (int i = 0; i < maxBatchesPerRun; i++) {
+            Integer moved = transactionTemplate.execute(status -> archiveBatch(threshold));
+            total += moved;
+            if (moved < batchSize) {
+                break;
+            }
+        }
+        for (int i = 0; i < maxBatchesPerRun; i++) {
+            Integer moved = transactionTemplate.execute(status ->
+                    jdbcTemplate.update(ARCHIVE_LATE_COMMENTS_SQL, batchSize));
+            if (moved < batchSize) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    private int archiveBatch(Timestamp threshold) {
+        List<Long> ids = new ArrayList<>();
+        List<Long> authorIds = new ArrayList<>();
+        List<Long> assigneeIds = new ArrayList<>();
+        jdbcTemplate.query(ARCHIVE_TASKS_SQL, rs -> {
+            ids.add(rs.getLong("id"));
+            authorIds.add(rs.getObject("author_id", Long.class));
+            assigneeIds.add(rs.getObject("assignee_id", Long.class));
+        }, threshold, batchSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.update(ARCHIVE_COMMENTS_SQL, (Object) ids.toArray(new Long[0]));
+        // Списки задач автора и исполнителя показывают только горячие задачи
+        taskReadCache.evictTasks(ids, authorIds, assigneeIds);
+        return ids.size();
+    }
+
+    /**
+     * Возвращает задачу и ее комментарии из архива в горячую секцию. Вызывается перед изменением статуса
+     * архивной задачи: в архиве могут находиться только завершенные задачи. *
+     *
+     * @param taskId ID задачи.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void restore(Long taskId) {
+        jdbcTemplate.update(RESTORE_TASK_SQL, taskId);
+        jdbcTemplate.update(RESTORE_COMMENTS_SQL, taskId);
+    }
+
+    /**
+     * Создает годовые секции архива с firstYear по lastYear, а также для всех лет, строки которых уже лежат
+     * в секции default (например, комментарии, добавленные к архивной задаче другого года). *
+     *
+     * @throws IllegalStateException если секцию создать не удалось.
+     */
+    void ensureArchivePartitions(int firstYear, int lastYear) {
+        for (String table : ARCHIVED_TABLES) {
+            Set<String> existing = new HashSet<>(jdbcTemplate.queryForList(ARCHIVE_PARTITIONS_SQL, String.class,
+                    table + "_archive"));
+            SortedSet<Integer> years = new TreeSet<>(jdbcTemplate.queryForList(DEFAULT_YEARS_SQL.formatted(table),
+                    Integer.class));
+            for (int year = firstYear; year <= lastYear; year++) {
+                years.add(year);
+            }
+            for (int year : years) {
+                if (!existing.contains(table + "_archive_" + year)) {
+                    createPartition(table, year);
+                }
+            }
+        }
+    }
+
+    /**
+     * Создает секцию архива за год. Postgres не создает секцию, если подходящие ей строки уже лежат в секции
+     * default, поэтому такие строки переносятся: default отсоединяется, создается секция, строки переносятся
+     * в нее и default присоединяется обратно. Все выполняется в одной транзакции под блокировкой архива.
+     */
+    private void createPartition(String table, int year) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // Ожидание блокировки ограничено, чтобы не задерживать чтение архива за долгими транзакциями
+                jdbcTemplate.execute("set local lock_timeout = '5s'");
+                jdbcTemplate.execute("lock table %s_archive in access exclusive mode".formatted(table));
+                Boolean misplaced = jdbcTemplate.queryForObject(DEFAULT_HAS_ROWS_SQL.formatted(table, year,
+                        year + 1), Boolean.class);
+                if (!Boolean.TRUE.equals(misplaced)) {
+                    jdbcTemplate.execute(CREATE_PARTITION_SQL.formatted(table, year, year + 1));
+                    return;
+                }
+                String columns = jdbcTemplate.queryForObject(COLUMNS_SQL, String.class, table + "_archive_default");
+                jdbcTemplate.execute("alter table %1$s_archive detach partition %1$s_archive_default"
+                        .formatted(table));
+                jdbcTemplate.execute(CREATE_PARTITION_SQL.formatted(table, year, year + 1));
+                int moved = jdbcTemplate.update(MOVE_FROM_DEFAULT_SQL.formatted(table, year, year + 1, columns));
+                jdbcTemplate.update(DELETE_FROM_DEFAULT_SQL.formatted(table, year, year + 1));
+                jdbcTemplate.execute("alter table %1$s_archive attach partition %1$s_archive_default default"
+                        .formatted(table));
+                log.info("Строки {} за {} год перенесены из секции default в новую секцию: {}", table, year, moved);
+            });
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("Не удалось создать секцию архива " + table + "_archive_" + year
+                    + ", архивация остановлена", e);
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package com.olegandreevich.tms.servicies;
+
+import com.olegandreevich.tms.dto.BulkItemResultDTO;
+import com.olegandreevich.tms.dto.TaskDTO;
+import com.olegandreevich.tms.dto.TaskDTOGet;
+import com.olegandreevich.tms.entities.Task;
+import com.olegandreevich.tms.entities.enums.Status;
+import com.olegandreevich.tms.events.ChangeType;
+import com.olegandreevich.tms.events.TaskChangedEvent;
+import com.olegandreevich.tms.mappers.TaskMapper;
+import com.olegandreevich.tms.repositories.CommentRepository;
+import com.olegandreevich.tms.repositories.TaskRepository;
+import com.olegandreevich.tms.repositories.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Сервис массового создания, обновления и удаления задач. * Элементы обрабатываются пачками в одной транзакции:
+ * вставки и обновления группируются в JDBC batch, ссылки на пользователей и задачи проверяются одним запросом
+ * на пачку, а результат возвращается отдельно для каждого элемента.
+ */
+@Service
+public class TaskBulkService {
+
+    /** * Размер пачки, совпадает с hibernate.jdbc.batch_size и allocationSize последовательностей. */
+    public static final int CHUNK_SIZE = 50;
+
+    /** * Максимальное количество элементов в одном запросе. */
+    public static final int MAX_ITEMS = 10_000;
+
+    private final TaskRepository taskRepository;
+    private final UserRepository userRepository;
+    private final CommentRepository commentRepository;
+    private final TaskMapper taskMapper;
+    private final UserCheckService userCheckService;
+    private final Validator validator;
+    private final TaskReadCache taskReadCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ChangeLogService changeLogService;
+    private final TaskArchiveService taskArchiveService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public TaskBulkService(TaskRepository taskRepository, UserRepository userRepository,
+                           CommentRepository commentRepository, TaskMapper taskMapper,
+                           UserCheckService userCheckService, Validator validator, TaskReadCache taskReadCache,
+                           ApplicationEventPublisher eventPublisher, ChangeLogService changeLogService,
+                           TaskArchiveService taskArchiveService) {
+        this.taskRepository = taskRepository;
+        this.userRepository = userRepository;
+        this.commentRepository = commentRepository;
+        this.taskMapper = taskMapper;
+        this.userCheckService = userCheckService;
+        this.validator = validator;
+        this.taskReadCache = taskReadCache;
+        this.eventPublisher = eventPublisher;
+        this.changeLogService = changeLogService;
+        this.taskArchiveService = taskArchiveService;
+    }
+
+    /**
+     * Создает задачи. *
+     *
+     * @param taskDTOs DTO задач для создания.
+     * @return Результат по каждому элементу: 201 и ID созданной задачи либо код и текст ошибки.
+     * @throws AccessDeniedException    если у пользователя нет прав администратора.
+     * @throws IllegalArgumentException если элементов больше {@link #MAX_ITEMS}.
+     */
+    @Transactional
+    public List<BulkItemResultDTO> createTasks(List<TaskDTO> taskDTOs) {
+        checkRequest(taskDTOs);
+
+        // Одна проверка существования всех авторов и исполнителей вместо двух SELECT на задачу
+        Set<Long> userIds = new HashSet<>();
+        for (TaskDTO dto : taskDTOs) {
+            userIds.add(dto.getAuthorId());
+            userIds.add(dto.getAssigneeId());
+        }
+        userIds.remove(null);
+        Set<Long> existingUserIds = userIds.isEmpty() ? Set.of() : userRepository.findExistingIds(userIds);
+
+        List<BulkItemResultDTO> results = new ArrayList<>(taskDTOs.size());
+        List<Long> createdIds = new ArrayList<>();
+        Set<Long> authorIds = new HashSet<>();
+        Set<Long> assigneeIds = new HashSet<>();
+        List<ChangeLogService.Entry> changes = new ArrayList<>();
+        int pending = 0;
+        for (int i = 0; i < taskDTOs.size(); i++) {
+            TaskDTO dto = taskDTOs.get(i);
+            String error = validate(dto.getTitle(), dto.getDescription(), dto.getStatus() != null,
+                    dto.getPriority() != null);
+            if (error != null) {
+                results.add(new BulkItemResultDTO(i, null, HttpStatus.BAD_REQUEST.value(), error));
+                continue;
+            }
+            if (dto.getAuthorId() == null || !existingUserIds.contains(dto.getAuthorId())) {
+                results.add(new BulkItemResultDTO(i, null, HttpStatus.NOT_FOUND.value(), "Author not found"));
+                continue;
+            }
+            if (dto.getAssigneeId() == null || !existingUserIds.contains(dto.getAssigneeId())) {
+                results.add(new BulkItemResultDTO(i, null, HttpStatus.NOT_FOUND.value(), "Assignee not found"));
+                continue;
+            }
+
+            Task task = taskMapper.toEntity(dto);
+            task.setAuthor(userRepository.getReferenceById(dto.getAuthorId()));
+            task.setAssignee(userRepository.getReferenceById(dto.getAssigneeId()));
+            entityManager.persist(task); // ID выделяется из пула последовательности без обращения к БД
+
+            results.add(new BulkItemResultDTO(i, task.getId(), HttpStatus.CREATED.value(), null));
+            createdIds.add(task.getId());
+            authorIds.add(dto.getAuthorId());
+            assigneeIds.add(dto.getAssigneeId());
+            changes.add(ChangeLogService.Entry.task(task.getId(), ChangeType.CREATED, taskMapper.toDto(task)));
+            eventPublisher.publishEvent(new TaskChangedEvent(task.getId(), dto.getAuthorId(), dto.getAssigneeId(),
+                    ChangeType.CREATED));
+            if (++pending == CHUNK_SIZE) {
+                flushChunk(changes);
+                pending = 0;
+            }
+        }
+        flushChunk(changes);
+        taskReadCache.evictTasks(createdIds, authorIds, assigneeIds);
+        return results;
+    }
+
+    /**
+     * Обновляет задачи. Изменяются те же поля, что и при обновлении одной задачи администратором. *
+     * Как и If-Match при обновлении одной задачи, каждый элемент должен содержать версию задачи,
+     * которую видел клиент: элемент без версии отклоняется с кодом 428, с устаревшей версией - с кодом 412.
+     *
+     * @param taskDTOs DTO задач с ID, версией и новыми данными.
+     * @return Результат по каждому элементу: 200 и новая версия задачи либо код и текст ошибки.
+     * @throws AccessDeniedException    если у пользователя нет прав администратора.
+     * @throws IllegalArgumentException если элементов больше {@link #MAX_ITEMS}.
+     */
+    @Transactional
+    public List<BulkItemResultDTO> updateTasks(List<TaskDTOGet> taskDTOs) {
+        checkRequest(taskDTOs);
+
+        List<BulkItemResultDTO> results = new ArrayList<>(taskDTOs.size());
+        List<Long> updatedIds = new ArrayList<>();
+        Set<Long> authorIds = new HashSet<>();
+        Set<Long> assigneeIds = new HashSet<>();
+        List<ChangeLogService.Entry> changes = new ArrayList<>();
+        for (int from = 0; from < taskDTOs.size(); from += CHUNK_SIZE) {
+            List<TaskDTOGet> chunk = taskDTOs.subList(from, Math.min(from + CHUNK_SIZE, taskDTOs.size()));
+            // Все задачи пачки загружаются одним запросом
+            Map<Long, Task> tasks = taskRepository.findAllById(chunk.stream()
+                            .map(TaskDTOGet::getId)
+                            .filter(Objects::nonNull)
+                            .collect(Collectors.toSet()))
+                    .stream()
+                    .collect(Collectors.toMap(Task::getId, Function.identity()));
+
+            List<Task> updated = new ArrayList<>();
+            List<BulkItemResultDTO> updatedResults = new ArrayList<>();
+            for (int i = 0; i < chunk.size(); i++) {
+                int index = from + i;
+                TaskDTOGet dto = chunk.get(i);
+                if (dto.getId() == null) {
+                    results.add(new BulkItemResultDTO(index, null, HttpStatus.BAD_REQUEST.value(),
+                            "Не указан ID задачи."));
+                    continue;
+                }
+                Task task = tasks.get(dto.getId());
+                if (task == null) {
+                    results.add(new BulkItemResultDTO(index, dto.getId(), HttpStatus.NOT_FOUND.value(),
+                            "Task not found with id: " + dto.getId()));
+                    continue;
+                }
+                if (dto.getVersion() == null) {
+                    results.add(new BulkItemResultDTO(index, dto.getId(), HttpStatus.PRECONDITION_REQUIRED.value(),
+                            "Не указана версия задачи."));
+                    continue;
+                }
+                // Изменение, зафиксированное после загрузки пачки, обнаружит Hibernate по версии в UPDATE
+                if (!dto.getVersion().equals(task.getVersion())) {
+                    results.add(new BulkItemResultDTO(index, dto.getId(), HttpStatus.PRECONDITION_FAILED.value(),
+                            "Задача изменена другим пользователем. Получите ее заново и повторите изменение."));
+                    continue;
+                }
+                String error = validate(dto.getTitle(), dto.getDescription(), dto.getStatus() != null,
+                        dto.getPriority() != null);
+                if (error != null) {
+                    results.add(new BulkItemResultDTO(index, dto.getId(), HttpStatus.BAD_REQUEST.value(), error));
+                    continue;
+                }
+
+                // Как и при обновлении одной задачи, переоткрытая архивная задача сначала возвращается
+                // в горячую секцию, иначе запись нарушит ограничение chk_tasks_archived_completed
+                if (task.isArchived() && dto.getStatus() != Status.COMPLETED) {
+                    taskArchiveService.restore(task.getId());
+                }
+                task.setTitle(dto.getTitle());
+                task.setDescription(dto.getDescription());
+                task.setStatus(dto.getStatus());
+                task.setPriority(dto.getPriority());
+                BulkItemResultDTO result = new BulkItemResultDTO(index, dto.getId(), HttpStatus.OK.value(), null);
+                results.add(result);
+                updated.add(task);
+                updatedResults.add(result);
+                updatedIds.add(task.getId());
+                authorIds.add(task.getAuthor().getId());
+                assigneeIds.add(task.getAssignee().getId());
+                eventPublisher.publishEvent(new TaskChangedEvent(task.getId(), task.getAuthor().getId(),
+                        task.getAssignee().getId(), ChangeType.UPDATED));
+            }
+            // Версия увеличивается при записи: как и при обновлении одной задачи, журнал изменений и результат
+            // получают состояние задачи после записи
+            entityManager.flush();
+            for (int i = 0; i < updated.size(); i++) {
+                Task task = updated.get(i);
+                updatedResults.get(i).setVersion(task.getVersion());
+                changes.add(ChangeLogService.Entry.task(task.getId(), ChangeType.UPDATED, taskMapper.toDto(task)));
+            }
+            flushChunk(changes);
+        }
+        taskReadCache.evictTasks(updatedIds, authorIds, assigneeIds);
+        return results;
+    }
+
+    /**
+     * Удаляет задачи вместе с их комментариями. *
+     *
+     * @param ids ID задач для удаления.
+     * @return Результат по каждому элементу: 204 либо 404, если задача не найдена.
+     * @throws AccessDeniedException    если у пользователя нет прав администратора.
+     * @throws IllegalArgumentException если элементов больше {@link #MAX_ITEMS}.
+     */
+    @Transactional
+    public List<BulkItemResultDTO> deleteTasks(List<Long> ids) {
+        checkRequest(ids);
+
+        List<BulkItemResultDTO> results = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + CHUNK_SIZE, ids.size()));
+            Set<Long> requested = chunk.stream().filter(Objects::nonNull).collect(Collectors.toSet());
+            // Задачи загружаются, чтобы сбросить в кэше списки их авторов и исполнителей
+            List<Task> found = requested.isEmpty() ? List.of() : taskRepository.findAllById(requested);
+            Set<Long> existing = found.stream().map(Task::getId).collect(Collectors.toSet());
+            if (!existing.isEmpty()) {
+                commentRepository.deleteByTaskIds(existing);
+                taskRepository.deleteAllByIdInBatch(existing);
+                changeLogService.recordAll(existing.stream()
+                        .map(id -> ChangeLogService.Entry.task(id, ChangeType.DELETED, null))
+                        .toList());
+                taskReadCache.evictTasks(existing,
+                        found.stream().map(task -> task.getAuthor().getId()).collect(Collectors.toSet()),
+                        found.stream().map(task -> task.getAssignee().getId()).collect(Collectors.toSet()));
+                found.forEach(task -> eventPublisher.publishEvent(new TaskChangedEvent(task.getId(),
+                        task.getAuthor().getId(), task.getAssignee().getId(), ChangeType.DELETED)));
+            }
+
+            Set<Long> deleted = new HashSet<>();
+            for (int i = 0; i < chunk.size(); i++) {
+                Long id = chunk.get(i);
+                if (id != null && existing.contains(id) && deleted.add(id)) {
+                    results.add(new BulkItemResultDTO(from + i, id, HttpStatus.NO_CONTENT.value(), null));
+                } else {
+                    results.add(new BulkItemResultDTO(from + i, id, HttpStatus.NOT_FOUND.value(),
+                            "Task not found with id: " + id));
+                }
+            }
+        }
+        return results;
+    }
+
+    /** * Проверяет права администратора и размер запроса. */
+    private void checkRequest(List<?> items) {
+        if (!userCheckService.isAdmin()) {
+            throw new AccessDeniedException("У вас нет прав для массовых операций с задачами.");
+        }
+        if (items.size() > MAX_ITEMS) {
+            throw new IllegalArgumentException("Слишком много элементов в запросе, максимум " + MAX_ITEMS + ".");
+        }
+    }
+
+    /** * Проверяет поля задачи по ограничениям сущности {@link Task}, чтобы ошибка одного элемента
+     * не прерывала всю транзакцию при сбросе пачки. *
+     * @return Текст ошибки или null, если поля корректны. */
+    private String validate(String title, String description, boolean hasStatus, boolean hasPriority) {
+        Set<ConstraintViolation<Task>> violations = new HashSet<>();
+        violations.addAll(validator.validateValue(Task.class, "title", title));
+        violations.addAll(validator.validateValue(Task.class, "description", description));
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining(" "));
+        }
+        if (!hasStatus) {
+            return "Не указан статус задачи.";
+        }
+        if (!hasPriority) {
+            return "Не указан приоритет задачи.";
+        }
+        return null;
+    }
+
+    /** * Отправляет накопленные изменения и записи журнала изменений одной пачкой
+     * и очищает контекст персистентности. */
+    private void flushChunk(List<ChangeLogService.Entry> changes) {
+        entityManager.flush();
+        entityManager.clear();
+        changeLogService.recordAll(List.copyOf(changes));
+        changes.clear();
+    }
+}
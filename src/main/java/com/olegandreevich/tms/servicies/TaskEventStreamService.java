@@ -0,0 +1,276 @@
+package com.olegandreevich.tms.servicies;
+
+import com.olegandreevich.tms.dto.TaskDTO;
+import com.olegandreevich.tms.dto.TaskEventDTO;
+import com.olegandreevich.tms.events.CommentChangedEvent;
+import com.olegandreevich.tms.events.TaskChangedEvent;
+import com.olegandreevich.tms.mappers.TaskMapper;
+import com.olegandreevich.tms.repositories.TaskRepository;
+import com.olegandreevich.tms.util.exceptions.ServiceOverloadedException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** * Поток изменений задач и комментариев через Server-Sent Events. Пользователь получает события задач,
+ * автором или исполнителем которых он является. События поступают после коммита транзакции.
+ * <p>
+ * Каждое соединение обслуживается отдельным виртуальным потоком, который ждет событий в своей
+ * ограниченной очереди: простаивающее соединение не занимает поток платформы. Если клиент не успевает
+ * читать и очередь переполняется, соединение закрывается, а клиент переподключается с заголовком
+ * Last-Event-ID и получает пропущенные события из кольцевого буфера. Если пропущенных событий в буфере
+ * уже нет, клиенту отправляется событие reset, и он должен заново загрузить данные. */
+@Service
+public class TaskEventStreamService {
+
+    /** * Имя события изменения. */
+    static final String CHANGE_EVENT = "task-change";
+
+    /** * Имя события, после которого клиент должен заново загрузить данные. */
+    static final String RESET_EVENT = "reset";
+
+    private final UserCheckService userCheckService;
+    private final TaskReadCache taskReadCache;
+    private final TaskRepository taskRepository;
+    private final TaskMapper taskMapper;
+    private final int queueCapacity;
+    private final int replayCapacity;
+    private final int maxConnections;
+    private final Duration heartbeatInterval;
+    private final Duration connectionTimeout;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final Map<Long, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+
+    /** * Последние события для возобновления по Last-Event-ID. */
+    private final ArrayDeque<StreamEvent> replayBuffer = new ArrayDeque<>();
+
+    @Autowired
+    public TaskEventStreamService(UserCheckService userCheckService, TaskReadCache taskReadCache,
+                                  TaskRepository taskRepository, TaskMapper taskMapper,
+                                  @Value("${app.sse.queueCapacity:256}") int queueCapacity,
+                                  @Value("${app.sse.replayCapacity:4096}") int replayCapacity,
+                                  @Value("${app.sse.maxConnections:50000}") int maxConnections,
+                                  @Value("${app.sse.heartbeatInterval:15s}") Duration heartbeatInterval,
+                                  @Value("${app.sse.connectionTimeout:30m}") Duration connectionTimeout) {
+        this.userCheckService = userCheckService;
+        this.taskReadCache = taskReadCache;
+        this.taskRepository = taskRepository;
+        this.taskMapper = taskMapper;
+        this.queueCapacity = queueCapacity;
+        this.replayCapacity = replayCapacity;
+        this.maxConnections = maxConnections;
+        this.heartbeatInterval = heartbeatInterval;
+        this.connectionTimeout = connectionTimeout;
+    }
+
+    /** * Событие потока с получателями. */
+    record StreamEvent(long id, Set<Long> recipients, TaskEventDTO payload) {
+    }
+
+    /** * Подключение одного клиента. */
+    private static final class Subscription {
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<StreamEvent> queue;
+        private final AtomicBoolean open = new AtomicBoolean(true);
+        private volatile Future<?> pump;
+
+        private Subscription(Long userId, SseEmitter emitter, int queueCapacity) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        }
+    }
+
+    /** * Открывает поток событий для текущего пользователя. *
+     * @param lastEventId ID последнего полученного события или null для нового подключения.
+     * @return SSE-соединение.
+     * @throws ServiceOverloadedException если достигнуто максимальное количество соединений. */
+    public SseEmitter subscribe(Long lastEventId) {
+        Long userId = userCheckService.getCurrentUserId();
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            throw new ServiceOverloadedException("Слишком много подключений к потоку событий, повторите попытку позже.");
+        }
+
+        SseEmitter emitter = newEmitter();
+        Subscription subscription = new Subscription(userId, emitter, queueCapacity);
+        emitter.onCompletion(() -> close(subscription));
+        emitter.onTimeout(() -> close(subscription));
+        emitter.onError(error -> close(subscription));
+
+        // Сначала подписка, затем снимок буфера: событие попадет в очередь, в снимок или в оба
+        subscriptions.computeIfAbsent(userId, key -> ConcurrentHashMap.newKeySet()).add(subscription);
+        List<StreamEvent> missed = lastEventId == null ? List.of() : replaySince(userId, lastEventId);
+
+        subscription.pump = executor.submit(() -> pump(subscription, missed));
+        return emitter;
+    }
+
+    SseEmitter newEmitter() {
+        return new SseEmitter(connectionTimeout.toMillis());
+    }
+
+    /** * События для пользователя после lastEventId или null, если часть из них уже вытеснена из буфера. */
+    List<StreamEvent> replaySince(Long userId, long lastEventId) {
+        synchronized (replayBuffer) {
+            StreamEvent oldest = replayBuffer.peekFirst();
+            long oldestId = oldest != null ? oldest.id() : sequence.get() + 1;
+            if (lastEventId > sequence.get() || lastEventId < oldestId - 1) {
+                return null;
+            }
+            List<StreamEvent> missed = new ArrayList<>();
+            for (StreamEvent event : replayBuffer) {
+                if (event.id() > lastEventId && event.recipients().contains(userId)) {
+                    missed.add(event);
+                }
+            }
+            return missed;
+        }
+    }
+
+    /** * Отправляет события клиенту, пока соединение открыто; при простое отправляет heartbeat. */
+    private void pump(Subscription subscription, List<StreamEvent> missed) {
+        // Очередь упорядочена по ID; события из нее, уже отправленные из снимка буфера, пропускаются
+        long replayedUpTo = missed == null || missed.isEmpty() ? 0 : missed.get(missed.size() - 1).id();
+        try {
+            if (missed == null) {
+                subscription.emitter.send(SseEmitter.event()
+                        .id(String.valueOf(sequence.get()))
+                        .name(RESET_EVENT)
+                        .data(""));
+            } else {
+                for (StreamEvent event : missed) {
+                    send(subscription, event);
+                }
+            }
+            while (subscription.open.get()) {
+                StreamEvent event = subscription.queue.poll(heartbeatInterval.toMillis(), TimeUnit.MILLISECONDS);
+                if (event == null) {
+                    subscription.emitter.send(SseEmitter.event().comment("heartbeat"));
+                } else if (event.id() > replayedUpTo) {
+                    send(subscription, event);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | IllegalStateException e) {
+            // Клиент отключился или соединение уже завершено
+            close(subscription);
+        }
+    }
+
+    private void send(Subscription subscription, StreamEvent event) throws IOException {
+        subscription.emitter.send(SseEmitter.event()
+                .id(String.valueOf(event.id()))
+                .name(CHANGE_EVENT)
+                .data(event.payload(), MediaType.APPLICATION_JSON));
+    }
+
+    private void close(Subscription subscription) {
+        if (!subscription.open.compareAndSet(true, false)) {
+            return;
+        }
+        connections.decrementAndGet();
+        subscriptions.computeIfPresent(subscription.userId, (key, set) -> {
+            set.remove(subscription);
+            return set.isEmpty() ? null : set;
+        });
+        Future<?> pump = subscription.pump;
+        if (pump != null) {
+            pump.cancel(true);
+        }
+        subscription.emitter.complete();
+    }
+
+    /** * Рассылает изменение задачи ее автору и исполнителю. */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTaskChanged(TaskChangedEvent event) {
+        publish(recipients(event.authorId(), event.assigneeId()),
+                new TaskEventDTO("task", event.type(), event.taskId(), null));
+    }
+
+    /** * Рассылает изменение комментария автору и исполнителю задачи. */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCommentChanged(CommentChangedEvent event) {
+        TaskDTO task = taskReadCache.getTask(event.taskId(), id -> taskRepository.findById(id)
+                .map(taskMapper::toDto)
+                .orElse(null));
+        if (task == null) {
+            return;
+        }
+        publish(recipients(task.getAuthorId(), task.getAssigneeId()),
+                new TaskEventDTO("comment", event.type(), event.taskId(), event.commentId()));
+    }
+
+    private static Set<Long> recipients(Long authorId, Long assigneeId) {
+        Set<Long> recipients = new HashSet<>();
+        if (authorId != null) {
+            recipients.add(authorId);
+        }
+        if (assigneeId != null) {
+            recipients.add(assigneeId);
+        }
+        return recipients;
+    }
+
+    /** * Сохраняет событие в буфер и ставит его в очереди подключений получателей. */
+    void publish(Set<Long> recipients, TaskEventDTO payload) {
+        List<Subscription> overflowed = new ArrayList<>();
+        synchronized (replayBuffer) {
+            // ID выдается и событие ставится в очереди под одной блокировкой, чтобы буфер и очереди
+            // оставались упорядоченными по ID
+            StreamEvent event = new StreamEvent(sequence.incrementAndGet(), Set.copyOf(recipients), payload);
+            replayBuffer.addLast(event);
+            if (replayBuffer.size() > replayCapacity) {
+                replayBuffer.removeFirst();
+            }
+            for (Long userId : event.recipients()) {
+                for (Subscription subscription : subscriptions.getOrDefault(userId, Set.of())) {
+                    if (!subscription.queue.offer(event)) {
+                        overflowed.add(subscription);
+                    }
+                }
+            }
+        }
+        // Клиент не успевает читать: закрываем соединение, он продолжит с Last-Event-ID
+        overflowed.forEach(this::close);
+    }
+
+    /** * Количество открытых соединений. */
+    public int getConnectionCount() {
+        return connections.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscriptions.values().forEach(set -> List.copyOf(set).forEach(this::close));
+        executor.shutdownNow();
+    }
+}
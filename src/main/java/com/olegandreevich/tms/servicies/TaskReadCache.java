@@ -0,0 +1,146 @@
+package com.olegandreevich.tms.servicies;
+
+import com.olegandreevich.tms.configs.ReplicaDataSource;
+import com.olegandreevich.tms.dto.TaskDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/** * Кэш чтения задач: задача по ID, списки задач автора и исполнителя. Кэшируются только данные,
+ * проверка прав выполняется сервисом при каждом запросе. Загрузка одного ключа выполняется одним потоком,
+ * остальные ждут ее результата, поэтому при истечении записи горячий ключ не вызывает лавину запросов к БД.
+ * Загрузка идет вне блокировок Caffeine (см. {@link StripedLoadingCache}) и не закрепляет виртуальные потоки.
+ * Сброс записей публикуется в {@link CacheInvalidationBus} для остальных узлов.
+ * Загрузчики читают основную БД, а не реплику: отстающая реплика вернула бы в кэш данные до изменения, уже
+ * сброшенные после коммита, и они жили бы до истечения ttl. Вне транзакции загрузчик открывает свою транзакцию
+ * чтения-записи, а в транзакции вызывающего метода участвует в ней и не берет второе соединение из пула.
+ * В транзакции только для чтения чтение направляется в основную БД через {@link ReplicaDataSource#requirePrimary()};
+ * это действует, только если транзакция еще не получила соединение с реплики, поэтому методы с кэшем
+ * вызываются вне транзакции. */
+@Component
+public class TaskReadCache {
+
+    static final String BY_ID = "tasks.byId";
+    static final String BY_AUTHOR = "tasks.byAuthor";
+    static final String BY_ASSIGNEE = "tasks.byAssignee";
+
+    private final StripedLoadingCache<Long, TaskDTO> tasksById;
+    private final StripedLoadingCache<Long, List<TaskDTO>> tasksByAuthor;
+    private final StripedLoadingCache<Long, List<TaskDTO>> tasksByAssignee;
+    private final CacheInvalidationBus invalidationBus;
+    private final TransactionTemplate primaryRead;
+
+    @Autowired
+    public TaskReadCache(MeterRegistry meterRegistry,
+                         @Value("${app.taskCache.ttl:30s}") Duration ttl,
+                         @Value("${app.taskCache.maxSize:10000}") long maxSize,
+                         CacheInvalidationBus invalidationBus, PlatformTransactionManager transactionManager) {
+        this.tasksById = new StripedLoadingCache<>(ttl, maxSize);
+        this.tasksByAuthor = new StripedLoadingCache<>(ttl, maxSize);
+        this.tasksByAssignee = new StripedLoadingCache<>(ttl, maxSize);
+        // Метрики cache.gets{result=hit|miss}, cache.evictions, cache.load.duration с тегом cache
+        CaffeineCacheMetrics.monitor(meterRegistry, tasksById.cache(), BY_ID);
+        CaffeineCacheMetrics.monitor(meterRegistry, tasksByAuthor.cache(), BY_AUTHOR);
+        CaffeineCacheMetrics.monitor(meterRegistry, tasksByAssignee.cache(), BY_ASSIGNEE);
+
+        this.invalidationBus = invalidationBus;
+        register(BY_ID, tasksById);
+        register(BY_AUTHOR, tasksByAuthor);
+        register(BY_ASSIGNEE, tasksByAssignee);
+
+        // Транзакция не только для чтения получает соединение с основной БД (см. ReadReplicaConfig)
+        this.primaryRead = new TransactionTemplate(transactionManager);
+    }
+
+    private void register(String name, StripedLoadingCache<Long, ?> cache) {
+        invalidationBus.register(name,
+                keys -> cache.invalidateAll(keys.stream().map(Long::valueOf).toList()),
+                cache::invalidateAll);
+    }
+
+    /** * Возвращает задачу из кэша или загружает ее. *
+     * @param id ID задачи.
+     * @param loader Загрузчик, возвращающий null, если задача не найдена (null не кэшируется).
+     * @return DTO задачи или null. */
+    public TaskDTO getTask(Long id, Function<Long, TaskDTO> loader) {
+        return tasksById.get(id, key -> loadFromPrimary(() -> loader.apply(key)));
+    }
+
+    /** * Возвращает задачи автора из кэша или загружает их. */
+    public List<TaskDTO> getByAuthor(Long authorId, Supplier<List<TaskDTO>> loader) {
+        return tasksByAuthor.get(authorId, key -> List.copyOf(loadFromPrimary(loader)));
+    }
+
+    /** * Возвращает задачи исполнителя из кэша или загружает их. */
+    public List<TaskDTO> getByAssignee(Long assigneeId, Supplier<List<TaskDTO>> loader) {
+        return tasksByAssignee.get(assigneeId, key -> List.copyOf(loadFromPrimary(loader)));
+    }
+
+    private <T> T loadFromPrimary(Supplier<T> loader) {
+        boolean routeToPrimary = TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && !ReplicaDataSource.isPrimaryRequired();
+        if (routeToPrimary) {
+            ReplicaDataSource.requirePrimary();
+        }
+        try {
+            return primaryRead.execute(status -> loader.get());
+        } finally {
+            if (routeToPrimary) {
+                ReplicaDataSource.clearPrimaryRequired();
+            }
+        }
+    }
+
+    /** * Удаляет из кэша задачу и списки ее автора и исполнителя. Если идет транзакция, удаление повторяется
+     * после коммита, чтобы параллельное чтение не вернуло в кэш данные до изменения. *
+     * @param taskId ID задачи или null для новой задачи.
+     * @param authorId ID автора задачи.
+     * @param assigneeId ID исполнителя задачи. */
+    public void evictTask(Long taskId, Long authorId, Long assigneeId) {
+        evictTasks(singletonOrEmpty(taskId), singletonOrEmpty(authorId), singletonOrEmpty(assigneeId));
+    }
+
+    private static List<Long> singletonOrEmpty(Long id) {
+        return id == null ? List.of() : List.of(id);
+    }
+
+    /** * Удаляет из кэша задачи и списки их авторов и исполнителей. */
+    public void evictTasks(Collection<Long> taskIds, Collection<Long> authorIds, Collection<Long> assigneeIds) {
+        List<Long> ids = taskIds.stream().filter(Objects::nonNull).toList();
+        List<Long> authors = authorIds.stream().filter(Objects::nonNull).toList();
+        List<Long> assignees = assigneeIds.stream().filter(Objects::nonNull).toList();
+        runNowAndAfterCommit(() -> {
+            tasksById.invalidateAll(ids);
+            tasksByAuthor.invalidateAll(authors);
+            tasksByAssignee.invalidateAll(assignees);
+        });
+        invalidationBus.publish(BY_ID, ids);
+        invalidationBus.publish(BY_AUTHOR, authors);
+        invalidationBus.publish(BY_ASSIGNEE, assignees);
+    }
+
+    private static void runNowAndAfterCommit(Runnable eviction) {
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        }
+    }
+}
@@ -1,26 +1,40 @@
 package com.olegandreevich.tms.servicies;
 
+import com.olegandreevich.tms.dto.CommentDTO;
+import com.olegandreevich.tms.dto.CursorPageDTO;
 import com.olegandreevich.tms.dto.TaskDTO;
 import com.olegandreevich.tms.dto.TaskDTOGet;
+import com.olegandreevich.tms.dto.TaskFilterDTO;
 import com.olegandreevich.tms.dto.TaskWithCommentsDTO;
 import com.olegandreevich.tms.entities.Task;
 import com.olegandreevich.tms.entities.User;
+import com.olegandreevich.tms.entities.enums.Status;
+import com.olegandreevich.tms.events.ChangeType;
+import com.olegandreevich.tms.events.TaskChangedEvent;
 import com.olegandreevich.tms.mappers.TaskMapper;
 import com.olegandreevich.tms.mappers.TaskMapperGet;
 import com.olegandreevich.tms.mappers.TaskWithCommentsMapper;
 import com.olegandreevich.tms.repositories.TaskRepository;
+import com.olegandreevich.tms.repositories.TaskSpecifications;
 import com.olegandreevich.tms.repositories.UserRepository;
+import com.olegandreevich.tms.util.CursorUtil;
+import com.olegandreevich.tms.util.exceptions.PreconditionFailedException;
 import com.olegandreevich.tms.util.exceptions.ResourceNotFoundException;
 import jakarta.persistence.EntityNotFoundException;
 import org.apache.coyote.BadRequestException;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -30,36 +44,141 @@ import java.util.stream.Collectors;
 @Service
 public class TaskService {
 
+    /** * Максимальный номер страницы в режиме OFFSET/LIMIT. Для более глубоких страниц используется курсор. */
+    public static final int MAX_OFFSET_PAGE = 20;
+
+    /** * Максимальный размер страницы задач. */
+    public static final int MAX_PAGE_SIZE = 100;
+
     private final TaskRepository taskRepository;
     private final TaskMapper taskMapper;
     private final TaskMapperGet taskMapperGet;
     private final UserRepository userRepository;
     private final UserCheckService userCheckService;
     private final TaskWithCommentsMapper taskWithCommentsMapper;
+    private final CommentService commentService;
+    private final TaskReadCache taskReadCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ChangeLogService changeLogService;
+    private final TaskArchiveService taskArchiveService;
 
     @Autowired
-    public TaskService(TaskRepository taskRepository, TaskMapper taskMapper, TaskMapperGet taskMapperGet, UserRepository userRepository, UserCheckService userCheckService, TaskWithCommentsMapper taskWithCommentsMapper, CommentService commentService) {
+    public TaskService(TaskRepository taskRepository, TaskMapper taskMapper, TaskMapperGet taskMapperGet, UserRepository userRepository, UserCheckService userCheckService, TaskWithCommentsMapper taskWithCommentsMapper, CommentService commentService, TaskReadCache taskReadCache, ApplicationEventPublisher eventPublisher, ChangeLogService changeLogService, TaskArchiveService taskArchiveService) {
         this.taskRepository = taskRepository;
         this.taskMapper = taskMapper;
         this.taskMapperGet = taskMapperGet;
         this.userRepository = userRepository;
         this.userCheckService = userCheckService;
         this.taskWithCommentsMapper = taskWithCommentsMapper;
+        this.commentService = commentService;
+        this.taskReadCache = taskReadCache;
+        this.eventPublisher = eventPublisher;
+        this.changeLogService = changeLogService;
+        this.taskArchiveService = taskArchiveService;
     }
 
     /**
      * Возвращает список задач с учетом заданных параметров пагинации и сортировки. * * @param page Номер страницы.
      *
      * @param size      Размер страницы. * @param direction Направление сортировки.
-     * @param sortField Поле для сортировки. * @return Страница объектов DTO задач.
-     * @throws AccessDeniedException если у пользователя нет прав администратора.
+     * @param sortField Поле для сортировки. * @param includeArchived Включать ли архивные задачи.
+     * @return Срез объектов DTO задач (без подсчета общего количества).
+     * @throws AccessDeniedException    если у пользователя нет прав администратора.
+     * @throws IllegalArgumentException если номер страницы больше {@link #MAX_OFFSET_PAGE}
+     *                                  или сортировка по полю не поддерживается.
+     */
+    @Transactional(readOnly = true)
+    public Slice<TaskDTOGet> getTasks(int page, int size, Sort.Direction direction, String sortField,
+                                      boolean includeArchived) {
+        if (!userCheckService.isAdmin()) {
+            throw new AccessDeniedException("У вас нет прав для получения всех задач.");
+        }
+        if (page > MAX_OFFSET_PAGE) {
+            throw new IllegalArgumentException("Для страниц дальше " + MAX_OFFSET_PAGE +
+                    " используйте постраничную навигацию по курсору (/api/tasks/scroll).");
+        }
+        TaskSortField field = TaskSortField.of(sortField);
+        PageRequest pageRequest = PageRequest.of(page, Math.min(size, MAX_PAGE_SIZE), field.sort(direction));
+        return includeArchived ? taskRepository.findAllDtosBy(pageRequest) : taskRepository.findHotDtosBy(pageRequest);
+    }
+
+    /**
+     * Возвращает страницу задач с keyset-пагинацией по (sortField, id) без запроса count(*). *
+     *
+     * @param cursor    Курсор, полученный с предыдущей страницы, или null для первой страницы.
+     * @param size      Размер страницы (не более {@link #MAX_PAGE_SIZE}).
+     * @param direction Направление сортировки.
+     * @param sortField Поле для сортировки.
+     * @param includeArchived Включать ли архивные задачи.
+     * @return Страница DTO задач с курсором следующей страницы.
+     * @throws AccessDeniedException    если у пользователя нет прав администратора.
+     * @throws IllegalArgumentException если курсор поврежден или сортировка по полю не поддерживается.
      */
-    public Page<TaskDTOGet> getTasks(int page, int size, Sort.Direction direction, String sortField) {
+    @Transactional(readOnly = true)
+    public CursorPageDTO<TaskDTOGet> scrollTasks(String cursor, int size, Sort.Direction direction, String sortField,
+                                                 boolean includeArchived) {
         if (!userCheckService.isAdmin()) {
             throw new AccessDeniedException("У вас нет прав для получения всех задач.");
         }
-        PageRequest pageRequest = PageRequest.of(page, size, direction, sortField);
-        return taskRepository.findAll(pageRequest).map(taskMapperGet::toDto);
+        return scroll(Specification.where(includeArchived ? null : TaskSpecifications.notArchived()),
+                cursor, size, direction, sortField);
+    }
+
+    /**
+     * Ищет задачи по статусу, приоритету, автору, исполнителю и диапазону даты создания. *
+     *
+     * @param filter    Условия поиска.
+     * @param cursor    Курсор, полученный с предыдущей страницы, или null для первой страницы.
+     * @param size      Размер страницы (не более {@link #MAX_PAGE_SIZE}).
+     * @param direction Направление сортировки.
+     * @param sortField Поле для сортировки.
+     * @return Страница DTO задач с курсором следующей страницы.
+     * @throws AccessDeniedException    если пользователь не администратор и в условиях не указан
+     *                                  он сам как автор или исполнитель.
+     * @throws IllegalArgumentException если курсор поврежден или сортировка по полю не поддерживается.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDTO<TaskDTOGet> searchTasks(TaskFilterDTO filter, String cursor, int size,
+                                                 Sort.Direction direction, String sortField) {
+        if (!userCheckService.isAdmin()) {
+            Long currentUserId = userCheckService.getCurrentUserId();
+            if (!currentUserId.equals(filter.getAuthorId()) && !currentUserId.equals(filter.getAssigneeId())) {
+                throw new AccessDeniedException("Доступ запрещен.");
+            }
+        }
+        return scroll(TaskSpecifications.matches(filter), cursor, size, direction, sortField);
+    }
+
+    /** * Keyset-пагинация задач, удовлетворяющих спецификации, по (sortField, id). */
+    private CursorPageDTO<TaskDTOGet> scroll(Specification<Task> filter, String cursor, int size,
+                                             Sort.Direction direction, String sortField) {
+        TaskSortField field = TaskSortField.of(sortField);
+        int limit = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+
+        Specification<Task> spec = filter;
+        if (cursor != null && !cursor.isBlank()) {
+            // В курсоре сначала id, затем значение поля: значение может содержать разделитель
+            String[] position = CursorUtil.decode(cursor, 2);
+            Long id = (Long) TaskSortField.ID.parse(position[0]);
+            spec = spec.and(TaskSpecifications.after(field.property(), direction, field.parse(position[1]), id));
+        }
+
+        // Запрашиваем на одну запись больше, чтобы узнать, есть ли следующая страница
+        List<Task> tasks = taskRepository.findBy(spec, query -> query
+                .sortBy(field.sort(direction))
+                .limit(limit + 1)
+                .all());
+
+        String nextCursor = null;
+        if (tasks.size() > limit) {
+            tasks = tasks.subList(0, limit);
+            Task last = tasks.get(limit - 1);
+            nextCursor = CursorUtil.encode(last.getId(), field.valueOf(last));
+        }
+
+        return new CursorPageDTO<>(tasks.stream()
+                .map(taskMapperGet::toDto)
+                .collect(Collectors.toList()), nextCursor);
     }
 
     /**
@@ -67,6 +186,7 @@ public class TaskService {
      *
      * @throws EntityNotFoundException если автор или исполнитель задачи не найдены.
      */
+    @Transactional
     public TaskDTO createTask(TaskDTO taskDTO) {
         User author = userRepository.findById(taskDTO.getAuthorId())
                 .orElseThrow(() -> new EntityNotFoundException("Author not found"));
@@ -78,8 +198,13 @@ public class TaskService {
         task.setAssignee(assignee);
 
         Task savedTask = taskRepository.save(task);
+        TaskDTO result = taskMapper.toDto(savedTask);
+        changeLogService.record(ChangeLogService.Entry.task(savedTask.getId(), ChangeType.CREATED, result));
+        taskReadCache.evictTask(savedTask.getId(), author.getId(), assignee.getId());
+        eventPublisher.publishEvent(new TaskChangedEvent(savedTask.getId(), author.getId(), assignee.getId(),
+                ChangeType.CREATED));
 
-        return taskMapper.toDto(savedTask);
+        return result;
     }
 
     /**
@@ -87,10 +212,14 @@ public class TaskService {
      *
      * @param id      ID задачи для обновления.
      * @param taskDTO DTO объекта задачи с новыми данными.
-     * @return DTO обновленной задачи.
+     * @param expectedVersion Версия задачи, которую видел клиент, или null, если подходит любая.
+     * @return DTO обновленной задачи с новой версией.
      * @throws ResourceNotFoundException если задача с указанным ID не найдена.
+     * @throws PreconditionFailedException если задача уже изменена после чтения клиентом.
      */
-    public TaskDTO updateTask(Long id, TaskDTO taskDTO) throws ResourceNotFoundException, BadRequestException {
+    @Transactional
+    public TaskDTO updateTask(Long id, TaskDTO taskDTO, Long expectedVersion)
+            throws ResourceNotFoundException, BadRequestException {
         Task existingTask = taskRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Task not found with id: " + id));
 
@@ -109,13 +238,30 @@ public class TaskService {
             }
         }
 
+        // Изменение, зафиксированное между этой проверкой и записью, обнаружит Hibernate по версии в UPDATE
+        if (expectedVersion != null && !expectedVersion.equals(existingTask.getVersion())) {
+            throw new PreconditionFailedException("Задача изменена другим пользователем. Получите ее заново " +
+                    "и повторите изменение.");
+        }
+
+        // В архиве хранятся только завершенные задачи: переоткрытая задача сначала возвращается в горячую секцию
+        if (existingTask.isArchived() && taskDTO.getStatus() != Status.COMPLETED) {
+            taskArchiveService.restore(id);
+        }
+
         // Обновляем задачу
         existingTask.setTitle(taskDTO.getTitle());
         existingTask.setDescription(taskDTO.getDescription());
         existingTask.setStatus(taskDTO.getStatus());
         existingTask.setPriority(taskDTO.getPriority());
-        Task updatedTask = taskRepository.save(existingTask);
-        return taskMapper.toDto(updatedTask);
+        // Версия увеличивается при записи, поэтому изменения записываются сразу, чтобы вернуть новый ETag
+        Task updatedTask = taskRepository.saveAndFlush(existingTask);
+        TaskDTO result = taskMapper.toDto(updatedTask);
+        changeLogService.record(ChangeLogService.Entry.task(id, ChangeType.UPDATED, result));
+        taskReadCache.evictTask(id, existingTask.getAuthor().getId(), existingTask.getAssignee().getId());
+        eventPublisher.publishEvent(new TaskChangedEvent(id, existingTask.getAuthor().getId(),
+                existingTask.getAssignee().getId(), ChangeType.UPDATED));
+        return result;
     }
 
     /**
@@ -124,17 +270,24 @@ public class TaskService {
      * @param id ID задачи для удаления.
      * @throws ResourceNotFoundException если задача с указанным ID не найдена.
      */
+    @Transactional
     public void deleteTask(Long id) throws ResourceNotFoundException {
         if (!userCheckService.isAdmin()) {
             throw new AccessDeniedException("У вас нет прав для удаления задачи.");
         }
-        Task existingTask = taskRepository.findById(id)
+        Task existingTask = taskRepository.findWithCommentsById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Task not found with id: " + id));
         taskRepository.delete(existingTask);
+        changeLogService.record(ChangeLogService.Entry.task(id, ChangeType.DELETED, null));
+        taskReadCache.evictTask(id, existingTask.getAuthor().getId(), existingTask.getAssignee().getId());
+        eventPublisher.publishEvent(new TaskChangedEvent(id, existingTask.getAuthor().getId(),
+                existingTask.getAssignee().getId(), ChangeType.DELETED));
     }
 
     /**
-     * Возвращает задачу по указанному ID. *
+     * Возвращает задачу по указанному ID. * Метод выполняется без транзакции, как и списки задач автора
+     * и исполнителя: при попадании в кэш соединение из пула не берется, а при промахе загрузчик кэша
+     * открывает одну транзакцию сам.
      *
      * @param id ID задачи.
      * @return DTO задачи.
@@ -142,13 +295,17 @@ public class TaskService {
      * @throws AccessDeniedException     если у пользователя нет доступа к задаче.
      */
     public TaskDTO getTaskById(Long id) throws ResourceNotFoundException {
-        Task existingTask = taskRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Task not found with id: " + id));
+        TaskDTO task = taskReadCache.getTask(id, key -> taskRepository.findById(key)
+                .map(taskMapper::toDto)
+                .orElse(null));
+        if (task == null) {
+            throw new ResourceNotFoundException("Task not found with id: " + id);
+        }
 
-        if (!userCheckService.isAssignee(existingTask.getAssignee().getId()) && !userCheckService.isAdmin()) {
+        if (!userCheckService.isAssignee(task.getAssigneeId()) && !userCheckService.isAdmin()) {
             throw new AccessDeniedException("У вас нет прав для получения этой задачи.");
         }
-        return taskMapper.toDto(existingTask);
+        return task;
     }
 
     /**
@@ -159,14 +316,12 @@ public class TaskService {
      * @throws AccessDeniedException если у пользователя нет доступа к задачам данного автора.
      */
     public List<TaskDTO> findTasksByAuthorId(Long authorId) {
-        Long currentUserId = userCheckService.getCachedUserId();
+        Long currentUserId = userCheckService.getCurrentUserId();
         if (!authorId.equals(currentUserId) && !userCheckService.isAdmin()) {
             throw new AccessDeniedException("Доступ запрещен.");
         }
 
-        return taskRepository.findByAuthor_Id(authorId).stream()
-                .map(taskMapper::toDto)
-                .collect(Collectors.toList());
+        return taskReadCache.getByAuthor(authorId, () -> taskRepository.findDtosByAuthorId(authorId));
     }
 
     /**
@@ -177,14 +332,12 @@ public class TaskService {
      * @throws AccessDeniedException если у пользователя нет доступ к задачам данного исполнителя.
      */
     public List<TaskDTO> findTasksByAssigneeId(Long assigneeId) {
-        Long currentUserId = userCheckService.getCachedUserId();
+        Long currentUserId = userCheckService.getCurrentUserId();
         if (!assigneeId.equals(currentUserId) && !userCheckService.isAdmin()) {
             throw new AccessDeniedException("Доступ запрещен.");
         }
 
-        return taskRepository.findByAssignee_Id(assigneeId).stream()
-                .map(taskMapper::toDto)
-                .collect(Collectors.toList());
+        return taskReadCache.getByAssignee(assigneeId, () -> taskRepository.findDtosByAssigneeId(assigneeId));
     }
 
     /**
@@ -194,16 +347,15 @@ public class TaskService {
      * @return Список DTO задач.
      * @throws AccessDeniedException если у пользователя нет доступ к задачам данного исполнителя.
      */
+    @Transactional(readOnly = true)
     public List<TaskWithCommentsDTO> findTasksByAssigneeIdWithComments(Long assigneeId) {
-        Long currentUserId = userCheckService.getCachedUserId();
+        Long currentUserId = userCheckService.getCurrentUserId();
         if (!assigneeId.equals(currentUserId) && !userCheckService.isAdmin()) {
             throw new AccessDeniedException("Доступ запрещен.");
         }
 
-        List<Task> tasks = taskRepository.findByAssignee_Id(assigneeId);
-        return tasks.stream()
-                .map(taskWithCommentsMapper::toDtoWithComments)
-                .collect(Collectors.toList());
+        List<Task> tasks = taskRepository.findByAssignee_IdAndArchivedFalse(assigneeId);
+        return toDtosWithComments(tasks);
     }
 
     /**
@@ -213,16 +365,28 @@ public class TaskService {
      * @return Список DTO задач.
      * @throws AccessDeniedException если у пользователя нет доступа к задачам данного автора.
      */
+    @Transactional(readOnly = true)
     public List<TaskWithCommentsDTO> findTasksByAuthorIdWithComments(Long authorId) {
-        Long currentUserId = userCheckService.getCachedUserId();
+        Long currentUserId = userCheckService.getCurrentUserId();
         if (!authorId.equals(currentUserId) && !userCheckService.isAdmin()) {
             throw new AccessDeniedException("Доступ запрещен.");
         }
 
-        List<Task> tasks = taskRepository.findByAuthor_Id(authorId);
+        List<Task> tasks = taskRepository.findByAuthor_IdAndArchivedFalse(authorId);
+        return toDtosWithComments(tasks);
+    }
+
+    /** * Преобразует задачи в DTO с комментариями. Комментарии всех задач загружаются одним запросом,
+     * поэтому количество SQL-запросов не зависит от количества задач. */
+    private List<TaskWithCommentsDTO> toDtosWithComments(List<Task> tasks) {
+        if (tasks.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, List<CommentDTO>> commentsByTask = commentService.getCommentsForTasks(
+                tasks.stream().map(Task::getId).collect(Collectors.toList()));
         return tasks.stream()
-                .map(taskWithCommentsMapper::toDtoWithComments)
+                .map(task -> taskWithCommentsMapper.toDtoWithComments(task,
+                        commentsByTask.getOrDefault(task.getId(), Collections.emptyList())))
                 .collect(Collectors.toList());
     }
 }
-
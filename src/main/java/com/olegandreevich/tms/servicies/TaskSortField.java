@@ -0,0 +1,68 @@
+package com.olegandreevich.tms.servicies;
+
+import com.olegandreevich.tms.entities.Task;
+import com.olegandreevich.tms.entities.enums.Priority;
+import com.olegandreevich.tms.entities.enums.Status;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.function.Function;
+
+/** * Поля, по которым разрешена сортировка и keyset-пагинация задач. * Все поля NOT NULL в БД (created_at -
+ * начиная с миграции V1_0_7), поэтому значение в курсоре всегда есть и сравнение в условии курсора не теряет строк.
+ * Поле, допускающее NULL, потребовало бы явного кодирования NULL в курсоре и условия IS NULL в keyset-предикате. */
+enum TaskSortField {
+    ID("id", Task::getId, Long::valueOf),
+    TITLE("title", Task::getTitle, value -> value),
+    STATUS("status", Task::getStatus, Status::valueOf),
+    PRIORITY("priority", Task::getPriority, Priority::valueOf),
+    CREATED_AT("createdAt", Task::getCreatedAt, LocalDateTime::parse);
+
+    private final String property;
+    private final Function<Task, Comparable<?>> accessor;
+    private final Function<String, Comparable<?>> parser;
+
+    TaskSortField(String property, Function<Task, Comparable<?>> accessor, Function<String, Comparable<?>> parser) {
+        this.property = property;
+        this.accessor = accessor;
+        this.parser = parser;
+    }
+
+    /** * Возвращает поле сортировки по имени свойства. *
+     * @throws IllegalArgumentException если сортировка по полю не поддерживается. */
+    static TaskSortField of(String property) {
+        for (TaskSortField field : values()) {
+            if (field.property.equals(property)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Сортировка по полю " + property + " не поддерживается.");
+    }
+
+    String property() {
+        return property;
+    }
+
+    /** * Сортировка по полю с id в качестве уникального дополнительного ключа. */
+    Sort sort(Sort.Direction direction) {
+        if (this == ID) {
+            return Sort.by(direction, ID.property);
+        }
+        return Sort.by(direction, property).and(Sort.by(direction, ID.property));
+    }
+
+    Comparable<?> valueOf(Task task) {
+        return accessor.apply(task);
+    }
+
+    /** * Преобразует значение из курсора к типу поля. *
+     * @throws IllegalArgumentException если значение не соответствует типу поля. */
+    Comparable<?> parse(String value) {
+        try {
+            return parser.apply(value);
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Некорректный курсор.", e);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.olegandreevich.tms.servicies;
+
+import com.olegandreevich.tms.dto.CursorPageDTO;
+import com.olegandreevich.tms.dto.TaskSearchResultDTO;
+import com.olegandreevich.tms.entities.enums.Priority;
+import com.olegandreevich.tms.entities.enums.Status;
+import com.olegandreevich.tms.util.CursorUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.util.HtmlUtils;
+
+import java.util.List;
+
+/**
+ * Полнотекстовый поиск задач по названию, описанию и комментариям. * Использует колонки tsvector с GIN-индексами
+ * (миграция V1_0_6), результаты ранжируются по релевантности и разбиваются на страницы по курсору (rank, id).
+ */
+@Service
+public class TaskTextSearchService {
+
+    /** * Максимальная длина поискового запроса. */
+    public static final int MAX_QUERY_LENGTH = 200;
+
+    private static final String START_SEL = "<mark>";
+    private static final String STOP_SEL = "</mark>";
+
+    private static final String TITLE_OPTIONS = "HighlightAll=true, StartSel=" + START_SEL + ", StopSel=" + STOP_SEL;
+    private static final String SNIPPET_OPTIONS = "MaxFragments=2, MaxWords=20, MinWords=5, " +
+            "StartSel=" + START_SEL + ", StopSel=" + STOP_SEL;
+
+    private static final String HOT_FILTER = " and not t.archived";
+    private static final String PERMISSION_FILTER = " and (t.author_id = :userId or t.assignee_id = :userId)";
+    private static final String AFTER_FILTER = "where r.rank < :afterRank or (r.rank = :afterRank and r.task_id < :afterId)";
+
+    // Совпадения ищутся по GIN-индексам задач и комментариев, релевантность задачи - сумма рангов ее совпадений.
+    // ts_headline дорогой, поэтому фрагменты строятся только для строк уже отобранной страницы.
+    private static final String SEARCH_SQL = """
+            with q as (select websearch_to_tsquery('russian', :query) as query),
+            matches as (
+                select t.id as task_id, ts_rank(t.search_vector, q.query) as rank
+                from tasks t, q
+                where t.search_vector @@ q.query %1$s
+                union all
+                select c.task_id, ts_rank(c.search_vector, q.query)
+                from comments c join tasks t on t.id = c.task_id, q
+                where c.search_vector @@ q.query %1$s
+            ),
+            ranked as (
+                select task_id, cast(sum(rank) as double precision) as rank
+                from matches
+                group by task_id
+            ),
+            page as (
+                select r.task_id, r.rank
+                from ranked r
+                %2$s
+                order by r.rank desc, r.task_id desc
+                limit :limit
+            )
+            select t.id, t.title, t.status, t.priority, t.author_id, t.assignee_id, p.rank,
+                   ts_headline('russian', t.title, q.query, :titleOptions) as title_highlight,
+                   ts_headline('russian', coalesce(t.description, ''), q.query, :snippetOptions) as description_snippet,
+                   (select ts_headline('russian', c.content, q.query, :snippetOptions)
+                    from comments c
+                    where c.task_id = t.id and c.search_vector @@ q.query
+                    order by ts_rank(c.search_vector, q.query) desc, c.id
+                    limit 1) as comment_snippet
+            from page p join tasks t on t.id = p.task_id, q
+            order by p.rank desc, p.task_id desc
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final UserCheckService userCheckService;
+
+    @Autowired
+    public TaskTextSearchService(NamedParameterJdbcTemplate jdbcTemplate, UserCheckService userCheckService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.userCheckService = userCheckService;
+    }
+
+    /**
+     * Ищет задачи, в названии, описании или комментариях которых встречаются слова запроса. * Пользователь
+     * без прав администратора получает только задачи, автором или исполнителем которых он является.
+     *
+     * @param query  Поисковый запрос в синтаксисе websearch: слова, "фраза", -исключение, or.
+     * @param cursor Курсор, полученный с предыдущей страницы, или null для первой страницы.
+     * @param size   Размер страницы (не более {@link TaskService#MAX_PAGE_SIZE}).
+     * @param includeArchived Искать ли также в архивных задачах.
+     * @return Страница результатов в порядке убывания релевантности с курсором следующей страницы.
+     * @throws IllegalArgumentException если запрос пустой, слишком длинный или курсор поврежден.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDTO<TaskSearchResultDTO> search(String query, String cursor, int size,
+                                                   boolean includeArchived) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Поисковый запрос не может быть пустым.");
+        }
+        if (query.length() > MAX_QUERY_LENGTH) {
+            throw new IllegalArgumentException("Поисковый запрос длиннее " + MAX_QUERY_LENGTH + " символов.");
+        }
+        int limit = Math.min(Math.max(size, 1), TaskService.MAX_PAGE_SIZE);
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("query", query)
+                .addValue("titleOptions", TITLE_OPTIONS)
+                .addValue("snippetOptions", SNIPPET_OPTIONS)
+                // Запрашиваем на одну запись больше, чтобы узнать, есть ли следующая страница
+                .addValue("limit", limit + 1);
+
+        String taskFilter = includeArchived ? "" : HOT_FILTER;
+        if (!userCheckService.isAdmin()) {
+            taskFilter += PERMISSION_FILTER;
+            params.addValue("userId", userCheckService.getCurrentUserId());
+        }
+
+        String afterFilter = "";
+        if (cursor != null && !cursor.isBlank()) {
+            String[] position = CursorUtil.decode(cursor, 2);
+            try {
+                params.addValue("afterId", Long.valueOf(position[0]));
+                params.addValue("afterRank", Double.valueOf(position[1]));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Некорректный курсор.", e);
+            }
+            afterFilter = AFTER_FILTER;
+        }
+
+        List<TaskSearchResultDTO> results = jdbcTemplate.query(SEARCH_SQL.formatted(taskFilter, afterFilter),
+                params, ROW_MAPPER);
+
+        String nextCursor = null;
+        if (results.size() > limit) {
+            results = results.subList(0, limit);
+            TaskSearchResultDTO last = results.get(limit - 1);
+            nextCursor = CursorUtil.encode(last.getId(), last.getRank());
+        }
+        return new CursorPageDTO<>(results, nextCursor);
+    }
+
+    /** * Экранирует фрагмент для HTML, сохраняя только теги выделения, добавленные ts_headline. */
+    static String escapeHighlight(String fragment) {
+        if (fragment == null) {
+            return null;
+        }
+        // С кодировкой UTF-8 экранируются только служебные символы HTML, кириллица остается как есть
+        return HtmlUtils.htmlEscape(fragment, "UTF-8")
+                .replace(HtmlUtils.htmlEscape(START_SEL), START_SEL)
+                .replace(HtmlUtils.htmlEscape(STOP_SEL), STOP_SEL);
+    }
+
+    private static final RowMapper<TaskSearchResultDTO> ROW_MAPPER = (rs, rowNum) -> new TaskSearchResultDTO(
+            rs.getLong("id"),
+            rs.getString("title"),
+            Status.valueOf(rs.getString("status")),
+            Priority.valueOf(rs.getString("priority")),
+            rs.getObject("author_id", Long.class),
+            rs.getObject("assignee_id", Long.class),
+            rs.getDouble("rank"),
+            escapeHighlight(rs.getString("title_highlight")),
+            escapeHighlight(rs.getString("description_snippet")),
+            escapeHighlight(rs.getString("comment_snippet")));
+}
@@ -4,68 +4,44 @@ import com.olegandreevich.tms.entities.User;
 import com.olegandreevich.tms.entities.enums.Role;
 import com.olegandreevich.tms.repositories.UserRepository;
 import com.olegandreevich.tms.security.UserDetailsTMS;
-import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
-import java.util.Optional;
-
 /** Сервис для проверки, кем является пользователь (администратор, исполнитель или автор задачи) */
 @Service
 
 public class UserCheckService {
 
     private final UserRepository userRepository;
-    private static final String CURRENT_USER_ID_CACHE_KEY = "current_user_id";
-    private Long cachedUserId;
 
     @Autowired
     public UserCheckService(UserRepository userRepository) {
         this.userRepository = userRepository;
     }
 
-    /** * Инициализирует кэш текущего пользователя. */
-    @PostConstruct
-    public void init() {
-        this.cachedUserId = null;
-    }
-
-    /** * Возвращает id текущего пользователя */
-    @Cacheable(value = CURRENT_USER_ID_CACHE_KEY)
-    Long getCurrentUserId() {
-        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-
-        if (principal instanceof UserDetailsTMS) {
-            String username = ((UserDetailsTMS) principal).getUsername();
-
-            try {
-                Optional<User> optionalUser = userRepository.findByEmail(username);
+    /** * Возвращает id текущего пользователя. ID берется из принципала запроса в SecurityContext
+     * (claim uid JWT-токена или загруженный пользователь), поэтому состояние в сервисе не хранится
+     * и запрос к БД нужен только для токенов, выпущенных без ID. *
+     * @return ID текущего пользователя.
+     * @throws RuntimeException если текущего пользователя определить не удалось. */
+    public Long getCurrentUserId() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        Object principal = auth != null ? auth.getPrincipal() : null;
 
-                if (optionalUser.isPresent()) {
-                    return optionalUser.get().getId();
-                } else {
-                    throw new RuntimeException("Пользователь с таким email не найден.");
-                }
-            } catch (Exception e) {
-                throw new RuntimeException("Ошибка при получении текущего ID пользователя.", e);
+        if (principal instanceof UserDetailsTMS userDetails) {
+            if (userDetails.getUserId() != null) {
+                return userDetails.getUserId();
             }
+            return userRepository.findByEmail(userDetails.getUsername())
+                    .map(User::getId)
+                    .orElseThrow(() -> new RuntimeException("Пользователь с таким email не найден."));
         }
 
         throw new RuntimeException("Не удалось получить текущий ID пользователя.");
     }
 
-    /** * Возвращает кэшированное значение ID текущего пользователя. *
-     * @return ID текущего пользователя. */
-    public Long getCachedUserId() {
-        if (cachedUserId == null) {
-            cachedUserId = getCurrentUserId();
-        }
-        return cachedUserId;
-    }
-
     /** * Возвращает истину, если пользователь администратор */
     public boolean isAdmin() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
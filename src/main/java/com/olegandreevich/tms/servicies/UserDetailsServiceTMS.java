@@ -1,29 +1,88 @@
 package com.olegandreevich.tms.servicies;
 
-import com.olegandreevich.tms.entities.User;
 import com.olegandreevich.tms.repositories.UserRepository;
 import com.olegandreevich.tms.security.UserDetailsTMS;
 import com.olegandreevich.tms.util.exceptions.UsernameNotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Service;
 
-import java.util.Optional;
+import java.time.Duration;
+import java.util.List;
 
-/** * Реализация сервиса UserDetailsService для загрузки пользователя. */
+/** * Реализация сервиса UserDetailsService для загрузки пользователя. Загруженные пользователи хранятся
+ * в ограниченном по размеру и времени жизни кэше, чтобы не обращаться к БД на каждый запрос. Пользователь
+ * загружается вне блокировок Caffeine (см. {@link StripedLoadingCache}) и не закрепляет виртуальный поток.
+ * Как UserDetailsPasswordService сохраняет пересчитанный при входе хэш пароля, если изменилась
+ * стоимость BCrypt. */
 @Service
-public class UserDetailsServiceTMS implements UserDetailsService {
+public class UserDetailsServiceTMS implements UserDetailsService, UserDetailsPasswordService {
+
+    static final String CACHE_NAME = "userDetails";
+
+    private final UserRepository userRepository;
+
+    /** * Кэш деталей пользователя по электронной почте. */
+    private final StripedLoadingCache<String, UserDetailsTMS> userDetailsCache;
+    private final CacheInvalidationBus invalidationBus;
+    private final UserEntityCache userEntityCache;
 
     @Autowired
-    private UserRepository userRepository;
+    public UserDetailsServiceTMS(UserRepository userRepository,
+                                 MeterRegistry meterRegistry,
+                                 CacheInvalidationBus invalidationBus,
+                                 UserEntityCache userEntityCache,
+                                 @Value("${app.userDetailsCache.ttl:5m}") Duration ttl,
+                                 @Value("${app.userDetailsCache.maxSize:10000}") long maxSize) {
+        this.userRepository = userRepository;
+        this.userDetailsCache = new StripedLoadingCache<>(ttl, maxSize);
+        // Метрики cache.gets{result=hit|miss}, cache.evictions и т.д. с тегом cache=userDetails
+        CaffeineCacheMetrics.monitor(meterRegistry, userDetailsCache.cache(), CACHE_NAME);
+
+        this.invalidationBus = invalidationBus;
+        this.userEntityCache = userEntityCache;
+        invalidationBus.register(CACHE_NAME, userDetailsCache::invalidateAll, userDetailsCache::invalidateAll);
+    }
 
     /** * Загружает детали пользователя по электронной почте. * * @param email Электронная почта пользователя.
      * @return Детали пользователя. * @throws UsernameNotFoundException если пользователь
      * с указанной электронной почтой не найден. */
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        Optional<User> optionalUser = userRepository.findByEmail(email);
-        return optionalUser.map(UserDetailsTMS::build).orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        // Отсутствующие пользователи не кэшируются: загрузчик возвращает null
+        UserDetailsTMS userDetails = userDetailsCache.get(email, key -> userRepository.findByEmail(key)
+                .map(UserDetailsTMS::build)
+                .orElse(null));
+        if (userDetails == null) {
+            throw new UsernameNotFoundException("User not found");
+        }
+        return userDetails;
+    }
+
+    /** * Сохраняет новый хэш пароля пользователя после успешного входа. *
+     * @param user Детали пользователя со старым хэшем.
+     * @param newPassword Новый хэш пароля.
+     * @return Детали пользователя с новым хэшем. */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository.updatePasswordByEmail(newPassword, user.getUsername());
+        evict(user.getUsername());
+        Long userId = user instanceof UserDetailsTMS userDetails ? userDetails.getUserId() : null;
+        if (userId != null) {
+            userEntityCache.evict(userId);
+        }
+        return new UserDetailsTMS(userId, user.getUsername(), newPassword, user.getAuthorities());
+    }
+
+    /** * Удаляет пользователя из кэша. Вызывается при изменении роли или пароля. *
+     * @param email Электронная почта пользователя. */
+    public void evict(String email) {
+        userDetailsCache.invalidate(email);
+        invalidationBus.publish(CACHE_NAME, List.of(email));
     }
 }
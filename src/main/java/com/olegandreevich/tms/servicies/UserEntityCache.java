@@ -0,0 +1,49 @@
+package com.olegandreevich.tms.servicies;
+
+import com.olegandreevich.tms.entities.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+
+/** * Сброс пользователей в кэше второго уровня Hibernate на всех узлах. Изменения через сущность Hibernate
+ * применяет к кэшу сам, массовые JPQL-обновления сбрасывают регион только на текущем узле, а кэши других
+ * узлов об изменениях не знают. Поэтому после изменения пользователя вызывается {@link #evict}: запись
+ * удаляется локально и через {@link CacheInvalidationBus} на остальных узлах. Вместе с записью сбрасывается
+ * кэш запросов по email и имени: после регистрации в нем может оставаться пустой результат. */
+@Service
+public class UserEntityCache {
+
+    static final String CACHE_NAME = "userEntities";
+
+    private final Cache cache;
+    private final CacheInvalidationBus invalidationBus;
+
+    @Autowired
+    public UserEntityCache(EntityManagerFactory entityManagerFactory, CacheInvalidationBus invalidationBus) {
+        this.cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        this.invalidationBus = invalidationBus;
+        invalidationBus.register(CACHE_NAME, this::evictLocally, this::evictAllLocally);
+    }
+
+    /** * Удаляет пользователя из кэша на всех узлах. В транзакции уведомление уходит при коммите. *
+     * @param userId ID пользователя. */
+    public void evict(Long userId) {
+        evictLocally(List.of(String.valueOf(userId)));
+        invalidationBus.publish(CACHE_NAME, List.of(userId));
+    }
+
+    private void evictLocally(Collection<String> userIds) {
+        userIds.forEach(id -> cache.evictEntityData(User.class, Long.valueOf(id)));
+        cache.evictQueryRegion(User.QUERY_CACHE_REGION);
+    }
+
+    private void evictAllLocally() {
+        cache.evictEntityData(User.class);
+        cache.evictQueryRegion(User.QUERY_CACHE_REGION);
+    }
+}
@@ -25,12 +25,17 @@ public class UserService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final UserCheckService userCheckService;
+    private final UserDetailsServiceTMS userDetailsService;
+    private final UserEntityCache userEntityCache;
 
     @Autowired
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, UserCheckService userCheckService) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, UserCheckService userCheckService,
+                       UserDetailsServiceTMS userDetailsService, UserEntityCache userEntityCache) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.userCheckService = userCheckService;
+        this.userDetailsService = userDetailsService;
+        this.userEntityCache = userEntityCache;
     }
 
     /** * Регистрирует нового пользователя. * * @param dto Объект регистрации пользователя.
@@ -54,7 +59,10 @@ public class UserService {
         String encryptedPassword = passwordEncoder.encode(dto.getPassword());
         User user = new User(dto.getEmail(), dto.getUsername(), encryptedPassword);
         user.setRole(Role.USER); // Устанавливаем роль по умолчанию
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        // Другие узлы могли закэшировать пустой результат поиска по этому email
+        userEntityCache.evict(saved.getId());
+        return saved;
     }
 
     /** * Проверяет валидность пароля. *
@@ -65,6 +73,7 @@ public class UserService {
     }
 
     /** * Возвращает список всех пользователей. * * @return Список всех пользователей. */
+    @Transactional
     public List<User> findAll() {
         if (!userCheckService.isAdmin()) {
             throw new AccessDeniedException("У вас нет прав для получения всех пользователей.");
@@ -74,12 +83,14 @@ public class UserService {
 
     /** * Находит пользователя по электронной почте. * * @param email Электронная почта пользователя.
      * @return Найденный пользователь. */
+    @Transactional
     public Optional<User> findByEmail(String email) {
         return userRepository.findByEmail(email);
     }
 
     /** * Находит пользователя по ID. * * @param userId ID пользователя. * @return Найденный пользователь.
      * @throws ResourceNotFoundException если пользователь с указанным ID не найден. */
+    @Transactional
     public User findById(Long userId) {
         return userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
@@ -92,6 +103,8 @@ public class UserService {
         User user = findById(userId);
         user.promoteToAdmin();
         userRepository.save(user);
+        userDetailsService.evict(user.getEmail());
+        userEntityCache.evict(userId);
     }
 
     /** * Понижает права пользователя до обычной роли. *
@@ -101,6 +114,8 @@ public class UserService {
         User user = findById(userId);
         user.demoteToUser();
         userRepository.save(user);
+        userDetailsService.evict(user.getEmail());
+        userEntityCache.evict(userId);
     }
 
     /** * Обновляет пароль пользователя. *
@@ -109,5 +124,10 @@ public class UserService {
     public void updatePassword(String username, String plainTextPassword) {
         String encodedPassword = passwordEncoder.encode(plainTextPassword);
         userRepository.updatePassword(encodedPassword, username);
+        // Кэш хранит пользователей по email, а пароль обновляется по имени пользователя
+        userRepository.findByUsername(username).ifPresent(user -> {
+            userDetailsService.evict(user.getEmail());
+            userEntityCache.evict(user.getId());
+        });
     }
 }
@@ -0,0 +1,77 @@
+package com.olegandreevich.tms.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/** * Потоковое чтение CSV по RFC 4180: значения в кавычках могут содержать разделители, кавычки ("")
+ * и переводы строк. В памяти хранится только текущая запись. */
+public class CsvReader {
+
+    private final Reader reader;
+    private int pending = -2;
+
+    /** * @param reader Источник; рекомендуется буферизованный. */
+    public CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /** * Читает следующую запись. *
+     * @return Значения записи или null, если данные закончились.
+     * @throws IllegalArgumentException если кавычка не закрыта до конца данных. */
+    public List<String> next() throws IOException {
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IllegalArgumentException("Не закрыта кавычка в значении CSV.");
+                }
+                if (c == '"') {
+                    int following = read();
+                    if (following == '"') {
+                        value.append('"');
+                    } else {
+                        quoted = false;
+                        c = following;
+                        continue;
+                    }
+                } else {
+                    value.append((char) c);
+                }
+            } else if (c == '"' && value.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else if (c == '\r' || c == '\n' || c == -1) {
+                if (c == '\r') {
+                    int following = read();
+                    if (following != '\n') {
+                        pending = following;
+                    }
+                }
+                values.add(value.toString());
+                return values;
+            } else {
+                value.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    private int read() throws IOException {
+        if (pending != -2) {
+            int c = pending;
+            pending = -2;
+            return c;
+        }
+        return reader.read();
+    }
+}
@@ -0,0 +1,43 @@
+package com.olegandreevich.tms.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.regex.Pattern;
+
+/** * Кодирование и декодирование непрозрачных курсоров для keyset-пагинации. */
+public final class CursorUtil {
+
+    private static final String SEPARATOR = "|";
+    private static final Pattern SEPARATOR_PATTERN = Pattern.compile(Pattern.quote(SEPARATOR));
+
+    private CursorUtil() {
+    }
+
+    /** * Кодирует значения позиции в курсор. Последнее значение может содержать разделитель. */
+    public static String encode(Object... parts) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                sb.append(SEPARATOR);
+            }
+            sb.append(parts[i]);
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** * Декодирует курсор в ожидаемое количество значений. *
+     * @throws IllegalArgumentException если курсор поврежден. */
+    public static String[] decode(String cursor, int expectedParts) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = SEPARATOR_PATTERN.split(raw, expectedParts);
+            if (parts.length != expectedParts) {
+                throw new IllegalArgumentException("Некорректный курсор.");
+            }
+            return parts;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Некорректный курсор.", e);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.olegandreevich.tms.util;
+
+import com.olegandreevich.tms.util.exceptions.PreconditionFailedException;
+import com.olegandreevich.tms.util.exceptions.PreconditionRequiredException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/** * Построение и разбор ETag по версиям сущностей. */
+public final class ETagUtil {
+
+    private static final String ANY = "*";
+
+    private ETagUtil() {
+    }
+
+    /** * Сильный ETag одной сущности по ее версии. */
+    public static String strong(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    /** * Слабый ETag списка по идентификаторам и версиям его элементов в порядке выдачи.
+     * Изменение, добавление, удаление или перестановка элемента дает другой ETag. */
+    public static String weak(Iterable<?> parts) {
+        MessageDigest digest = sha256();
+        for (Object part : parts) {
+            digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+        }
+        return "W/\"" + HexFormat.of().formatHex(digest.digest(), 0, 16) + "\"";
+    }
+
+    /** * Версия, ожидаемая клиентом по заголовку If-Match. *
+     * @param ifMatch Значение заголовка If-Match.
+     * @return Версия или null для "*" (подходит любая версия).
+     * @throws PreconditionRequiredException если заголовок отсутствует.
+     * @throws PreconditionFailedException если значение не является сильным ETag версии. */
+    public static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            throw new PreconditionRequiredException("Для изменения задачи укажите заголовок If-Match с ETag, " +
+                    "полученным при чтении задачи.");
+        }
+        String value = ifMatch.trim();
+        if (ANY.equals(value)) {
+            return null;
+        }
+        // If-Match сравнивает только сильные ETag, слабый никогда не совпадает
+        if (value.length() < 3 || !value.startsWith("\"") || !value.endsWith("\"")) {
+            throw mismatch(value);
+        }
+        try {
+            return Long.valueOf(value.substring(1, value.length() - 1));
+        } catch (NumberFormatException e) {
+            throw mismatch(value);
+        }
+    }
+
+    private static PreconditionFailedException mismatch(String etag) {
+        return new PreconditionFailedException("ETag " + etag + " не соответствует текущей версии задачи.");
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
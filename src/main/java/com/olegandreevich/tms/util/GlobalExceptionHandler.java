@@ -5,7 +5,10 @@ import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
 import org.apache.coyote.BadRequestException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -70,6 +73,33 @@ public class GlobalExceptionHandler {
         return new ApiError(HttpStatus.FORBIDDEN.value(), ex.getMessage());
     }
 
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<ApiError> handleServiceOverloaded(ServiceOverloadedException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new ApiError(HttpStatus.SERVICE_UNAVAILABLE.value(), ex.getMessage()));
+    }
+
+    @ExceptionHandler(PreconditionFailedException.class)
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+    public ApiError handlePreconditionFailed(PreconditionFailedException ex) {
+        return new ApiError(HttpStatus.PRECONDITION_FAILED.value(), ex.getMessage());
+    }
+
+    // Изменение зафиксировано другой транзакцией между чтением задачи и записью
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+    public ApiError handleOptimisticLockingFailure(OptimisticLockingFailureException ex) {
+        return new ApiError(HttpStatus.PRECONDITION_FAILED.value(),
+                "Задача изменена другим пользователем. Получите ее заново и повторите изменение.");
+    }
+
+    @ExceptionHandler(PreconditionRequiredException.class)
+    @ResponseStatus(HttpStatus.PRECONDITION_REQUIRED)
+    public ApiError handlePreconditionRequired(PreconditionRequiredException ex) {
+        return new ApiError(HttpStatus.PRECONDITION_REQUIRED.value(), ex.getMessage());
+    }
+
     @ExceptionHandler(RuntimeException.class)
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public ApiError handleRuntimeException(RuntimeException ex) {
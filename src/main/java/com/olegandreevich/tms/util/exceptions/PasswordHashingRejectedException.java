@@ -0,0 +1,11 @@
+package com.olegandreevich.tms.util.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class PasswordHashingRejectedException extends ServiceOverloadedException {
+    public PasswordHashingRejectedException(String message) {
+        super(message);
+    }
+}
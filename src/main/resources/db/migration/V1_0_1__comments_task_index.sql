@@ -0,0 +1,2 @@
+-- Выборка комментариев задачи и keyset-пагинация по (created_at, id)
+create INDEX IF NOT EXISTS idx_comments_task_created_id ON comments (task_id, created_at, id);
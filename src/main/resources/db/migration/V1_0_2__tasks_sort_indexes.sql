@@ -0,0 +1,5 @@
+-- Составные индексы для keyset-пагинации задач по (поле сортировки, id)
+create INDEX IF NOT EXISTS idx_tasks_title_id ON tasks (title, id);
+create INDEX IF NOT EXISTS idx_tasks_status_id ON tasks (status, id);
+create INDEX IF NOT EXISTS idx_tasks_priority_id ON tasks (priority, id);
+create INDEX IF NOT EXISTS idx_tasks_created_at_id ON tasks (created_at, id);
@@ -0,0 +1,14 @@
+-- Индексы для поиска задач по фильтрам (GET /api/tasks/search)
+
+-- Задачи исполнителя / автора с фильтром по статусу и приоритету
+create INDEX IF NOT EXISTS idx_tasks_assignee_status_priority ON tasks (assignee_id, status, priority);
+create INDEX IF NOT EXISTS idx_tasks_author_status_priority ON tasks (author_id, status, priority);
+
+-- Фильтр по статусу и приоритету без пользователя, с диапазоном даты создания
+create INDEX IF NOT EXISTS idx_tasks_status_priority_created ON tasks (status, priority, created_at);
+
+-- Незавершенные задачи: COMPLETED составляют большую часть таблицы и не нужны дашбордам
+create INDEX IF NOT EXISTS idx_tasks_assignee_open ON tasks (assignee_id, priority, created_at)
+    WHERE status <> 'COMPLETED';
+create INDEX IF NOT EXISTS idx_tasks_author_open ON tasks (author_id, priority, created_at)
+    WHERE status <> 'COMPLETED';
@@ -0,0 +1,8 @@
+-- Шаг последовательностей равен allocationSize в @SequenceGenerator: Hibernate выделяет ID пачками
+-- (оптимизатор pooled) и может группировать вставки в JDBC batch.
+-- setval выставляет последовательность после уже существующих ID (в том числе вставленных явно).
+alter SEQUENCE tasks_id_seq INCREMENT BY 50;
+select setval('tasks_id_seq', GREATEST((SELECT MAX(id) FROM tasks), 1));
+
+alter SEQUENCE comments_id_seq INCREMENT BY 50;
+select setval('comments_id_seq', GREATEST((SELECT MAX(id) FROM comments), 1));
@@ -0,0 +1,18 @@
+-- Журнал изменений задач и комментариев. Строки пишутся в той же транзакции, что и само изменение,
+-- поэтому откат транзакции откатывает и запись журнала.
+-- tx_id - ID транзакции (xid8, не переполняется). Читатели отдают только строки транзакций с tx_id меньше
+-- xmin текущего снимка: все такие транзакции уже завершены, и новые строки с меньшим tx_id не появятся.
+create table change_log
+(
+    id          bigserial primary key,
+    tx_id       xid8        not null default pg_current_xact_id(),
+    entity_type varchar(20) not null check (entity_type in ('task', 'comment')),
+    entity_id   bigint      not null,
+    task_id     bigint      not null,
+    change_type varchar(20) not null check (change_type in ('CREATED', 'UPDATED', 'DELETED')),
+    -- Состояние сущности после изменения; null для удалений
+    payload     jsonb,
+    changed_at  timestamp   not null default current_timestamp
+);
+
+create index idx_change_log_tx_id_id on change_log (tx_id, id);
@@ -0,0 +1,17 @@
+-- Полнотекстовый поиск по задачам и комментариям. Колонки tsvector вычисляются самой БД при вставке
+-- и обновлении строки, поэтому приложение и импорт данных их не заполняют.
+-- Вес A у названия выше веса B у описания; комментарии получают вес C и ранжируются ниже самой задачи.
+alter table tasks
+    add column search_vector tsvector generated always as (
+        setweight(to_tsvector('russian', coalesce(title, '')), 'A') ||
+        setweight(to_tsvector('russian', coalesce(description, '')), 'B')
+    ) stored;
+
+create index idx_tasks_search_vector on tasks using gin (search_vector);
+
+alter table comments
+    add column search_vector tsvector generated always as (
+        setweight(to_tsvector('russian', coalesce(content, '')), 'C')
+    ) stored;
+
+create index idx_comments_search_vector on comments using gin (search_vector);
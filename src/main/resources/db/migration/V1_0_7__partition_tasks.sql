@@ -0,0 +1,142 @@
+-- Секционирование задач и комментариев. Верхний уровень делится по признаку archived: горячая секция
+-- (archived = false) со всеми рабочими задачами и архив давно завершенных задач, который дополнительно разбит
+-- по годам created_at. Запросы с условием archived = false читают только горячую секцию и ее индексы.
+-- Задачи переносит в архив TaskArchiveService небольшими пачками, миграция оставляет все строки горячими.
+--
+-- Первичный ключ секционированной таблицы должен включать все ключи секционирования, поэтому id больше
+-- не уникален сам по себе (ID по-прежнему выдают последовательности), а на comments.task_id нельзя сослаться
+-- внешним ключом. Ссылочную целостность между комментариями и задачами проверяют триггеры ниже.
+
+alter table comments rename to comments_unpartitioned;
+alter table tasks rename to tasks_unpartitioned;
+alter sequence tasks_id_seq owned by none;
+alter sequence comments_id_seq owned by none;
+
+create table tasks (
+    id bigint not null default nextval('tasks_id_seq'),
+    title varchar(255) not null,
+    description text,
+    status varchar(20) not null check (status in ('PENDING', 'IN_PROGRESS', 'COMPLETED')),
+    priority varchar(20) not null check (priority in ('HIGH', 'MEDIUM', 'LOW')),
+    author_id bigint,
+    assignee_id bigint,
+    created_at timestamp not null default current_timestamp,
+    archived boolean not null default false,
+    search_vector tsvector generated always as (
+        setweight(to_tsvector('russian', coalesce(title, '')), 'A') ||
+        setweight(to_tsvector('russian', coalesce(description, '')), 'B')
+    ) stored,
+    constraint pk_tasks primary key (id, archived, created_at),
+    constraint fk_author foreign key (author_id) references users (id),
+    constraint fk_assignee foreign key (assignee_id) references users (id),
+    -- Перед изменением статуса архивной задачи ее возвращают в горячую секцию
+    constraint chk_tasks_archived_completed check (not archived or status = 'COMPLETED')
+) partition by list (archived);
+
+create table tasks_hot partition of tasks for values in (false);
+create table tasks_archive partition of tasks for values in (true) partition by range (created_at);
+create table tasks_archive_default partition of tasks_archive default;
+
+create table comments (
+    id bigint not null default nextval('comments_id_seq'),
+    content text,
+    task_id bigint,
+    user_id bigint,
+    created_at timestamp not null default current_timestamp,
+    -- Совпадает с archived задачи: комментарии переносятся в архив вместе с ней
+    archived boolean not null default false,
+    search_vector tsvector generated always as (
+        setweight(to_tsvector('russian', coalesce(content, '')), 'C')
+    ) stored,
+    constraint pk_comments primary key (id, archived, created_at),
+    constraint fk_user foreign key (user_id) references users (id)
+) partition by list (archived);
+
+create table comments_hot partition of comments for values in (false);
+create table comments_archive partition of comments for values in (true) partition by range (created_at);
+create table comments_archive_default partition of comments_archive default;
+
+-- Годовые секции архива от самых старых данных до следующего года; следующие годы добавляет архиватор
+do $$
+declare
+    first_year int := extract(year from least(
+            (select min(created_at) from tasks_unpartitioned),
+            (select min(created_at) from comments_unpartitioned),
+            localtimestamp));
+    last_year int := extract(year from localtimestamp) + 1;
+begin
+    for y in first_year..last_year loop
+        execute format('create table tasks_archive_%s partition of tasks_archive for values from (%L) to (%L)',
+                       y, make_date(y, 1, 1), make_date(y + 1, 1, 1));
+        execute format('create table comments_archive_%s partition of comments_archive for values from (%L) to (%L)',
+                       y, make_date(y, 1, 1), make_date(y + 1, 1, 1));
+    end loop;
+end $$;
+
+insert into tasks (id, title, description, status, priority, author_id, assignee_id, created_at)
+select id, title, description, status, priority, author_id, assignee_id, coalesce(created_at, current_timestamp)
+from tasks_unpartitioned;
+
+insert into comments (id, content, task_id, user_id, created_at)
+select id, content, task_id, user_id, coalesce(created_at, current_timestamp)
+from comments_unpartitioned;
+
+drop table comments_unpartitioned;
+drop table tasks_unpartitioned;
+alter sequence tasks_id_seq owned by tasks.id;
+alter sequence comments_id_seq owned by comments.id;
+
+-- Индексы прежних таблиц создаются во всех секциях
+create index idx_comments_task_created_id on comments (task_id, created_at, id);
+create index idx_comments_search_vector on comments using gin (search_vector);
+
+create index idx_tasks_title_id on tasks (title, id);
+create index idx_tasks_status_id on tasks (status, id);
+create index idx_tasks_priority_id on tasks (priority, id);
+create index idx_tasks_created_at_id on tasks (created_at, id);
+create index idx_tasks_assignee_status_priority on tasks (assignee_id, status, priority);
+create index idx_tasks_author_status_priority on tasks (author_id, status, priority);
+create index idx_tasks_status_priority_created on tasks (status, priority, created_at);
+create index idx_tasks_assignee_open on tasks (assignee_id, priority, created_at) where status <> 'COMPLETED';
+create index idx_tasks_author_open on tasks (author_id, priority, created_at) where status <> 'COMPLETED';
+create index idx_tasks_search_vector on tasks using gin (search_vector);
+
+-- Кандидаты в архив: только в горячей секции
+create index idx_tasks_hot_completed_created on tasks_hot (created_at) where status = 'COMPLETED';
+
+-- Замена внешнего ключа comments.task_id -> tasks.id. Блокировка FOR KEY SHARE, как у внешнего ключа,
+-- не дает удалить задачу, пока транзакция с новым комментарием не завершится.
+create function comments_check_task() returns trigger
+    language plpgsql as $$
+begin
+    if new.task_id is not null then
+        perform 1 from tasks where id = new.task_id for key share;
+        if not found then
+            raise foreign_key_violation using message = format('Задача %s не существует.', new.task_id);
+        end if;
+    end if;
+    return null;
+end $$;
+
+create trigger trg_comments_check_task
+    after insert or update of task_id on comments
+    for each row execute function comments_check_task();
+
+-- Перенос строки между секциями выполняется как удаление и вставка; к моменту срабатывания AFTER-триггера
+-- строка уже вставлена в новую секцию, поэтому перенос в архив и обратно проверку проходит.
+create function tasks_restrict_delete() returns trigger
+    language plpgsql as $$
+begin
+    if exists (select 1 from comments where task_id = old.id)
+            and not exists (select 1 from tasks where id = old.id) then
+        raise foreign_key_violation using message = format('На задачу %s ссылаются комментарии.', old.id);
+    end if;
+    return null;
+end $$;
+
+create trigger trg_tasks_restrict_delete
+    after delete on tasks
+    for each row execute function tasks_restrict_delete();
+
+analyze tasks;
+analyze comments;
@@ -0,0 +1,3 @@
+-- Версия задачи для оптимистической блокировки (@Version) и ETag. Hibernate увеличивает ее при каждом
+-- изменении задачи; архиватор версию не меняет, т.к. содержимое задачи при переносе не изменяется.
+alter table tasks add column version bigint not null default 0;
@@ -0,0 +1,116 @@
+package com.olegandreevich.tms;
+
+import com.olegandreevich.tms.dto.TaskDTO;
+import com.olegandreevich.tms.entities.enums.Priority;
+import com.olegandreevich.tms.entities.enums.Status;
+import com.olegandreevich.tms.servicies.CacheInvalidationBus;
+import com.olegandreevich.tms.servicies.TaskReadCache;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Два контекста приложения с общей БД имитируют два узла: сброс кэша на одном узле должен дойти
+ * до другого через LISTEN/NOTIFY за ограниченное время.
+ */
+class CacheInvalidationConvergenceTests {
+
+    private static final Duration MAX_DELAY = Duration.ofSeconds(5);
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    static void startNodes() {
+        nodeA = new SpringApplicationBuilder(TmsApplication.class).properties("server.port=0").run();
+        nodeB = new SpringApplicationBuilder(TmsApplication.class).properties("server.port=0").run();
+        awaitTrue(() -> nodeA.getBean(CacheInvalidationBus.class).isListening()
+                && nodeB.getBean(CacheInvalidationBus.class).isListening());
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        if (nodeA != null) {
+            nodeA.close();
+        }
+        if (nodeB != null) {
+            nodeB.close();
+        }
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + MAX_DELAY.toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("Условие не выполнено за " + MAX_DELAY);
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(e);
+            }
+        }
+    }
+
+    private static TaskDTO task(String title) {
+        return new TaskDTO(title, "desc", Status.PENDING, Priority.LOW, 1L, 2L);
+    }
+
+    @Test
+    void evictionOnOneNode_ReachesOtherNode() {
+        TaskReadCache cacheA = nodeA.getBean(TaskReadCache.class);
+        TaskReadCache cacheB = nodeB.getBean(TaskReadCache.class);
+        long taskId = 900_000_001L;
+        TaskDTO stale = task("stale");
+        TaskDTO fresh = task("fresh");
+
+        cacheA.getTask(taskId, id -> stale);
+        assertSame(stale, cacheA.getTask(taskId, id -> fresh));
+
+        cacheB.evictTask(taskId, null, null);
+
+        awaitTrue(() -> cacheA.getTask(taskId, id -> fresh) == fresh);
+    }
+
+    @Test
+    void evictionInTransaction_ReachesOtherNodeOnlyAfterCommit() {
+        TaskReadCache cacheA = nodeA.getBean(TaskReadCache.class);
+        TaskReadCache cacheB = nodeB.getBean(TaskReadCache.class);
+        TransactionTemplate transactionB = new TransactionTemplate(nodeB.getBean(PlatformTransactionManager.class));
+        long authorId = 900_000_002L;
+        long taskId = 900_000_003L;
+        TaskDTO stale = task("stale");
+        TaskDTO fresh = task("fresh");
+
+        cacheA.getTask(taskId, id -> stale);
+
+        transactionB.executeWithoutResult(status -> {
+            cacheB.evictTask(taskId, authorId, null);
+            cacheB.evictTask(null, authorId, null);
+        });
+        awaitTrue(() -> cacheA.getTask(taskId, id -> fresh) == fresh);
+
+        // При откате уведомление не отправляется
+        TaskDTO afterRollback = task("after rollback");
+        transactionB.executeWithoutResult(status -> {
+            cacheB.evictTask(taskId, null, null);
+            status.setRollbackOnly();
+        });
+        try {
+            Thread.sleep(500);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        assertSame(fresh, cacheA.getTask(taskId, id -> afterRollback));
+    }
+}
@@ -0,0 +1,95 @@
+package com.olegandreevich.tms;
+
+import com.olegandreevich.tms.dto.ChangeDTO;
+import com.olegandreevich.tms.dto.ChangePageDTO;
+import com.olegandreevich.tms.events.ChangeType;
+import com.olegandreevich.tms.servicies.ChangeLogService;
+import com.olegandreevich.tms.servicies.UserCheckService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+/**
+ * Проверка журнала изменений на настоящей БД: записи откаченных транзакций не видны, а изменения
+ * отдаются в порядке фиксации, даже если транзакция с меньшим ID фиксируется позже.
+ */
+@SpringBootTest
+class ChangeLogOrderingTests {
+
+    @Autowired
+    private ChangeLogService changeLogService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @MockBean
+    private UserCheckService userCheckService;
+
+    private String cursor;
+
+    @BeforeEach
+    void moveCursorToEnd() {
+        when(userCheckService.isAdmin()).thenReturn(true);
+        ChangePageDTO page;
+        do {
+            page = changeLogService.getChanges(cursor, ChangeLogService.MAX_PAGE_SIZE);
+            cursor = page.getNextCursor();
+        } while (page.isHasMore());
+    }
+
+    @Test
+    void shouldNotExposeRolledBackChanges() {
+        transactionTemplate.executeWithoutResult(status -> {
+            changeLogService.record(ChangeLogService.Entry.task(-1L, ChangeType.UPDATED, null));
+            status.setRollbackOnly();
+        });
+
+        assertTrue(changeLogService.getChanges(cursor, 10).getItems().isEmpty());
+    }
+
+    @Test
+    void shouldHoldBackLaterCommits_untilEarlierTransactionCompletes() throws Exception {
+        CountDownLatch recorded = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> slow = CompletableFuture.runAsync(() ->
+                transactionTemplate.executeWithoutResult(status -> {
+                    changeLogService.record(ChangeLogService.Entry.task(-1L, ChangeType.UPDATED, null));
+                    recorded.countDown();
+                    await(release);
+                }));
+        assertTrue(recorded.await(10, TimeUnit.SECONDS));
+
+        transactionTemplate.executeWithoutResult(status ->
+                changeLogService.record(ChangeLogService.Entry.task(-2L, ChangeType.UPDATED, null)));
+
+        // Вторая транзакция уже зафиксирована, но первая (с меньшим tx_id) еще открыта
+        assertTrue(changeLogService.getChanges(cursor, 10).getItems().isEmpty());
+
+        release.countDown();
+        slow.get(10, TimeUnit.SECONDS);
+
+        List<ChangeDTO> changes = changeLogService.getChanges(cursor, 10).getItems();
+        assertEquals(List.of(-1L, -2L), changes.stream().map(ChangeDTO::getEntityId).toList());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.olegandreevich.tms;
+
+import com.olegandreevich.tms.dto.TaskWithCommentsDTO;
+import com.olegandreevich.tms.servicies.CommentService;
+import com.olegandreevich.tms.servicies.TaskService;
+import com.olegandreevich.tms.servicies.UserCheckService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+/**
+ * Количество SQL-запросов при загрузке задач с комментариями на настоящей БД (по статистике Hibernate):
+ * оно не зависит от количества задач, а большие списки ID не превышают предел параметров запроса.
+ */
+@SpringBootTest
+class CommentBatchLoadingTests {
+
+    private static final Long AUTHOR_ID = 3L;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private UserCheckService userCheckService;
+
+    private Statistics statistics;
+    private final List<Long> taskIds = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        when(userCheckService.getCurrentUserId()).thenReturn(AUTHOR_ID);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void cleanup() {
+        for (Long taskId : taskIds) {
+            jdbcTemplate.update("delete from comments where task_id = ?", taskId);
+            jdbcTemplate.update("delete from tasks where id = ?", taskId);
+        }
+    }
+
+    @Test
+    void shouldLoadCommentsInSingleQuery_regardlessOfTaskCount() {
+        addTasksWithComments(5);
+        long fewTasksStatements = statementsFor(() -> taskService.findTasksByAuthorIdWithComments(AUTHOR_ID));
+
+        addTasksWithComments(60);
+        List<TaskWithCommentsDTO> result = new ArrayList<>();
+        long manyTasksStatements = statementsFor(() ->
+                result.addAll(taskService.findTasksByAuthorIdWithComments(AUTHOR_ID)));
+
+        // Один запрос задач и один запрос комментариев
+        assertEquals(2, fewTasksStatements);
+        assertEquals(fewTasksStatements, manyTasksStatements);
+        assertEquals(2, result.stream().filter(task -> taskIds.contains(task.getId()))
+                .findFirst().orElseThrow().getComments().size());
+    }
+
+    @Test
+    void shouldSplitLargeIdList_intoBoundedQueries() {
+        // Больше 65535 ID: одним запросом такой список не передать
+        List<Long> ids = LongStream.rangeClosed(-70_000, -1).boxed().toList();
+
+        long statements = statementsFor(() -> commentService.getCommentsForTasks(ids));
+
+        assertEquals(70, statements);
+    }
+
+    private long statementsFor(Runnable action) {
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void addTasksWithComments(int count) {
+        for (int i = 0; i < count; i++) {
+            Long taskId = jdbcTemplate.queryForObject("insert into tasks (title, description, status, priority, " +
+                    "author_id, assignee_id) values ('Задача', 'Описание', 'PENDING', 'LOW', ?, 2) returning id",
+                    Long.class, AUTHOR_ID);
+            jdbcTemplate.update("insert into comments (content, task_id, user_id) values ('Первый', ?, 2), " +
+                    "('Второй', ?, 2)", taskId, taskId);
+            taskIds.add(taskId);
+        }
+    }
+}
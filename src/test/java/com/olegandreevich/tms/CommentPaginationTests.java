@@ -0,0 +1,105 @@
+package com.olegandreevich.tms;
+
+import com.olegandreevich.tms.dto.CommentDTO;
+import com.olegandreevich.tms.dto.CursorPageDTO;
+import com.olegandreevich.tms.servicies.CommentService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Keyset-пагинация комментариев на настоящей БД: страницы не теряют и не повторяют комментарии с одинаковым
+ * created_at, каждая страница - один запрос, а план запроса читает индекс с позиции курсора без сортировки
+ * всех комментариев задачи. Данные теста откатываются вместе с транзакцией.
+ */
+@SpringBootTest
+@Transactional
+class CommentPaginationTests {
+
+    private static final int COMMENTS = 25;
+
+    // Запрос CommentRepository.findPageByTaskIdAfter в SQL
+    private static final String KEYSET_SQL = "EXPLAIN SELECT * FROM comments WHERE task_id = %d " +
+            "AND created_at >= '2024-01-01 10:00' AND (created_at > '2024-01-01 10:00' OR id > 1) " +
+            "ORDER BY created_at, id LIMIT 11";
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Long taskId;
+
+    @BeforeEach
+    void setup() {
+        taskId = jdbcTemplate.queryForObject("insert into tasks (title, description, status, priority, author_id, " +
+                "assignee_id) values ('Задача', 'Описание', 'PENDING', 'LOW', 1, 2) returning id", Long.class);
+        for (int i = 0; i < COMMENTS; i++) {
+            // По пять комментариев с одинаковым created_at
+            jdbcTemplate.update("insert into comments (content, task_id, user_id, created_at) " +
+                    "values (?, ?, 2, timestamp '2024-01-01 10:00' + ? * interval '1 minute')",
+                    "comment" + i, taskId, i / 5);
+        }
+    }
+
+    @Test
+    void shouldReturnEveryCommentOnce_inKeysetOrder() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        List<String> contents = new ArrayList<>();
+        List<Long> statementsPerPage = new ArrayList<>();
+        String cursor = null;
+        do {
+            statistics.clear();
+            CursorPageDTO<CommentDTO> page = commentService.getCommentsForTask(taskId, cursor, 10);
+            statementsPerPage.add(statistics.getPrepareStatementCount());
+            page.getItems().forEach(comment -> contents.add(comment.getContent()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < COMMENTS; i++) {
+            expected.add("comment" + i);
+        }
+        assertEquals(expected, contents);
+        assertEquals(List.of(1L, 1L, 1L), statementsPerPage);
+    }
+
+    @Test
+    void shouldReturnLastPageWithoutCursor() {
+        CursorPageDTO<CommentDTO> page = commentService.getCommentsForTask(taskId, null, COMMENTS);
+
+        assertEquals(COMMENTS, page.getItems().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void shouldSeekByIndex_withoutSortingAllComments() {
+        // На маленьком наборе данных планировщик иначе выбрал бы последовательное сканирование
+        jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+
+        String plan = String.join("\n", jdbcTemplate.queryForList(KEYSET_SQL.formatted(taskId), String.class));
+
+        assertTrue(plan.startsWith("Limit"), plan);
+        assertTrue(plan.contains("Index"), plan);
+        // Узел сортировки, а не строка "Sort Key" у Merge Append секций
+        assertFalse(plan.contains("Sort  ("), plan);
+    }
+}
@@ -0,0 +1,82 @@
+package com.olegandreevich.tms;
+
+import com.olegandreevich.tms.dto.BulkItemResultDTO;
+import com.olegandreevich.tms.dto.ImportResultDTO;
+import com.olegandreevich.tms.servicies.DataFormat;
+import com.olegandreevich.tms.servicies.ImportService;
+import com.olegandreevich.tms.servicies.UserCheckService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+/**
+ * Загрузка через COPY на настоящей БД: строки без ошибок переносятся в таблицы и журнал изменений,
+ * строки с нарушением ограничений или несуществующими ссылками отклоняются с номером строки.
+ */
+@SpringBootTest
+class ImportTests {
+
+    @Autowired
+    private ImportService importService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private UserCheckService userCheckService;
+
+    @BeforeEach
+    void setup() {
+        when(userCheckService.isAdmin()).thenReturn(true);
+    }
+
+    @Test
+    void shouldImportValidTasks_andReportRejectedRows() throws Exception {
+        String marker = UUID.randomUUID().toString().substring(0, 8);
+        String csv = "title,description,status,priority,authorId,assigneeId\n" +
+                "Импорт " + marker + ",\"описание, с запятой\",PENDING,HIGH,1,2\n" +
+                "Импорт 2 " + marker + ",,PENDING,HIGH,999999,2\n" +
+                "ab,,PENDING,HIGH,1,2\n" +
+                "Импорт 4 " + marker + ",,DONE,HIGH,1,2\n";
+
+        ImportResultDTO result = importService.importTasks(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), DataFormat.CSV);
+
+        assertEquals(4, result.getRowsRead());
+        assertEquals(1, result.getRowsImported());
+        assertEquals(3, result.getRowsRejected());
+        assertEquals(List.of(2, 3, 4), result.getRejected().stream().map(BulkItemResultDTO::getIndex).toList());
+        assertEquals(List.of(404, 400, 400), result.getRejected().stream().map(BulkItemResultDTO::getStatus).toList());
+
+        Long taskId = jdbcTemplate.queryForObject("select id from tasks where title = ?", Long.class,
+                "Импорт " + marker);
+        assertEquals("описание, с запятой", jdbcTemplate.queryForObject(
+                "select description from tasks where id = ?", String.class, taskId));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "select count(*) from change_log where entity_type = 'task' and entity_id = ?", Integer.class, taskId));
+    }
+
+    @Test
+    void shouldImportComments_andRejectMissingTasks() throws Exception {
+        String ndjson = "{\"taskId\":1,\"userId\":2,\"content\":\"импортированный комментарий\"}\n" +
+                "{\"taskId\":999999,\"userId\":2,\"content\":\"без задачи\"}\n";
+
+        ImportResultDTO result = importService.importComments(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), DataFormat.NDJSON);
+
+        assertEquals(1, result.getRowsImported());
+        assertEquals(List.of(2), result.getRejected().stream().map(BulkItemResultDTO::getIndex).toList());
+        assertEquals(404, result.getRejected().get(0).getStatus());
+    }
+}
@@ -0,0 +1,130 @@
+package com.olegandreevich.tms;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.olegandreevich.tms.dto.TaskFilterDTO;
+import com.olegandreevich.tms.servicies.CommentService;
+import com.olegandreevich.tms.servicies.TaskService;
+import com.olegandreevich.tms.servicies.UserCheckService;
+import com.olegandreevich.tms.servicies.UserService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.LoadEventListener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Защита от ленивой загрузки вне транзакции сервиса. * Open-session-in-view выключен, поэтому каждое чтение
+ * сервиса должно загрузить все нужное внутри своей транзакции: результат сериализуется в JSON уже после нее,
+ * как в контроллере. Ленивая загрузка после транзакции дает LazyInitializationException, а загрузка
+ * в сессии без транзакции фиксируется слушателями Hibernate.
+ */
+@SpringBootTest
+class LazyLoadingGuardTests {
+
+    private static final List<String> loadsOutsideTransaction = new CopyOnWriteArrayList<>();
+    private static SessionFactoryImplementor guardedSessionFactory;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private UserService userService;
+
+    @MockBean
+    private UserCheckService userCheckService;
+
+    @BeforeEach
+    void setup() {
+        when(userCheckService.isAdmin()).thenReturn(true);
+        when(userCheckService.getCurrentUserId()).thenReturn(1L);
+        when(userCheckService.isAssignee(any())).thenReturn(true);
+        registerGuard();
+        loadsOutsideTransaction.clear();
+    }
+
+    @Test
+    void shouldNotRegisterOpenEntityManagerInViewInterceptor() {
+        assertTrue(applicationContext.getBeansOfType(OpenEntityManagerInViewInterceptor.class).isEmpty());
+    }
+
+    @Test
+    void shouldLoadEverythingInsideServiceTransaction() {
+        List<Object> results = new ArrayList<>();
+        assertDoesNotThrow(() -> {
+            results.add(taskService.getTasks(0, 10, Sort.Direction.ASC, "id", false));
+            results.add(taskService.scrollTasks(null, 10, Sort.Direction.ASC, "id", false));
+            results.add(taskService.searchTasks(new TaskFilterDTO(null, null, 1L, null, null, null), null, 10,
+                    Sort.Direction.ASC, "id"));
+            results.add(taskService.getTaskById(1L));
+            results.add(taskService.findTasksByAuthorId(1L));
+            results.add(taskService.findTasksByAssigneeId(2L));
+            results.add(taskService.findTasksByAuthorIdWithComments(1L));
+            results.add(taskService.findTasksByAssigneeIdWithComments(2L));
+            results.add(commentService.getCommentsForTask(1L, null, 10));
+            results.add(commentService.getAllComments());
+            results.add(userService.findAll());
+            results.add(userService.findById(1L));
+            results.add(userService.findByEmail("admin@example.com"));
+        });
+
+        // Сериализация вне транзакции, как при записи ответа контроллером
+        for (Object result : results) {
+            assertDoesNotThrow(() -> objectMapper.writeValueAsString(result));
+        }
+        assertEquals(List.of(), loadsOutsideTransaction);
+    }
+
+    private void registerGuard() {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        if (sessionFactory == guardedSessionFactory) {
+            return;
+        }
+        guardedSessionFactory = sessionFactory;
+        EventListenerRegistry registry = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.LOAD, (LoadEventListener) (event, loadType) -> {
+            if (loadType == LoadEventListener.IMMEDIATE_LOAD) {
+                recordIfOutsideTransaction(event.getEntityClassName() + "#" + event.getEntityId());
+            }
+        });
+        registry.appendListeners(EventType.INIT_COLLECTION, (InitializeCollectionEventListener) event ->
+                recordIfOutsideTransaction(event.getCollection().getRole()));
+    }
+
+    private static void recordIfOutsideTransaction(String description) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            loadsOutsideTransaction.add(description);
+        }
+    }
+}
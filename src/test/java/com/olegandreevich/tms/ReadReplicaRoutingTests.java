@@ -0,0 +1,78 @@
+package com.olegandreevich.tms;
+
+import com.olegandreevich.tms.configs.ReplicaDataSource;
+import com.olegandreevich.tms.dto.TaskDTO;
+import com.olegandreevich.tms.servicies.TaskReadCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Маршрутизация чтений на реплику. * Роль реплики играет та же БД, подключенная вторым пулом: соединения
+ * различаются по application_name. Для проверки с отдельной репликой достаточно указать ее URL
+ * в app.datasource.replica.urls.
+ */
+@SpringBootTest(properties = "app.datasource.replica.urls=${spring.datasource.url}")
+class ReadReplicaRoutingTests {
+
+    private static final String APPLICATION_NAME_SQL = "select current_setting('application_name')";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private TaskReadCache taskReadCache;
+
+    @AfterEach
+    void tearDown() {
+        ReplicaDataSource.clearPrimaryRequired();
+    }
+
+    @Test
+    void readOnlyTransaction_UsesReplica() {
+        assertEquals("tms-replica-1", applicationName(true));
+    }
+
+    @Test
+    void readWriteTransaction_UsesPrimary() {
+        assertNotEquals("tms-replica-1", applicationName(false));
+    }
+
+    @Test
+    void readOnlyTransaction_UsesPrimary_WhenRequired() {
+        ReplicaDataSource.requirePrimary();
+
+        assertNotEquals("tms-replica-1", applicationName(true));
+    }
+
+    @Test
+    void taskCacheLoader_UsesPrimary_InsideReadOnlyTransaction() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+
+        // Загрузчик записывает в название задачи имя пула, из которого получено соединение
+        TaskDTO task = transactionTemplate.execute(status -> taskReadCache.getTask(-1L, id -> {
+            TaskDTO loaded = new TaskDTO();
+            loaded.setTitle(jdbcTemplate.queryForObject(APPLICATION_NAME_SQL, String.class));
+            return loaded;
+        }));
+
+        assertNotEquals("tms-replica-1", task.getTitle());
+    }
+
+    private String applicationName(boolean readOnly) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(readOnly);
+        return transactionTemplate.execute(status -> jdbcTemplate.queryForObject(APPLICATION_NAME_SQL, String.class));
+    }
+}
@@ -0,0 +1,167 @@
+package com.olegandreevich.tms;
+
+import com.olegandreevich.tms.dto.BulkItemResultDTO;
+import com.olegandreevich.tms.dto.TaskDTO;
+import com.olegandreevich.tms.dto.TaskDTOGet;
+import com.olegandreevich.tms.dto.TaskFilterDTO;
+import com.olegandreevich.tms.entities.enums.Priority;
+import com.olegandreevich.tms.entities.enums.Status;
+import com.olegandreevich.tms.servicies.TaskArchiveService;
+import com.olegandreevich.tms.servicies.TaskBulkService;
+import com.olegandreevich.tms.servicies.TaskService;
+import com.olegandreevich.tms.servicies.UserCheckService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+/**
+ * Архивация завершенных задач на настоящей БД. * Порог архивации увеличен до 10 лет, чтобы архиватор
+ * переносил только созданную тестом задачу и не трогал остальные данные.
+ */
+@SpringBootTest(properties = "app.archive.after=3650d")
+class TaskArchiveTests {
+
+    private static final String PARTITION_SQL = "select tableoid::regclass::text from %s where id = ?";
+
+    @Autowired
+    private TaskArchiveService taskArchiveService;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private TaskBulkService taskBulkService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private UserCheckService userCheckService;
+
+    private Long taskId;
+    private Long commentId;
+
+    @BeforeEach
+    void setup() {
+        when(userCheckService.isAdmin()).thenReturn(true);
+        taskId = jdbcTemplate.queryForObject("insert into tasks (title, description, status, priority, author_id, " +
+                "assignee_id, created_at) values ('Старая задача', 'Описание', 'COMPLETED', 'LOW', 1, 2, " +
+                "'2010-03-01 10:00') returning id", Long.class);
+        commentId = jdbcTemplate.queryForObject("insert into comments (content, task_id, user_id, created_at) " +
+                "values ('Комментарий', ?, 2, '2010-03-02 10:00') returning id", Long.class, taskId);
+    }
+
+    @AfterEach
+    void cleanup() {
+        jdbcTemplate.update("delete from comments where task_id = ?", taskId);
+        jdbcTemplate.update("delete from tasks where id = ?", taskId);
+    }
+
+    @Test
+    void shouldMoveOldCompletedTaskWithComments_toArchive() {
+        assertEquals(1, taskArchiveService.archiveCompleted());
+
+        // Секция за 2010 год создается до переноса, строки не попадают в секцию default
+        assertEquals("tasks_archive_2010", partition("tasks", taskId));
+        assertEquals("comments_archive_2010", partition("comments", commentId));
+        assertEquals("tasks_hot", partition("tasks", 1L)); // незавершенная задача остается в горячей секции
+
+        assertEquals(0, taskArchiveService.archiveCompleted());
+    }
+
+    @Test
+    void shouldMoveRowsOutOfDefaultPartition_whenCreatingYearPartition() {
+        // Строки года без собственной секции, уже лежащие в секции default, не мешают ее созданию
+        Long oldTaskId = jdbcTemplate.queryForObject("insert into tasks (title, description, status, priority, " +
+                "author_id, assignee_id, created_at, archived) values ('Очень старая задача', 'Описание', " +
+                "'COMPLETED', 'LOW', 1, 2, '2009-06-01 10:00', true) returning id", Long.class);
+        Long oldCommentId = jdbcTemplate.queryForObject("insert into comments (content, task_id, user_id, " +
+                "created_at, archived) values ('Комментарий', ?, 2, '2009-06-02 10:00', true) returning id",
+                Long.class, oldTaskId);
+        try {
+            taskArchiveService.archiveCompleted();
+
+            assertEquals("tasks_archive_2009", partition("tasks", oldTaskId));
+            assertEquals("comments_archive_2009", partition("comments", oldCommentId));
+            assertEquals(0, jdbcTemplate.queryForObject("select count(*) from tasks_archive_default " +
+                    "where created_at < '2011-01-01'", Integer.class));
+        } finally {
+            jdbcTemplate.update("delete from comments where task_id = ?", oldTaskId);
+            jdbcTemplate.update("delete from tasks where id = ?", oldTaskId);
+        }
+    }
+
+    @Test
+    void shouldHideArchivedTasks_unlessRequested() {
+        taskArchiveService.archiveCompleted();
+        TaskFilterDTO filter = new TaskFilterDTO(Status.COMPLETED, null, 1L, null, null, null);
+
+        assertFalse(ids(taskService.searchTasks(filter, null, 100, Sort.Direction.ASC, "id").getItems())
+                .contains(taskId));
+        assertFalse(taskService.findTasksByAuthorId(1L).stream()
+                .anyMatch(task -> "Старая задача".equals(task.getTitle())));
+
+        filter.setIncludeArchived(true);
+        assertTrue(ids(taskService.searchTasks(filter, null, 100, Sort.Direction.ASC, "id").getItems())
+                .contains(taskId));
+    }
+
+    @Test
+    void shouldRestoreTask_whenReopened() throws Exception {
+        taskArchiveService.archiveCompleted();
+
+        taskService.updateTask(taskId, new TaskDTO("Старая задача", "Описание", Status.IN_PROGRESS, Priority.LOW,
+                1L, 2L), null);
+
+        assertEquals("tasks_hot", partition("tasks", taskId));
+        assertEquals("comments_hot", partition("comments", commentId));
+        assertEquals("IN_PROGRESS", jdbcTemplate.queryForObject("select status from tasks where id = ?",
+                String.class, taskId));
+    }
+
+    @Test
+    void shouldRestoreTask_whenReopenedInBulk() {
+        taskArchiveService.archiveCompleted();
+
+        Long version = jdbcTemplate.queryForObject("select version from tasks where id = ?", Long.class, taskId);
+        List<BulkItemResultDTO> results = taskBulkService.updateTasks(List.of(new TaskDTOGet(taskId,
+                "Старая задача", "Описание", Status.IN_PROGRESS, Priority.LOW, 1L, 2L, version)));
+
+        assertEquals(200, results.get(0).getStatus());
+        assertEquals("tasks_hot", partition("tasks", taskId));
+        assertEquals("comments_hot", partition("comments", commentId));
+    }
+
+    @Test
+    void shouldKeepCommentsReferencingTask() {
+        taskArchiveService.archiveCompleted();
+
+        // Замена внешнего ключа: задачу с комментариями удалить нельзя, даже из архива
+        assertThrows(DataIntegrityViolationException.class,
+                () -> jdbcTemplate.update("delete from tasks where id = ?", taskId));
+        assertThrows(DataIntegrityViolationException.class,
+                () -> jdbcTemplate.update("insert into comments (content, task_id, user_id) values ('x', -1, 1)"));
+    }
+
+    private String partition(String table, Long id) {
+        return jdbcTemplate.queryForObject(PARTITION_SQL.formatted(table), String.class, id);
+    }
+
+    private static List<Long> ids(List<TaskDTOGet> tasks) {
+        return tasks.stream().map(TaskDTOGet::getId).toList();
+    }
+}
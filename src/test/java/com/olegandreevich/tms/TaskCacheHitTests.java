@@ -0,0 +1,89 @@
+package com.olegandreevich.tms;
+
+import com.olegandreevich.tms.servicies.TaskReadCache;
+import com.olegandreevich.tms.servicies.TaskService;
+import com.olegandreevich.tms.servicies.UserCheckService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Попадание в кэш задач на настоящей БД: чтение задачи и списков автора и исполнителя из кэша не выполняет
+ * SQL-запросов и не берет соединение из пула (нет транзакции вокруг чтения).
+ */
+@SpringBootTest(properties = "app.archive.enabled=false")
+class TaskCacheHitTests {
+
+    private static final String ACQUIRE_METRIC = "hikaricp.connections.acquire";
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private TaskReadCache taskReadCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockBean
+    private UserCheckService userCheckService;
+
+    private Long taskId;
+
+    @BeforeEach
+    void setup() {
+        when(userCheckService.isAdmin()).thenReturn(true);
+        when(userCheckService.getCurrentUserId()).thenReturn(1L);
+        when(userCheckService.isAssignee(any())).thenReturn(true);
+        taskId = jdbcTemplate.queryForObject("insert into tasks (title, description, status, priority, author_id, " +
+                "assignee_id) values ('Задача', 'Описание', 'PENDING', 'LOW', 1, 2) returning id", Long.class);
+        taskReadCache.evictTask(taskId, 1L, 2L);
+    }
+
+    @AfterEach
+    void cleanup() {
+        jdbcTemplate.update("delete from tasks where id = ?", taskId);
+    }
+
+    @Test
+    void shouldNotTouchDatabase_onCacheHit() {
+        // Промах: задача и списки загружаются в кэш
+        taskService.getTaskById(taskId);
+        taskService.findTasksByAuthorId(1L);
+        taskService.findTasksByAssigneeId(2L);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        long acquiredBefore = acquiredConnections();
+
+        taskService.getTaskById(taskId);
+        taskService.findTasksByAuthorId(1L);
+        taskService.findTasksByAssigneeId(2L);
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getConnectCount());
+        assertEquals(acquiredBefore, acquiredConnections());
+    }
+
+    private long acquiredConnections() {
+        return meterRegistry.get(ACQUIRE_METRIC).timers().stream().mapToLong(timer -> timer.count()).sum();
+    }
+}
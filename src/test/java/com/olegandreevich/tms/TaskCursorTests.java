@@ -0,0 +1,75 @@
+package com.olegandreevich.tms;
+
+import com.olegandreevich.tms.dto.CursorPageDTO;
+import com.olegandreevich.tms.dto.TaskDTOGet;
+import com.olegandreevich.tms.servicies.TaskService;
+import com.olegandreevich.tms.servicies.UserCheckService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+/**
+ * Keyset-пагинация задач по created_at на настоящей БД: курсор каждой страницы содержит значение поля,
+ * поэтому обход по страницам возвращает каждую задачу ровно один раз. Данные теста откатываются.
+ */
+@SpringBootTest
+@Transactional
+class TaskCursorTests {
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private UserCheckService userCheckService;
+
+    @BeforeEach
+    void setup() {
+        when(userCheckService.isAdmin()).thenReturn(true);
+        // Задачи с одинаковым created_at: порядок внутри группы задает id
+        jdbcTemplate.update("insert into tasks (title, description, status, priority, author_id, assignee_id, " +
+                "created_at) select 'Задача ' || n, 'Описание', 'PENDING', 'LOW', 1, 2, " +
+                "timestamp '2024-01-01 10:00' + (n / 3) * interval '1 minute' from generate_series(1, 12) n");
+    }
+
+    @Test
+    void shouldVisitEveryTaskOnce_whenScrollingByCreatedAt() {
+        for (Sort.Direction direction : Sort.Direction.values()) {
+            List<Long> ids = new ArrayList<>();
+            String cursor = null;
+            do {
+                CursorPageDTO<TaskDTOGet> page = taskService.scrollTasks(cursor, 5, direction, "createdAt", true);
+                page.getItems().forEach(task -> ids.add(task.getId()));
+                cursor = page.getNextCursor();
+            } while (cursor != null);
+
+            Integer total = jdbcTemplate.queryForObject("select count(*) from tasks", Integer.class);
+            assertEquals(total, ids.size());
+            assertEquals(total, new HashSet<>(ids).size());
+        }
+    }
+
+    @Test
+    void shouldRejectTaskWithoutCreatedAt() {
+        // Курсор по created_at не может содержать NULL
+        assertThrows(DataIntegrityViolationException.class, () -> jdbcTemplate.update("insert into tasks " +
+                "(title, description, status, priority, author_id, assignee_id, created_at) " +
+                "values ('Задача', 'Описание', 'PENDING', 'LOW', 1, 2, null)"));
+    }
+}
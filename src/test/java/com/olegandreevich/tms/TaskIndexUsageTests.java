@@ -0,0 +1,196 @@
+package com.olegandreevich.tms;
+
+import com.olegandreevich.tms.dto.TaskFilterDTO;
+import com.olegandreevich.tms.entities.enums.Priority;
+import com.olegandreevich.tms.entities.enums.Status;
+import com.olegandreevich.tms.servicies.TaskService;
+import com.olegandreevich.tms.servicies.UserCheckService;
+import com.olegandreevich.tms.util.CursorUtil;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+/**
+ * Проверка планов запросов поиска задач: SQL, который Hibernate строит в TaskService.searchTasks
+ * (с условием not archived и keyset-условием курсора), должен читать горячую секцию по индексу из V1_0_3.
+ * SQL перехватывается StatementInspector, значения фильтров встраиваются в него литералами
+ * (hibernate.criteria.value_handling_mode=inline), чтобы запрос можно было передать в EXPLAIN.
+ * Тестовые данные похожи на рабочие: много пользователей, большая часть задач завершена.
+ * Последовательное сканирование запрещается на время транзакции.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.criteria.value_handling_mode=inline",
+        "app.archive.enabled=false"
+})
+@Transactional
+class TaskIndexUsageTests {
+
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    private static final long FIRST_USER_ID = 1_000_000;
+    private static final int USERS = 200;
+    private static final int TASKS = 20_000;
+    private static final int PAGE_SIZE = 10;
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @TestConfiguration
+    static class StatementCaptureConfig {
+
+        @Bean
+        HibernatePropertiesCustomizer statementCapture() {
+            return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, (StatementInspector) sql -> {
+                STATEMENTS.add(sql);
+                return sql;
+            });
+        }
+    }
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private UserCheckService userCheckService;
+
+    @BeforeEach
+    void setup() {
+        when(userCheckService.isAdmin()).thenReturn(true);
+        jdbcTemplate.update("insert into users (id, email, username, password, role) " +
+                "select ? + g, 'index-' || g || '@example.com', 'index-' || g, 'admin', 'USER' " +
+                "from generate_series(0, ? - 1) g", FIRST_USER_ID, USERS);
+        // 70% задач завершены, остальные поровну PENDING и IN_PROGRESS; даты создания - 2023-2025 годы
+        jdbcTemplate.update("insert into tasks (title, description, status, priority, author_id, assignee_id, " +
+                "created_at) select 'Задача ' || g, 'Описание', " +
+                "case when g % 10 < 7 then 'COMPLETED' when g % 2 = 0 then 'PENDING' else 'IN_PROGRESS' end, " +
+                "(array['HIGH', 'MEDIUM', 'LOW'])[g % 3 + 1], ? + g % ?, ? + (g / 7) % ?, " +
+                "timestamp '2023-01-01' + g * interval '1 hour' from generate_series(1, ?) g",
+                FIRST_USER_ID, USERS, FIRST_USER_ID, USERS, TASKS);
+        jdbcTemplate.execute("ANALYZE tasks");
+        jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+    }
+
+    /** * Комбинации фильтров поиска и индексы V1_0_3, которыми их допустимо обслуживать. */
+    static Stream<Arguments> filters() {
+        Long user = FIRST_USER_ID + 1;
+        return Stream.of(
+                Arguments.of(new TaskFilterDTO(Status.PENDING, Priority.HIGH, null, user, null, null),
+                        Set.of("idx_tasks_assignee_status_priority", "idx_tasks_assignee_open")),
+                Arguments.of(new TaskFilterDTO(Status.IN_PROGRESS, null, null, user, null, null),
+                        Set.of("idx_tasks_assignee_status_priority", "idx_tasks_assignee_open")),
+                // Частичный индекс не содержит завершенных задач
+                Arguments.of(new TaskFilterDTO(Status.COMPLETED, Priority.LOW, null, user, null, null),
+                        Set.of("idx_tasks_assignee_status_priority")),
+                Arguments.of(new TaskFilterDTO(Status.PENDING, Priority.LOW, user, null, null, null),
+                        Set.of("idx_tasks_author_status_priority", "idx_tasks_author_open")),
+                Arguments.of(new TaskFilterDTO(Status.PENDING, Priority.HIGH, null, null, null, null),
+                        Set.of("idx_tasks_status_priority_created")),
+                Arguments.of(new TaskFilterDTO(Status.PENDING, Priority.HIGH, null, null, FROM, TO),
+                        Set.of("idx_tasks_status_priority_created"))
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("filters")
+    void shouldUseFilterIndex_forGeneratedSearchQuery(TaskFilterDTO filter, Set<String> indexes) {
+        Set<String> partitionIndexes = hotPartitionIndexes(indexes);
+
+        // Первая страница и страница после курсора, как их запрашивает GET /api/tasks/search по умолчанию
+        for (String cursor : new String[]{null, CursorUtil.encode(TASKS, LocalDateTime.of(2024, 6, 1, 0, 0))}) {
+            String sql = searchSql(filter, cursor);
+            String plan = String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class));
+            String message = sql + "\n" + plan;
+
+            assertTrue(partitionIndexes.stream().anyMatch(plan::contains), message);
+            assertFalse(plan.contains("Seq Scan"), message);
+            assertFalse(plan.contains("_archive"), message);
+        }
+    }
+
+    /** * Полнотекстовый поиск выполняется нативными запросами TaskTextSearchService. */
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "SELECT id FROM tasks WHERE search_vector @@ websearch_to_tsquery('russian', 'описание задачи')",
+            "SELECT task_id FROM comments WHERE search_vector @@ websearch_to_tsquery('russian', 'комментарий')"
+    })
+    void shouldUseFullTextIndex(String sql) {
+        List<String> plan = jdbcTemplate.queryForList("EXPLAIN " + sql, String.class);
+        String text = String.join("\n", plan);
+
+        assertTrue(text.contains("search_vector_idx"), text);
+        assertFalse(text.contains("Seq Scan on tasks"), text);
+    }
+
+    /** * Запросы к рабочим задачам не обращаются к секциям архива. */
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "SELECT * FROM tasks WHERE NOT archived AND assignee_id = 2 AND status = 'PENDING'",
+            "SELECT * FROM tasks WHERE archived = false ORDER BY created_at DESC, id DESC LIMIT 11",
+            "SELECT * FROM comments WHERE NOT archived AND task_id = 1"
+    })
+    void shouldSkipArchivePartitions(String sql) {
+        List<String> plan = jdbcTemplate.queryForList("EXPLAIN " + sql, String.class);
+        String text = String.join("\n", plan);
+
+        assertTrue(text.contains("_hot"), text);
+        assertFalse(text.contains("_archive"), text);
+    }
+
+    /** * SQL, который выполняет TaskService.searchTasks, с подставленными размером и смещением страницы. */
+    private String searchSql(TaskFilterDTO filter, String cursor) {
+        STATEMENTS.clear();
+        taskService.searchTasks(filter, cursor, PAGE_SIZE, Sort.Direction.DESC, "createdAt");
+        List<String> selects = STATEMENTS.stream()
+                .filter(sql -> sql.startsWith("select") && sql.contains(" from tasks "))
+                .toList();
+        assertEquals(1, selects.size(), STATEMENTS::toString);
+
+        // Значения фильтров встроены литералами, параметрами остаются только границы страницы
+        String sql = selects.get(0)
+                .replaceAll("(?i)offset \\?", "offset 0")
+                .replaceAll("(?i)fetch first \\?", "fetch first " + (PAGE_SIZE + 1))
+                .replaceAll("(?i)limit \\?", "limit " + (PAGE_SIZE + 1));
+        assertFalse(sql.contains("?"), sql);
+        assertTrue(sql.substring(sql.indexOf(" where ")).contains("archived"), sql);
+        return sql;
+    }
+
+    /** * Имена секций индексов в tasks_hot: EXPLAIN показывает их, а не имена индексов родительской таблицы. */
+    private Set<String> hotPartitionIndexes(Set<String> parentIndexes) {
+        Set<String> names = Set.copyOf(jdbcTemplate.queryForList("select child.relname from pg_inherits i " +
+                "join pg_class child on child.oid = i.inhrelid " +
+                "join pg_class parent on parent.oid = i.inhparent " +
+                "join pg_index x on x.indexrelid = child.oid " +
+                "where x.indrelid = 'tasks_hot'::regclass and parent.relname::text = any (?)", String.class,
+                (Object) parentIndexes.toArray(String[]::new)));
+        assertEquals(parentIndexes.size(), names.size(), parentIndexes::toString);
+        return names;
+    }
+}
@@ -0,0 +1,128 @@
+package com.olegandreevich.tms;
+
+import com.olegandreevich.tms.dto.BulkItemResultDTO;
+import com.olegandreevich.tms.dto.TaskDTO;
+import com.olegandreevich.tms.dto.TaskDTOGet;
+import com.olegandreevich.tms.entities.enums.Priority;
+import com.olegandreevich.tms.entities.enums.Status;
+import com.olegandreevich.tms.repositories.TaskRepository;
+import com.olegandreevich.tms.servicies.TaskBulkService;
+import com.olegandreevich.tms.servicies.TaskService;
+import com.olegandreevich.tms.servicies.UserCheckService;
+import com.olegandreevich.tms.util.exceptions.PreconditionFailedException;
+import org.apache.coyote.BadRequestException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+/**
+ * Оптимистическая блокировка задач на настоящей БД: изменение по устаревшей версии отклоняется
+ * как при проверке версии из If-Match, так и при гонке между чтением задачи и записью.
+ */
+@SpringBootTest
+class TaskOptimisticLockingTests {
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private TaskBulkService taskBulkService;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockBean
+    private UserCheckService userCheckService;
+
+    private Long taskId;
+
+    @BeforeEach
+    void setup() {
+        when(userCheckService.isAdmin()).thenReturn(true);
+        taskId = jdbcTemplate.queryForObject("insert into tasks (title, description, status, priority, author_id, " +
+                "assignee_id) values ('Задача', 'Описание', 'PENDING', 'LOW', 1, 2) returning id", Long.class);
+    }
+
+    @AfterEach
+    void cleanup() {
+        jdbcTemplate.update("delete from tasks where id = ?", taskId);
+    }
+
+    @Test
+    void shouldIncrementVersion_andRejectStaleVersion() throws Exception {
+        Long version = taskService.getTaskById(taskId).getVersion();
+
+        TaskDTO updated = taskService.updateTask(taskId, dto(Status.IN_PROGRESS), version);
+        assertEquals(version + 1, updated.getVersion());
+        assertEquals(version + 1, taskService.getTaskById(taskId).getVersion());
+
+        // Второй клиент прочитал задачу до первого изменения
+        assertThrows(PreconditionFailedException.class,
+                () -> taskService.updateTask(taskId, dto(Status.COMPLETED), version));
+        assertEquals("IN_PROGRESS", status());
+    }
+
+    @Test
+    void shouldRejectUpdate_committedBetweenReadAndWrite() {
+        Long version = taskService.getTaskById(taskId).getVersion();
+
+        assertThrows(OptimisticLockingFailureException.class, () -> new TransactionTemplate(transactionManager)
+                .executeWithoutResult(status -> {
+                    taskRepository.findById(taskId).orElseThrow(); // задача прочитана в этой транзакции
+                    // Другой клиент успевает изменить задачу и зафиксировать транзакцию
+                    CompletableFuture.runAsync(() -> jdbcTemplate.update("update tasks " +
+                            "set status = 'COMPLETED', version = version + 1 where id = ?", taskId)).join();
+                    try {
+                        taskService.updateTask(taskId, dto(Status.IN_PROGRESS), version);
+                    } catch (BadRequestException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }));
+        assertEquals("COMPLETED", status());
+    }
+
+    /** * Массовое обновление возвращает новую версию и пишет ее в журнал изменений, как обновление одной задачи. */
+    @Test
+    void shouldReturnNewVersion_fromBulkUpdate() {
+        Long version = taskService.getTaskById(taskId).getVersion();
+
+        List<BulkItemResultDTO> results = taskBulkService.updateTasks(List.of(new TaskDTOGet(taskId, "Задача",
+                "Описание", Status.IN_PROGRESS, Priority.LOW, 1L, 2L, version)));
+
+        assertEquals(200, results.get(0).getStatus());
+        assertEquals(version + 1, results.get(0).getVersion());
+        assertEquals(version + 1, jdbcTemplate.queryForObject("select version from tasks where id = ?",
+                Long.class, taskId));
+        assertEquals(version + 1, jdbcTemplate.queryForObject("select (payload ->> 'version')::bigint " +
+                "from change_log where entity_type = 'task' and entity_id = ? and change_type = 'UPDATED'",
+                Long.class, taskId));
+    }
+
+    private String status() {
+        return jdbcTemplate.queryForObject("select status from tasks where id = ?", String.class, taskId);
+    }
+
+    private static TaskDTO dto(Status status) {
+        return new TaskDTO("Задача", "Описание", status, Priority.LOW, 1L, 2L);
+    }
+}
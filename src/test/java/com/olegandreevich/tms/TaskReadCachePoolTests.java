@@ -0,0 +1,96 @@
+package com.olegandreevich.tms;
+
+import com.olegandreevich.tms.dto.CommentDTO;
+import com.olegandreevich.tms.dto.TaskDTO;
+import com.olegandreevich.tms.servicies.CommentService;
+import com.olegandreevich.tms.servicies.TaskReadCache;
+import com.olegandreevich.tms.servicies.TaskService;
+import com.olegandreevich.tms.servicies.UserCheckService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Промах кэша задач на пуле из одного соединения: загрузчик кэша не берет второе соединение, пока первое
+ * занято вызывающим кодом, иначе запрос ждал бы сам себя до connection-timeout и завершался ошибкой.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.hikari.maximum-pool-size=1",
+        "spring.datasource.hikari.connection-timeout=500",
+        "app.archive.enabled=false"
+})
+class TaskReadCachePoolTests {
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private TaskReadCache taskReadCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private UserCheckService userCheckService;
+
+    private Long taskId;
+
+    @BeforeEach
+    void setup() {
+        when(userCheckService.isAdmin()).thenReturn(true);
+        when(userCheckService.getCurrentUserId()).thenReturn(1L);
+        when(userCheckService.isAssignee(any())).thenReturn(true);
+        taskId = jdbcTemplate.queryForObject("insert into tasks (title, description, status, priority, author_id, " +
+                "assignee_id) values ('Задача', 'Описание', 'PENDING', 'LOW', 1, 2) returning id", Long.class);
+        taskReadCache.evictTask(taskId, 1L, 2L);
+    }
+
+    @AfterEach
+    void cleanup() {
+        jdbcTemplate.update("delete from comments where task_id = ?", taskId);
+        jdbcTemplate.update("delete from tasks where id = ?", taskId);
+    }
+
+    @Test
+    void shouldLoadOnCacheMiss_withSingleConnectionPool() {
+        TaskDTO task = taskService.getTaskById(taskId);
+        List<TaskDTO> byAuthor = taskService.findTasksByAuthorId(1L);
+        List<TaskDTO> byAssignee = taskService.findTasksByAssigneeId(2L);
+
+        assertEquals("Задача", task.getTitle());
+        assertTrue(byAuthor.stream().anyMatch(dto -> "Задача".equals(dto.getTitle())));
+        assertTrue(byAssignee.stream().anyMatch(dto -> "Задача".equals(dto.getTitle())));
+    }
+
+    /** * Событие комментария обрабатывается после коммита, пока соединение транзакции еще занято. */
+    @Test
+    void shouldLoadTaskForCommentEvent_withSingleConnectionPool() {
+        commentService.addComment(taskId, 1L, new CommentDTO("Комментарий"));
+
+        // Обработчик события загрузил задачу в кэш: повторное чтение не обращается к БД
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        assertEquals("Задача", taskService.getTaskById(taskId).getTitle());
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,115 @@
+package com.olegandreevich.tms;
+
+import com.olegandreevich.tms.entities.User;
+import com.olegandreevich.tms.entities.enums.Role;
+import com.olegandreevich.tms.repositories.UserRepository;
+import com.olegandreevich.tms.servicies.UserService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Кэш второго уровня для пользователей на настоящей БД: повторные чтения не обращаются к БД,
+ * а изменения роли и пароля, в том числе массовым JPQL-обновлением, сразу видны при следующем чтении.
+ */
+@SpringBootTest
+class UserSecondLevelCacheTests {
+
+    private static final Long USER_ID = 3L;
+    private static final String USERNAME = "user2";
+    private static final String EMAIL = "user2@example.com";
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private String originalPassword;
+
+    @BeforeEach
+    void setup() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        originalPassword = jdbcTemplate.queryForObject("select password from users where id = ?", String.class,
+                USER_ID);
+    }
+
+    @AfterEach
+    void restore() {
+        userRepository.updatePassword(originalPassword, USERNAME);
+        jdbcTemplate.update("update users set role = 'USER' where id = ?", USER_ID);
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictEntityData(User.class);
+    }
+
+    /** * Смешанная нагрузка как при обработке запросов: чтения по ID (автор и исполнитель при создании задачи),
+     * поиск по email (аутентификация) и редкие изменения роли. */
+    @Test
+    void shouldServeRepeatedReadsFromCache() {
+        userService.findById(1L);
+        statistics.clear();
+
+        for (int i = 0; i < 1000; i++) {
+            userService.findById((long) (i % 3) + 1);
+            userService.findByEmail(i % 2 == 0 ? "admin@example.com" : EMAIL);
+            if (i % 200 == 199) {
+                userService.makeAdmin(USER_ID);
+                userService.revokeAdmin(USER_ID);
+            }
+        }
+
+        long hits = statistics.getSecondLevelCacheHitCount();
+        long misses = statistics.getSecondLevelCacheMissCount();
+        double entityHitRatio = (double) hits / (hits + misses);
+        double queryHitRatio = (double) statistics.getQueryCacheHitCount()
+                / (statistics.getQueryCacheHitCount() + statistics.getQueryCacheMissCount());
+        assertTrue(entityHitRatio > 0.95, "Доля попаданий в кэш сущностей: " + entityHitRatio);
+        assertTrue(queryHitRatio > 0.9, "Доля попаданий в кэш запросов: " + queryHitRatio);
+    }
+
+    @Test
+    void shouldSeeRoleChange_afterMakeAdmin() {
+        assertEquals(Role.USER, userService.findById(USER_ID).getRole());
+
+        userService.makeAdmin(USER_ID);
+
+        assertEquals(Role.ADMIN, userService.findById(USER_ID).getRole());
+        assertEquals(Role.ADMIN, userService.findByEmail(EMAIL).orElseThrow().getRole());
+    }
+
+    @Test
+    void shouldSeePassword_afterBulkJpqlUpdate() {
+        userService.findById(USER_ID);
+        userService.findByEmail(EMAIL);
+
+        userRepository.updatePassword("bulk-updated-hash", USERNAME);
+
+        assertEquals("bulk-updated-hash", userService.findById(USER_ID).getPassword());
+        assertEquals("bulk-updated-hash", userService.findByEmail(EMAIL).orElseThrow().getPassword());
+    }
+
+    @Test
+    void shouldSeePassword_afterUpdatePassword() {
+        userService.findById(USER_ID);
+
+        userService.updatePassword(USERNAME, "new-password-123");
+
+        String stored = jdbcTemplate.queryForObject("select password from users where id = ?", String.class, USER_ID);
+        assertEquals(stored, userService.findById(USER_ID).getPassword());
+    }
+}
@@ -0,0 +1,90 @@
+package com.olegandreevich.tms.configs;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimitFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ConcurrencyLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new ConcurrencyLimitFilter(1, Duration.ofMillis(50), new ObjectMapper(), meterRegistry);
+    }
+
+    @Test
+    void request_PassesThroughAndReleasesPermit() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/tasks"), new MockHttpServletResponse(), chain);
+
+        assertNotNull(chain.getRequest());
+        assertEquals(0, filter.activeRequests());
+    }
+
+    @Test
+    void request_RejectedWith503_WhenLimitReached() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> slow = CompletableFuture.runAsync(() -> {
+            try {
+                filter.doFilter(new MockHttpServletRequest("GET", "/api/tasks"), new MockHttpServletResponse(),
+                        (request, response) -> {
+                            entered.countDown();
+                            await(release);
+                        });
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        assertEquals(1.0, meterRegistry.get(ConcurrencyLimitFilter.ACTIVE_METRIC).gauge().value());
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/tasks"), rejected, chain);
+
+        assertEquals(503, rejected.getStatus());
+        assertEquals("1", rejected.getHeader("Retry-After"));
+        assertTrue(rejected.getContentAsString().contains("\"status\":503"));
+        assertNull(chain.getRequest());
+
+        release.countDown();
+        slow.get(5, TimeUnit.SECONDS);
+        assertEquals(0, filter.activeRequests());
+    }
+
+    @Test
+    void actuatorRequests_NotLimited() {
+        assertTrue(filter.shouldNotFilter(new MockHttpServletRequest("GET", "/actuator/health")));
+        assertFalse(filter.shouldNotFilter(new MockHttpServletRequest("GET", "/api/tasks")));
+    }
+
+    @Test
+    void nonPositiveLimit_Rejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new ConcurrencyLimitFilter(0, Duration.ofSeconds(1), new ObjectMapper(), meterRegistry));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.olegandreevich.tms.configs;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReadYourWritesInterceptorTest {
+
+    private final ReadYourWritesInterceptor interceptor = new ReadYourWritesInterceptor(Duration.ofMinutes(1));
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        ReplicaDataSource.clearPrimaryRequired();
+    }
+
+    private static void authenticate(String email) {
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated(email, null, List.of()));
+    }
+
+    @Test
+    void readsAfterOwnWrite_GoToPrimary() {
+        authenticate("user1@example.com");
+        MockHttpServletRequest write = new MockHttpServletRequest("POST", "/api/tasks");
+        interceptor.preHandle(write, response, null);
+        interceptor.afterCompletion(write, response, null, null);
+        assertFalse(ReplicaDataSource.isPrimaryRequired());
+
+        interceptor.preHandle(new MockHttpServletRequest("GET", "/api/tasks/1"), response, null);
+
+        assertTrue(ReplicaDataSource.isPrimaryRequired());
+    }
+
+    @Test
+    void readsOfOtherUsers_StayOnReplica() {
+        authenticate("user1@example.com");
+        MockHttpServletRequest write = new MockHttpServletRequest("DELETE", "/api/tasks/1");
+        interceptor.preHandle(write, response, null);
+        interceptor.afterCompletion(write, response, null, null);
+
+        authenticate("user2@example.com");
+        interceptor.preHandle(new MockHttpServletRequest("GET", "/api/tasks/1"), response, null);
+
+        assertFalse(ReplicaDataSource.isPrimaryRequired());
+    }
+
+    @Test
+    void anonymousRequests_NotTracked() {
+        interceptor.preHandle(new MockHttpServletRequest("POST", "/api/users/register"), response, null);
+
+        assertFalse(ReplicaDataSource.isPrimaryRequired());
+    }
+}
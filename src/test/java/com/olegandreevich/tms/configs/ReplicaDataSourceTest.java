@@ -0,0 +1,93 @@
+package com.olegandreevich.tms.configs;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReplicaDataSourceTest {
+
+    @Mock
+    private DataSource primary;
+    @Mock
+    private DataSource replica1;
+    @Mock
+    private DataSource replica2;
+    @Mock
+    private Connection primaryConnection;
+    @Mock
+    private Connection replica1Connection;
+    @Mock
+    private Connection replica2Connection;
+
+    private ReplicaDataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        Clock clock = Clock.fixed(Instant.parse("2026-01-01T00:00:00Z"), ZoneOffset.UTC);
+        dataSource = new ReplicaDataSource(primary, List.of(replica1, replica2), Duration.ofSeconds(10), clock);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReplicaDataSource.clearPrimaryRequired();
+    }
+
+    @Test
+    void replicas_UsedInTurn() throws SQLException {
+        when(replica1.getConnection()).thenReturn(replica1Connection);
+        when(replica2.getConnection()).thenReturn(replica2Connection);
+
+        assertSame(replica1Connection, dataSource.getConnection());
+        assertSame(replica2Connection, dataSource.getConnection());
+        assertSame(replica1Connection, dataSource.getConnection());
+        verifyNoInteractions(primary);
+    }
+
+    @Test
+    void unavailableReplica_SkippedUntilRetry() throws SQLException {
+        when(replica1.getConnection()).thenThrow(new SQLException("connection refused"));
+        when(replica2.getConnection()).thenReturn(replica2Connection);
+
+        assertSame(replica2Connection, dataSource.getConnection());
+        assertSame(replica2Connection, dataSource.getConnection());
+        assertSame(replica2Connection, dataSource.getConnection());
+        verify(replica1, times(1)).getConnection();
+    }
+
+    @Test
+    void allReplicasUnavailable_FallsBackToPrimary() throws SQLException {
+        when(replica1.getConnection()).thenThrow(new SQLException("connection refused"));
+        when(replica2.getConnection()).thenThrow(new SQLException("connection refused"));
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        assertSame(primaryConnection, dataSource.getConnection());
+        assertSame(primaryConnection, dataSource.getConnection());
+        verify(replica1, times(1)).getConnection();
+        verify(replica2, times(1)).getConnection();
+    }
+
+    @Test
+    void primaryRequired_BypassesReplicas() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        ReplicaDataSource.requirePrimary();
+
+        assertSame(primaryConnection, dataSource.getConnection());
+        verifyNoInteractions(replica1, replica2);
+    }
+}
@@ -9,14 +9,19 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import com.olegandreevich.tms.dto.BulkItemResultDTO;
+import com.olegandreevich.tms.dto.CursorPageDTO;
 import com.olegandreevich.tms.dto.TaskDTO;
 import com.olegandreevich.tms.dto.TaskDTOGet;
+import com.olegandreevich.tms.dto.TaskSearchResultDTO;
 import com.olegandreevich.tms.entities.Task;
 import com.olegandreevich.tms.entities.User;
 import com.olegandreevich.tms.entities.enums.Priority;
 import com.olegandreevich.tms.entities.enums.Role;
 import com.olegandreevich.tms.entities.enums.Status;
+import com.olegandreevich.tms.servicies.TaskBulkService;
 import com.olegandreevich.tms.servicies.TaskService;
+import com.olegandreevich.tms.servicies.TaskTextSearchService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -24,6 +29,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.*;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
@@ -39,6 +45,12 @@ class TaskControllerTest {
     @Mock
     private TaskService taskService;
 
+    @Mock
+    private TaskBulkService taskBulkService;
+
+    @Mock
+    private TaskTextSearchService taskTextSearchService;
+
     private MockMvc mockMvc;
 
     private ObjectMapper objectMapper = new ObjectMapper();
@@ -79,7 +91,7 @@ class TaskControllerTest {
         Page<TaskDTOGet> resultPage = new PageImpl<>(expectedTasks, pageable, expectedTasks.size());
 
         // Настройка мока
-        when(taskService.getTasks(anyInt(), anyInt(), any(Sort.Direction.class), anyString()))
+        when(taskService.getTasks(anyInt(), anyInt(), any(Sort.Direction.class), anyString(), eq(false)))
                 .thenReturn(resultPage);
 
         // Выполнение запроса
@@ -92,6 +104,38 @@ class TaskControllerTest {
                 .andExpect(jsonPath("$[2].title").value("title3"));
     }
 
+    // Тестирование GET /api/tasks/scroll
+    @Test
+    void testScrollTasks() throws Exception {
+        // Настройка мока
+        when(taskService.scrollTasks(null, 2, Sort.Direction.ASC, "id", false))
+                .thenReturn(new CursorPageDTO<>(Arrays.asList(taskDTOget1, taskDTOget2), "next"));
+
+        // Выполнение запроса
+        mockMvc.perform(get("/api/tasks/scroll").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.items[0].title").value("title1"))
+                .andExpect(jsonPath("$.items[1].title").value("title2"))
+                .andExpect(jsonPath("$.nextCursor").value("next"));
+    }
+
+    // Тестирование GET /api/tasks/text-search
+    @Test
+    void testTextSearchTasks() throws Exception {
+        // Настройка мока
+        TaskSearchResultDTO result = new TaskSearchResultDTO(1L, "title1", Status.PENDING, Priority.HIGH, 1L, 1L,
+                0.6, "<mark>title1</mark>", "desc1", null);
+        when(taskTextSearchService.search("title1", null, 10, false))
+                .thenReturn(new CursorPageDTO<>(List.of(result), null));
+
+        // Выполнение запроса
+        mockMvc.perform(get("/api/tasks/text-search").param("q", "title1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(1))
+                .andExpect(jsonPath("$.items[0].titleHighlight").value("<mark>title1</mark>"));
+    }
+
     // Тестирование POST /api/tasks
     @Test
     void testCreateTask() throws Exception {
@@ -110,6 +154,27 @@ class TaskControllerTest {
                 .andExpect(jsonPath("$.title").value("title1"));
     }
 
+    // Тестирование POST /api/tasks/bulk
+    @Test
+    void testCreateTasksInBulk() throws Exception {
+        // Подготовка данных
+        String requestJson = objectMapper.writeValueAsString(Arrays.asList(taskDTO1, taskDTO2));
+
+        // Настройка моков
+        when(taskBulkService.createTasks(anyList())).thenReturn(Arrays.asList(
+                new BulkItemResultDTO(0, 1L, 201, null),
+                new BulkItemResultDTO(1, null, 404, "Assignee not found")));
+
+        // Выполнение запроса
+        mockMvc.perform(post("/api/tasks/bulk")
+                        .content(requestJson)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value(201))
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[1].status").value(404));
+    }
+
     // Тестирование PUT /api/tasks/{id}
     @Test
     void testUpdateTask() throws Exception {
@@ -117,17 +182,39 @@ class TaskControllerTest {
         String requestJson = objectMapper.writeValueAsString(taskDTO1);
 
         // Настройка моков
-        when(taskService.updateTask(eq(1L), any(TaskDTO.class))).thenReturn(taskDTO1);
+        when(taskService.updateTask(eq(1L), any(TaskDTO.class), eq(4L)))
+                .thenReturn(new TaskDTO("title1", "desc1", Status.PENDING, Priority.HIGH, 1L, 1L, 5L));
 
         // Выполнение запроса
         mockMvc.perform(put("/api/tasks/1")
+                        .header(HttpHeaders.IF_MATCH, "\"4\"")
                         .content(requestJson)
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"5\""))
                 .andExpect(jsonPath("$.title").value("title1"));
     }
 
+    @Test
+    void testUpdateTask_withoutIfMatch() throws Exception {
+        mockMvc.perform(put("/api/tasks/1")
+                        .content(objectMapper.writeValueAsString(taskDTO1))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isPreconditionRequired());
+        verifyNoInteractions(taskService);
+    }
+
+    @Test
+    void testUpdateTask_withWeakIfMatch() throws Exception {
+        mockMvc.perform(put("/api/tasks/1")
+                        .header(HttpHeaders.IF_MATCH, "W/\"4\"")
+                        .content(objectMapper.writeValueAsString(taskDTO1))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isPreconditionFailed());
+        verifyNoInteractions(taskService);
+    }
+
     // Тестирование DELETE /api/tasks/{id}
     @Test
     void testDeleteTask() throws Exception {
@@ -152,6 +239,33 @@ class TaskControllerTest {
                 .andExpect(jsonPath("$.title").value("title1"));
     }
 
+    @Test
+    void testGetTaskById_notModified() throws Exception {
+        when(taskService.getTaskById(1L))
+                .thenReturn(new TaskDTO("title1", "desc1", Status.PENDING, Priority.HIGH, 1L, 1L, 7L));
+
+        mockMvc.perform(get("/api/tasks/1").header(HttpHeaders.IF_NONE_MATCH, "\"7\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"7\""))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void testScrollTasks_notModified() throws Exception {
+        when(taskService.scrollTasks(null, 2, Sort.Direction.ASC, "id", false))
+                .thenReturn(new CursorPageDTO<>(Arrays.asList(taskDTOget1, taskDTOget2), "next"));
+        String etag = mockMvc.perform(get("/api/tasks/scroll").param("size", "2"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/tasks/scroll").param("size", "2").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        taskDTOget2.setVersion(1L);
+        mockMvc.perform(get("/api/tasks/scroll").param("size", "2").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
     // Тестирование GET /api/tasks/author/{authorId}
     @Test
     void testFindTasksByAuthorId() throws Exception {
@@ -186,4 +300,40 @@ class TaskControllerTest {
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.[*].title").value("title3"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testFindTasksByAuthorId_notModified() throws Exception {
+        TaskDTO task = new TaskDTO(1L, "title1", "desc1", Status.PENDING, Priority.HIGH, 1L, 1L, 0L);
+        when(taskService.findTasksByAuthorId(1L)).thenReturn(List.of(task));
+        String etag = mockMvc.perform(get("/api/tasks/author/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/tasks/author/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        task.setVersion(1L);
+        mockMvc.perform(get("/api/tasks/author/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testFindTasksByAssigneeId_notModified() throws Exception {
+        TaskDTO task = new TaskDTO(3L, "title3", "desc3", Status.IN_PROGRESS, Priority.MEDIUM, 1L, 3L, 0L);
+        List<TaskDTO> tasks = new ArrayList<>(List.of(task));
+        when(taskService.findTasksByAssigneeId(3L)).thenReturn(tasks);
+        String etag = mockMvc.perform(get("/api/tasks/assignee/3"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/tasks/assignee/3").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        // Новая задача исполнителя меняет ETag списка
+        tasks.add(new TaskDTO(4L, "title4", "desc4", Status.PENDING, Priority.LOW, 1L, 3L, 0L));
+        mockMvc.perform(get("/api/tasks/assignee/3").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+}
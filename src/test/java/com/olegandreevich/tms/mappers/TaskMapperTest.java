@@ -0,0 +1,73 @@
+package com.olegandreevich.tms.mappers;
+
+import com.olegandreevich.tms.dto.CommentDTO;
+import com.olegandreevich.tms.dto.TaskDTO;
+import com.olegandreevich.tms.dto.TaskDTOGet;
+import com.olegandreevich.tms.entities.Comment;
+import com.olegandreevich.tms.entities.Task;
+import com.olegandreevich.tms.entities.User;
+import com.olegandreevich.tms.entities.enums.Priority;
+import com.olegandreevich.tms.entities.enums.Role;
+import com.olegandreevich.tms.entities.enums.Status;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TaskMapperTest {
+
+    private final TaskMapper taskMapper = new TaskMapper();
+    private final TaskMapperGet taskMapperGet = new TaskMapperGet();
+    private final CommentMapper commentMapper = new CommentMapper();
+
+    // Моки пользователей
+    User user1 = new User(1L, "111@mail.ru", "user1", "pass", Role.ADMIN, null, null);
+    User user2 = new User(2L, "222@mail.ru", "user2", "pass", Role.USER, null, null);
+
+    // Моки задач
+    Task task1 = new Task(1L, "title1", "desc1", Status.PENDING, Priority.HIGH, user1, user2, new ArrayList<>());
+
+    @Test
+    void shouldMapTaskToTaskDTO() {
+        assertEquals(new TaskDTO("title1", "desc1", Status.PENDING, Priority.HIGH, 1L, 2L),
+                taskMapper.toDto(task1));
+        assertEquals(1L, taskMapper.toDto(task1).getId());
+    }
+
+    @Test
+    void shouldMapTaskToTaskDTOGet() {
+        assertEquals(new TaskDTOGet(1L, "title1", "desc1", Status.PENDING, Priority.HIGH, 1L, 2L),
+                taskMapperGet.toDto(task1));
+    }
+
+    @Test
+    void shouldMapTaskWithoutAssignee() {
+        task1.setAssignee(null);
+
+        assertNull(taskMapper.toDto(task1).getAssigneeId());
+        assertNull(taskMapperGet.toDto(task1).getAssigneeId());
+    }
+
+    @Test
+    void shouldMapTaskDTOToEntity_withoutUsers() {
+        Task task = taskMapper.toEntity(new TaskDTO("title1", "desc1", Status.PENDING, Priority.HIGH, 1L, 2L));
+
+        assertEquals("title1", task.getTitle());
+        assertEquals("desc1", task.getDescription());
+        assertEquals(Status.PENDING, task.getStatus());
+        assertEquals(Priority.HIGH, task.getPriority());
+        assertNull(task.getId());
+        assertNull(task.getAuthor());
+        assertNull(task.getAssignee());
+    }
+
+    @Test
+    void shouldMapCommentBothWays() {
+        Comment comment = new Comment(1L, "comment1", user1, task1);
+
+        assertEquals("comment1", commentMapper.toDto(comment).getContent());
+        assertEquals("comment1", commentMapper.toEntity(new CommentDTO("comment1")).getContent());
+    }
+}
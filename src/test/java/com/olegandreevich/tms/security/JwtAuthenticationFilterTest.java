@@ -0,0 +1,112 @@
+package com.olegandreevich.tms.security;
+
+import com.olegandreevich.tms.entities.enums.Role;
+import com.olegandreevich.tms.servicies.UserDetailsServiceTMS;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JwtAuthenticationFilterTest {
+
+    @Mock
+    private UserDetailsServiceTMS userDetailsServiceTMS;
+    @Mock
+    private JwtTokenProvider tokenProvider;
+
+    private SimpleMeterRegistry meterRegistry;
+    private JwtAuthenticationFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new JwtAuthenticationFilter(userDetailsServiceTMS, tokenProvider, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private static JwtPrincipal principal(Long userId, String email, Role role) {
+        return new JwtPrincipal(userId, email, role, Instant.now().plusSeconds(60));
+    }
+
+    @Test
+    void bearerToken_TakesPrecedenceOverCookie() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer header-token");
+        request.setCookies(new Cookie("accessToken", "cookie-token"));
+        when(tokenProvider.verify("header-token")).thenReturn(Optional.of(principal(1L, "user@example.com", Role.USER)));
+
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        assertEquals(1L, ((UserDetailsTMS) auth.getPrincipal()).getUserId());
+        verify(tokenProvider, times(1)).verify(anyString());
+        verifyNoInteractions(userDetailsServiceTMS);
+        assertEquals(1, meterRegistry.get(JwtAuthenticationFilter.STAGE_METRIC).tag("stage", "verify").timer().count());
+    }
+
+    @Test
+    void cookieToken_LoadsUserDetails() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie("accessToken", "cookie-token"));
+        UserDetailsTMS userDetails = new UserDetailsTMS(2L, "admin@example.com", "encoded",
+                List.of(new SimpleGrantedAuthority("ADMIN")));
+        when(tokenProvider.verify("cookie-token")).thenReturn(Optional.of(principal(2L, "admin@example.com", Role.ADMIN)));
+        when(userDetailsServiceTMS.loadUserByUsername("admin@example.com")).thenReturn(userDetails);
+
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        assertSame(userDetails, SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+        assertEquals(1, meterRegistry.get(JwtAuthenticationFilter.STAGE_METRIC).tag("stage", "load_user").timer().count());
+    }
+
+    @Test
+    void alreadyAuthenticated_SkipsVerification() throws Exception {
+        UsernamePasswordAuthenticationToken existing = new UsernamePasswordAuthenticationToken(
+                "user", null, List.of(new SimpleGrantedAuthority("USER")));
+        SecurityContextHolder.getContext().setAuthentication(existing);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer header-token");
+
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        assertSame(existing, SecurityContextHolder.getContext().getAuthentication());
+        verifyNoInteractions(tokenProvider, userDetailsServiceTMS);
+    }
+
+    @Test
+    void invalidToken_LeavesContextEmpty() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer bad-token");
+        when(tokenProvider.verify("bad-token")).thenReturn(Optional.empty());
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        assertNotNull(chain.getRequest());
+    }
+}
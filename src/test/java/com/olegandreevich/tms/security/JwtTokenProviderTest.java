@@ -0,0 +1,78 @@
+package com.olegandreevich.tms.security;
+
+import com.olegandreevich.tms.entities.enums.Role;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtTokenProviderTest {
+
+    private JwtTokenProvider tokenProvider;
+
+    @BeforeEach
+    void setUp() {
+        tokenProvider = createProvider("test-secret", 60_000L);
+    }
+
+    private static JwtTokenProvider createProvider(String secret, long expirationInMs) {
+        JwtTokenProvider provider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(provider, "jwtSecret", secret);
+        ReflectionTestUtils.setField(provider, "jwtExpirationInMs", expirationInMs);
+        ReflectionTestUtils.setField(provider, "jwtCacheMaxSize", 100L);
+        provider.init();
+        return provider;
+    }
+
+    @Test
+    void verify_ValidToken_ReturnsPrincipal() {
+        String token = tokenProvider.generateToken(7L, "user@example.com", Role.USER);
+
+        Optional<JwtPrincipal> principal = tokenProvider.verify(token);
+
+        assertTrue(principal.isPresent());
+        assertEquals(7L, principal.get().userId());
+        assertEquals("user@example.com", principal.get().subject());
+        assertEquals(Role.USER, principal.get().role());
+        assertTrue(principal.get().expiresAt().isAfter(Instant.now()));
+    }
+
+    @Test
+    void verify_SameTokenTwice_ReturnsCachedPrincipal() {
+        String token = tokenProvider.generateToken(7L, "user@example.com", Role.ADMIN);
+
+        JwtPrincipal first = tokenProvider.verify(token).orElseThrow();
+        JwtPrincipal second = tokenProvider.verify(token).orElseThrow();
+
+        // Повторная проверка не создает новый объект, а берет его из кэша
+        assertSame(first, second);
+        assertEquals("user@example.com", tokenProvider.getUsernameFromJWT(token));
+        assertEquals(Role.ADMIN, tokenProvider.getRoleFromJWT(token));
+    }
+
+    @Test
+    void verify_TokenSignedWithOtherSecret_ReturnsEmpty() {
+        String token = createProvider("other-secret", 60_000L).generateToken(7L, "user@example.com", Role.USER);
+
+        assertTrue(tokenProvider.verify(token).isEmpty());
+        assertFalse(tokenProvider.isTokenValid(token));
+        assertThrows(IllegalStateException.class, () -> tokenProvider.getUsernameFromJWT(token));
+    }
+
+    @Test
+    void verify_ExpiredToken_ReturnsEmpty() {
+        JwtTokenProvider expiring = createProvider("test-secret", -1_000L);
+        String token = expiring.generateToken(7L, "user@example.com", Role.USER);
+
+        assertTrue(tokenProvider.verify(token).isEmpty());
+    }
+
+    @Test
+    void verify_MalformedToken_ReturnsEmpty() {
+        assertTrue(tokenProvider.verify("not-a-jwt").isEmpty());
+    }
+}
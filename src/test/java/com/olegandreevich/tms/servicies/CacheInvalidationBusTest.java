@@ -0,0 +1,110 @@
+package com.olegandreevich.tms.servicies;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CacheInvalidationBusTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private DataSourceProperties dataSourceProperties;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private CacheInvalidationBus bus;
+
+    @BeforeEach
+    void setUp() {
+        bus = new CacheInvalidationBus(jdbcTemplate, dataSourceProperties, objectMapper, false, 100, 1000);
+    }
+
+    private CacheInvalidationBus otherNode() {
+        return new CacheInvalidationBus(jdbcTemplate, dataSourceProperties, objectMapper, false, 100, 1000);
+    }
+
+    @Test
+    void handle_MessageFromOtherNode_EvictsKeys() {
+        List<Collection<String>> evicted = new ArrayList<>();
+        bus.register("tasks.byId", evicted::add, () -> fail("Полный сброс не ожидается"));
+
+        bus.handle(otherNode().toPayload(Map.of("tasks.byId", Set.of("1", "2"))));
+
+        assertEquals(1, evicted.size());
+        assertEquals(Set.of("1", "2"), Set.copyOf(evicted.get(0)));
+    }
+
+    @Test
+    void handle_OwnMessage_IsIgnored() {
+        bus.register("tasks.byId", keys -> fail("Собственное сообщение"), () -> fail("Собственное сообщение"));
+
+        bus.handle(bus.toPayload(Map.of("tasks.byId", Set.of("1"))));
+    }
+
+    @Test
+    void toPayload_TooManyKeys_FallsBackToEvictAll() {
+        AtomicInteger evictAll = new AtomicInteger();
+        bus.register("tasks.byId", keys -> fail("Ожидается полный сброс"), evictAll::incrementAndGet);
+        Set<String> keys = IntStream.range(0, 5_000).mapToObj(String::valueOf).collect(Collectors.toSet());
+
+        String payload = otherNode().toPayload(Map.of("tasks.byId", keys));
+        bus.handle(payload);
+
+        assertTrue(payload.length() <= CacheInvalidationBus.MAX_PAYLOAD_BYTES);
+        assertEquals(1, evictAll.get());
+    }
+
+    @Test
+    void publish_OutsideTransaction_NotifiesImmediately() {
+        bus.publish("userDetails", List.of("user@example.com"));
+
+        verify(jdbcTemplate).queryForList(eq("SELECT pg_notify(?, ?)"), eq(CacheInvalidationBus.CHANNEL), anyString());
+    }
+
+    @Test
+    void publish_InTransaction_SendsOneBatchBeforeCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            bus.publish("tasks.byId", List.of(1L, 2L));
+            bus.publish("tasks.byAuthor", List.of(3L));
+            bus.publish("tasks.byId", List.of(2L, 4L));
+            verifyNoInteractions(jdbcTemplate);
+
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.beforeCommit(false);
+            }
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(jdbcTemplate, times(1))
+                .queryForList(eq("SELECT pg_notify(?, ?)"), eq(CacheInvalidationBus.CHANNEL), anyString());
+    }
+}
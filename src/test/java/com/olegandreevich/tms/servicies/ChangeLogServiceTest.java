@@ -0,0 +1,104 @@
+package com.olegandreevich.tms.servicies;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.olegandreevich.tms.dto.ChangePageDTO;
+import com.olegandreevich.tms.dto.CommentDTO;
+import com.olegandreevich.tms.events.ChangeType;
+import com.olegandreevich.tms.util.CursorUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.security.access.AccessDeniedException;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ChangeLogServiceTest {
+
+    private ChangeLogService changeLogService;
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private UserCheckService userCheckService;
+
+    @BeforeEach
+    void setup() {
+        changeLogService = new ChangeLogService(jdbcTemplate, new ObjectMapper(), userCheckService);
+    }
+
+    /**
+     * Тест записи: состояние сущности сохраняется как JSON, у удаления payload пустой
+     */
+    @Test
+    void shouldRecordPayloadAsJson_andTombstoneWithoutPayload() {
+        changeLogService.record(ChangeLogService.Entry.comment(5L, 1L, ChangeType.CREATED, new CommentDTO("text")));
+        changeLogService.record(ChangeLogService.Entry.task(1L, ChangeType.DELETED, null));
+
+        verify(jdbcTemplate).update(anyString(), eq("comment"), eq(5L), eq(1L), eq("CREATED"),
+                eq("{\"content\":\"text\"}"));
+        verify(jdbcTemplate).update(anyString(), eq("task"), eq(1L), eq(1L), eq("DELETED"), isNull());
+    }
+
+    @Test
+    void shouldNotQueryDatabase_whenNothingToRecord() {
+        changeLogService.recordAll(List.of());
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    /**
+     * Тест пустой страницы: курсор возвращается без изменений, чтобы клиент продолжал опрос с той же позиции
+     */
+    @Test
+    void shouldReturnSameCursor_whenNoNewChanges() {
+        when(userCheckService.isAdmin()).thenReturn(true);
+        String cursor = CursorUtil.encode("742", 15L);
+        when(jdbcTemplate.query(anyString(), ArgumentMatchers.<RowMapper<Object>>any(), eq("742"), eq(15L), eq(11)))
+                .thenReturn(List.of());
+
+        ChangePageDTO page = changeLogService.getChanges(cursor, 10);
+
+        assertTrue(page.getItems().isEmpty());
+        assertFalse(page.isHasMore());
+        assertEquals(cursor, page.getNextCursor());
+    }
+
+    @Test
+    void shouldReadFromBeginning_whenCursorIsAbsent() {
+        when(userCheckService.isAdmin()).thenReturn(true);
+        when(jdbcTemplate.query(anyString(), ArgumentMatchers.<RowMapper<Object>>any(), eq("0"), eq(0L), eq(101)))
+                .thenReturn(List.of());
+
+        ChangePageDTO page = changeLogService.getChanges(null, 100);
+
+        assertEquals(CursorUtil.encode("0", 0L), page.getNextCursor());
+    }
+
+    @Test
+    void shouldThrowIllegalArgumentException_whenCursorIsCorrupted() {
+        when(userCheckService.isAdmin()).thenReturn(true);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> changeLogService.getChanges(CursorUtil.encode("abc", 1L), 10));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void shouldThrowAccessDeniedException_whenNotAdmin() {
+        when(userCheckService.isAdmin()).thenReturn(false);
+
+        assertThrows(AccessDeniedException.class, () -> changeLogService.getChanges(null, 10));
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
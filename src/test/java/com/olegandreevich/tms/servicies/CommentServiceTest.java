@@ -0,0 +1,173 @@
+package com.olegandreevich.tms.servicies;
+
+import com.olegandreevich.tms.dto.CommentDTO;
+import com.olegandreevich.tms.dto.CursorPageDTO;
+import com.olegandreevich.tms.entities.Comment;
+import com.olegandreevich.tms.entities.Task;
+import com.olegandreevich.tms.entities.User;
+import com.olegandreevich.tms.events.ChangeType;
+import com.olegandreevich.tms.events.CommentChangedEvent;
+import com.olegandreevich.tms.mappers.CommentMapper;
+import com.olegandreevich.tms.repositories.CommentRepository;
+import com.olegandreevich.tms.repositories.TaskRepository;
+import com.olegandreevich.tms.util.CursorUtil;
+import com.olegandreevich.tms.util.exceptions.ResourceNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CommentServiceTest {
+
+    @InjectMocks
+    private CommentService commentService;
+    @Mock
+    private CommentRepository commentRepository;
+    @Mock
+    private CommentMapper commentMapper;
+    @Mock
+    private UserCheckService userCheckService;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private ChangeLogService changeLogService;
+    @Mock
+    private TaskRepository taskRepository;
+
+    LocalDateTime createdAt = LocalDateTime.of(2024, 10, 1, 12, 30, 15);
+
+    Task task1 = new Task(1L);
+    User user1 = new User(1L);
+
+    @BeforeEach
+    void setup() {
+        lenient().when(commentMapper.toDto(any(Comment.class)))
+                .thenAnswer(i -> new CommentDTO(((Comment) i.getArgument(0)).getContent()));
+    }
+
+    private List<Comment> comments(long fromId, int count) {
+        List<Comment> result = new ArrayList<>();
+        for (long id = fromId; id < fromId + count; id++) {
+            Comment comment = new Comment(id, "comment" + id, user1, task1);
+            comment.setCreatedAt(createdAt.plusSeconds(id));
+            result.add(comment);
+        }
+        return result;
+    }
+
+    /**
+     * Тест первой страницы: запрос ограничен размером страницы и не читает всю таблицу
+     */
+    @Test
+    void shouldReturnFirstPageWithCursor_whenMoreCommentsExist() {
+        when(commentRepository.findPageByTaskId(1L, PageRequest.of(0, 3))).thenReturn(comments(1, 3));
+
+        CursorPageDTO<CommentDTO> page = commentService.getCommentsForTask(1L, null, 2);
+
+        assertEquals(Arrays.asList("comment1", "comment2"),
+                page.getItems().stream().map(CommentDTO::getContent).toList());
+        assertEquals(CursorUtil.encode(createdAt.plusSeconds(2), 2L), page.getNextCursor());
+        verify(commentRepository, never()).findAll();
+    }
+
+    /**
+     * Тест размера страницы: запрошенный размер ограничивается MAX_PAGE_SIZE.
+     * Стоимость запроса страницы на настоящей БД проверяет CommentPaginationTests
+     */
+    @Test
+    void shouldCapPageSize() {
+        when(commentRepository.findPageByTaskId(eq(1L), any(PageRequest.class))).thenReturn(comments(1, 101));
+
+        CursorPageDTO<CommentDTO> page = commentService.getCommentsForTask(1L, null, 1_000_000);
+
+        assertEquals(CommentService.MAX_PAGE_SIZE, page.getItems().size());
+        verify(commentRepository).findPageByTaskId(1L, PageRequest.of(0, CommentService.MAX_PAGE_SIZE + 1));
+        verify(commentRepository, never()).findAll();
+    }
+
+    /**
+     * Тест следующей страницы: позиция курсора передается в запрос, последняя страница без курсора
+     */
+    @Test
+    void shouldSeekAfterCursor_andReturnLastPageWithoutCursor() {
+        String cursor = CursorUtil.encode(createdAt.plusSeconds(2), 2L);
+        when(commentRepository.findPageByTaskIdAfter(1L, createdAt.plusSeconds(2), 2L, PageRequest.of(0, 3)))
+                .thenReturn(comments(3, 1));
+
+        CursorPageDTO<CommentDTO> page = commentService.getCommentsForTask(1L, cursor, 2);
+
+        assertEquals(1, page.getItems().size());
+        assertNull(page.getNextCursor());
+    }
+
+    /**
+     * Тест комментариев нескольких задач: список ID разбивается на части, каждая - один запрос
+     */
+    @Test
+    void shouldSplitTaskIds_intoBoundedQueries() {
+        List<Long> taskIds = new ArrayList<>();
+        for (long id = 1; id <= 2 * CommentService.TASK_IDS_PER_QUERY + 1; id++) {
+            taskIds.add(id);
+        }
+        when(commentRepository.findByTaskIds(anyCollection())).thenReturn(List.of());
+        when(commentRepository.findByTaskIds(argThat(ids -> ids.contains(1L)))).thenReturn(comments(1, 2));
+
+        Map<Long, List<CommentDTO>> result = commentService.getCommentsForTasks(taskIds);
+
+        assertEquals(Set.of(1L), result.keySet());
+        assertEquals(Arrays.asList("comment1", "comment2"),
+                result.get(1L).stream().map(CommentDTO::getContent).toList());
+        ArgumentCaptor<Collection<Long>> captor = ArgumentCaptor.captor();
+        verify(commentRepository, times(3)).findByTaskIds(captor.capture());
+        assertEquals(Arrays.asList(CommentService.TASK_IDS_PER_QUERY, CommentService.TASK_IDS_PER_QUERY, 1),
+                captor.getAllValues().stream().map(Collection::size).toList());
+    }
+
+    @Test
+    void shouldThrowIllegalArgumentException_whenCursorIsCorrupted() {
+        assertThrows(IllegalArgumentException.class,
+                () -> commentService.getCommentsForTask(1L, CursorUtil.encode("not-a-date", 2L), 10));
+    }
+
+    @Test
+    void shouldDeleteComment_andPublishEvent() throws Exception {
+        Comment comment = new Comment(5L, "text", new User(1L), new Task(1L));
+        when(commentRepository.findById(5L)).thenReturn(Optional.of(comment));
+
+        commentService.deleteComment(5L);
+
+        verify(commentRepository).delete(comment);
+        verify(eventPublisher).publishEvent(new CommentChangedEvent(5L, 1L, ChangeType.DELETED));
+        verify(changeLogService).record(ChangeLogService.Entry.comment(5L, 1L, ChangeType.DELETED, null));
+    }
+
+    @Test
+    void shouldThrowResourceNotFound_whenDeletingMissingComment() {
+        when(commentRepository.findById(5L)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> commentService.deleteComment(5L));
+        verifyNoInteractions(eventPublisher, changeLogService);
+    }
+}
@@ -0,0 +1,83 @@
+package com.olegandreevich.tms.servicies;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExportServiceTest {
+
+    private ExportService exportService;
+    @Mock
+    private DataSource dataSource;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private UserCheckService userCheckService;
+
+    private final List<String> columns = List.of("id", "title", "description");
+
+    @BeforeEach
+    void setup() {
+        exportService = new ExportService(dataSource, transactionManager, new ObjectMapper(), userCheckService);
+    }
+
+    /**
+     * Тест проверки прав: проверка выполняется до начала выгрузки, в потоке запроса
+     */
+    @Test
+    void shouldThrowAccessDeniedException_whenNotAdmin() {
+        when(userCheckService.isAdmin()).thenReturn(false);
+
+        assertThrows(AccessDeniedException.class, () -> exportService.exportTasks(DataFormat.CSV, false));
+        assertThrows(AccessDeniedException.class, () -> exportService.exportComments(DataFormat.NDJSON, true));
+        verifyNoInteractions(dataSource, transactionManager);
+    }
+
+    @Test
+    void shouldWriteOneJsonObjectPerLine() throws IOException {
+        StringWriter out = new StringWriter();
+        ExportService.RowWriter writer = new ExportService.NdjsonRowWriter(out, columns, new ObjectMapper());
+
+        writer.start();
+        writer.write(new Object[]{1L, "Задача \"1\"", null});
+        writer.write(new Object[]{2L, "Задача 2", "строка\nстрока"});
+        writer.finish();
+
+        assertEquals("{\"id\":1,\"title\":\"Задача \\\"1\\\"\",\"description\":null}\n" +
+                "{\"id\":2,\"title\":\"Задача 2\",\"description\":\"строка\\nстрока\"}\n", out.toString());
+    }
+
+    /**
+     * Тест CSV: значения с запятыми, кавычками и переводами строк берутся в кавычки
+     */
+    @Test
+    void shouldWriteCsvWithHeader_andQuoteSpecialCharacters() throws IOException {
+        StringWriter out = new StringWriter();
+        ExportService.RowWriter writer = new ExportService.CsvRowWriter(out, columns);
+
+        writer.start();
+        writer.write(new Object[]{1L, "a, b", "say \"hi\""});
+        writer.write(new Object[]{2L, "plain", null});
+        writer.write(new Object[]{3L, "line\nbreak", ""});
+        writer.finish();
+
+        assertEquals("id,title,description\r\n" +
+                "1,\"a, b\",\"say \"\"hi\"\"\"\r\n" +
+                "2,plain,\r\n" +
+                "3,\"line\nbreak\",\r\n", out.toString());
+    }
+}
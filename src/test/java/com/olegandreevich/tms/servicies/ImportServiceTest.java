@@ -0,0 +1,109 @@
+package com.olegandreevich.tms.servicies;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ImportServiceTest {
+
+    private ImportService importService;
+    @Mock
+    private DataSource dataSource;
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private UserCheckService userCheckService;
+    @Mock
+    private TaskReadCache taskReadCache;
+
+    @BeforeEach
+    void setup() {
+        importService = new ImportService(dataSource, jdbcTemplate, transactionManager, new ObjectMapper(),
+                Validation.buildDefaultValidatorFactory().getValidator(), userCheckService, taskReadCache);
+    }
+
+    @Test
+    void shouldThrowAccessDeniedException_whenNotAdmin() {
+        when(userCheckService.isAdmin()).thenReturn(false);
+
+        assertThrows(AccessDeniedException.class,
+                () -> importService.importTasks(new ByteArrayInputStream(new byte[0]), DataFormat.CSV));
+        assertThrows(AccessDeniedException.class, () -> importService.getActiveImports());
+        verifyNoInteractions(dataSource, jdbcTemplate, transactionManager);
+    }
+
+    /**
+     * Тест формата COPY: служебные символы экранируются, null передается как \N
+     */
+    @Test
+    void shouldEscapeCopyTextFormat() throws IOException {
+        StringWriter out = new StringWriter();
+
+        ImportService.writeCopyRow(out, 7, new String[]{"a\tb", null, "line\nbreak\\"});
+
+        assertEquals("7\ta\\tb\t\\N\tline\\nbreak\\\\\n", out.toString());
+    }
+
+    /**
+     * Тест чтения CSV: значения сопоставляются с заголовком, кавычки и переводы строк внутри значений сохраняются
+     */
+    @Test
+    void shouldReadCsvRowsByHeader() throws IOException {
+        ImportService.RowSource rows = ImportService.csvRows(new StringReader(
+                "title,description,status\r\n" +
+                        "\"Задача, первая\",\"строка\nстрока \"\"в кавычках\"\"\",PENDING\r\n" +
+                        "\r\n" +
+                        "Задача 2,,COMPLETED\n"));
+
+        assertEquals(Map.of("title", "Задача, первая", "description", "строка\nстрока \"в кавычках\"",
+                "status", "PENDING"), rows.next());
+        Map<String, String> second = new HashMap<>();
+        second.put("title", "Задача 2");
+        second.put("description", null);
+        second.put("status", "COMPLETED");
+        assertEquals(second, rows.next());
+        assertNull(rows.next());
+    }
+
+    @Test
+    void shouldThrowIllegalArgumentException_whenCsvIsBroken() {
+        assertThrows(IllegalArgumentException.class, () -> ImportService.csvRows(new StringReader("")));
+        assertThrows(IllegalArgumentException.class,
+                () -> ImportService.csvRows(new StringReader("title\n\"не закрыта")).next());
+    }
+
+    @Test
+    void shouldReadNdjsonRows() throws IOException {
+        ImportService.RowSource rows = importService.ndjsonRows(new StringReader(
+                "{\"title\":\"Задача\",\"authorId\":1,\"description\":null}\n{\"title\":\"Вторая\"}\n"));
+
+        Map<String, String> first = new HashMap<>();
+        first.put("title", "Задача");
+        first.put("authorId", "1");
+        first.put("description", null);
+        assertEquals(first, rows.next());
+        assertEquals(Map.of("title", "Вторая"), rows.next());
+        assertNull(rows.next());
+    }
+}
@@ -0,0 +1,108 @@
+package com.olegandreevich.tms.servicies;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StripedLoadingCacheTest {
+
+    private final StripedLoadingCache<Long, String> cache = new StripedLoadingCache<>(Duration.ofMinutes(1), 100);
+
+    @Test
+    void shouldLoadOnce_andRecordStats() {
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("v1", cache.get(1L, key -> "v" + loads.incrementAndGet()));
+        assertEquals("v1", cache.get(1L, key -> "v" + loads.incrementAndGet()));
+
+        CacheStats stats = cache.cache().stats();
+        assertEquals(1, loads.get());
+        assertEquals(1, stats.hitCount());
+        assertEquals(1, stats.missCount());
+        assertEquals(1, stats.loadSuccessCount());
+    }
+
+    @Test
+    void shouldNotCacheNullOrFailure() {
+        assertNull(cache.get(1L, key -> null));
+        assertThrows(IllegalStateException.class, () -> cache.get(1L, key -> {
+            throw new IllegalStateException();
+        }));
+
+        assertEquals("v", cache.get(1L, key -> "v"));
+        assertEquals(2, cache.cache().stats().loadFailureCount());
+    }
+
+    /** * Загрузка выполняется вне блокировок Caffeine: сброс того же ключа не ждет окончания загрузки. */
+    @Test
+    void shouldNotHoldCacheLock_whileLoading() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> load = CompletableFuture.supplyAsync(() -> cache.get(1L, key -> {
+            loading.countDown();
+            await(release);
+            return "v";
+        }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture.runAsync(() -> cache.invalidate(1L)).get(5, TimeUnit.SECONDS);
+
+        release.countDown();
+        assertEquals("v", load.get(5, TimeUnit.SECONDS));
+    }
+
+    /** * Значение, прочитанное до сброса ключа, не остается в кэше. */
+    @Test
+    void shouldDropValue_invalidatedDuringLoad() {
+        assertEquals("stale", cache.get(1L, key -> {
+            cache.invalidate(key); // изменение зафиксировано, пока шла загрузка
+            return "stale";
+        }));
+        assertNull(cache.cache().getIfPresent(1L));
+
+        assertEquals("stale", cache.get(2L, key -> {
+            cache.invalidateAll();
+            return "stale";
+        }));
+        assertNull(cache.cache().getIfPresent(2L));
+    }
+
+    @Test
+    void shouldLoadKeyOnce_forConcurrentMisses() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> cache.get(1L, key -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            await(release);
+            return "v";
+        }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> second = CompletableFuture.supplyAsync(() -> cache.get(1L, key -> {
+            loads.incrementAndGet();
+            return "other";
+        }));
+
+        release.countDown();
+        assertEquals("v", first.get(5, TimeUnit.SECONDS));
+        assertEquals("v", second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.olegandreevich.tms.servicies;
+
+import com.olegandreevich.tms.dto.BulkItemResultDTO;
+import com.olegandreevich.tms.dto.TaskDTO;
+import com.olegandreevich.tms.dto.TaskDTOGet;
+import com.olegandreevich.tms.entities.Task;
+import com.olegandreevich.tms.entities.User;
+import com.olegandreevich.tms.entities.enums.Priority;
+import com.olegandreevich.tms.entities.enums.Role;
+import com.olegandreevich.tms.entities.enums.Status;
+import com.olegandreevich.tms.events.ChangeType;
+import com.olegandreevich.tms.mappers.TaskMapper;
+import com.olegandreevich.tms.repositories.CommentRepository;
+import com.olegandreevich.tms.repositories.TaskRepository;
+import com.olegandreevich.tms.repositories.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TaskBulkServiceTest {
+
+    private TaskBulkService taskBulkService;
+    @Mock
+    private TaskRepository taskRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private CommentRepository commentRepository;
+    @Mock
+    private TaskMapper taskMapper;
+    @Mock
+    private UserCheckService userCheckService;
+    @Mock
+    private EntityManager entityManager;
+    @Mock
+    private TaskReadCache taskReadCache;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private ChangeLogService changeLogService;
+    @Mock
+    private TaskArchiveService taskArchiveService;
+
+    // Моки пользователей
+    User user1 = new User(1L, "111@mail.ru", "user1", "pass", Role.ADMIN, null, null);
+    User user2 = new User(2L, "222@mail.ru", "user2", "pass", Role.USER, null, null);
+
+    // Моки задач
+    Task task1 = new Task(1L, "title1", "desc1", Status.PENDING, Priority.HIGH, user1, user2, new ArrayList<>());
+
+    @BeforeEach
+    void setup() {
+        taskBulkService = new TaskBulkService(taskRepository, userRepository, commentRepository, taskMapper,
+                userCheckService, Validation.buildDefaultValidatorFactory().getValidator(), taskReadCache,
+                eventPublisher, changeLogService, taskArchiveService);
+        ReflectionTestUtils.setField(taskBulkService, "entityManager", entityManager);
+        ReflectionTestUtils.setField(task1, "version", 0L);
+    }
+
+    /**
+     * Тест массового создания: результат по каждому элементу, пользователи проверяются одним запросом
+     */
+    @Test
+    void shouldCreateValidTasks_andReportRejectedItems() {
+        when(userCheckService.isAdmin()).thenReturn(true);
+        when(userRepository.findExistingIds(any())).thenReturn(Set.of(1L, 2L));
+        when(userRepository.getReferenceById(any())).thenAnswer(i -> new User((Long) i.getArgument(0)));
+        when(taskMapper.toEntity(any(TaskDTO.class))).thenAnswer(i -> {
+            TaskDTO dto = i.getArgument(0);
+            return new Task(null, dto.getTitle(), dto.getDescription(), dto.getStatus(), dto.getPriority(),
+                    null, null, new ArrayList<>());
+        });
+        doAnswer(i -> {
+            ((Task) i.getArgument(0)).setId(100L);
+            return null;
+        }).when(entityManager).persist(any(Task.class));
+
+        List<BulkItemResultDTO> results = taskBulkService.createTasks(Arrays.asList(
+                new TaskDTO("title1", "desc1", Status.PENDING, Priority.HIGH, 1L, 2L),
+                new TaskDTO("ab", "desc2", Status.PENDING, Priority.HIGH, 1L, 2L),
+                new TaskDTO("title3", "desc3", Status.PENDING, Priority.HIGH, 1L, 42L)));
+
+        assertEquals(new BulkItemResultDTO(0, 100L, 201, null), results.get(0));
+        assertEquals(400, results.get(1).getStatus());
+        assertEquals(new BulkItemResultDTO(2, null, 404, "Assignee not found"), results.get(2));
+        verify(userRepository, times(1)).findExistingIds(any());
+        verify(userRepository, never()).findById(any());
+        verify(entityManager, times(1)).persist(any(Task.class));
+        verify(entityManager).flush();
+    }
+
+    /**
+     * Тест массового обновления: задачи пачки загружаются одним запросом, журнал изменений и результат
+     * получают версию задачи после записи
+     */
+    @Test
+    void shouldUpdateExistingTasks_andReportMissingOnes() {
+        when(userCheckService.isAdmin()).thenReturn(true);
+        when(taskRepository.findAllById(any())).thenReturn(Arrays.asList(task1));
+        // Hibernate увеличивает версию при записи
+        doAnswer(i -> {
+            ReflectionTestUtils.setField(task1, "version", 1L);
+            return null;
+        }).when(entityManager).flush();
+        when(taskMapper.toDto(task1)).thenAnswer(i -> new TaskDTO(1L, task1.getTitle(), task1.getDescription(),
+                task1.getStatus(), task1.getPriority(), 1L, 2L, task1.getVersion()));
+
+        List<BulkItemResultDTO> results = taskBulkService.updateTasks(Arrays.asList(
+                new TaskDTOGet(1L, "new title", "new desc", Status.COMPLETED, Priority.LOW, 1L, 2L, 0L),
+                new TaskDTOGet(2L, "title2", "desc2", Status.COMPLETED, Priority.LOW, 1L, 2L, 0L)));
+
+        assertEquals(new BulkItemResultDTO(0, 1L, 200, null, 1L), results.get(0));
+        assertNull(results.get(1).getVersion());
+        verify(changeLogService).recordAll(argThat(entries -> entries.size() == 1
+                && ((TaskDTO) entries.get(0).payload()).getVersion() == 1L));
+        assertEquals(404, results.get(1).getStatus());
+        assertEquals("new title", task1.getTitle());
+        assertEquals(Status.COMPLETED, task1.getStatus());
+        verify(taskRepository, times(1)).findAllById(any());
+        verify(taskReadCache).evictTasks(List.of(1L), Set.of(1L), Set.of(2L));
+        verifyNoInteractions(taskArchiveService);
+    }
+
+    /**
+     * Тест массового обновления архивной задачи: переоткрытая задача возвращается в горячую секцию,
+     * а оставшаяся завершенной остается в архиве
+     */
+    @Test
+    void shouldRestoreArchivedTask_whenReopened() {
+        Task archived = new Task(2L, "title2", "desc2", Status.COMPLETED, Priority.LOW, user1, user2,
+                new ArrayList<>());
+        Task archivedCompleted = new Task(3L, "title3", "desc3", Status.COMPLETED, Priority.LOW, user1, user2,
+                new ArrayList<>());
+        ReflectionTestUtils.setField(archived, "archived", true);
+        ReflectionTestUtils.setField(archivedCompleted, "archived", true);
+        ReflectionTestUtils.setField(archived, "version", 0L);
+        ReflectionTestUtils.setField(archivedCompleted, "version", 0L);
+        when(userCheckService.isAdmin()).thenReturn(true);
+        when(taskRepository.findAllById(any())).thenReturn(Arrays.asList(task1, archived, archivedCompleted));
+
+        List<BulkItemResultDTO> results = taskBulkService.updateTasks(Arrays.asList(
+                new TaskDTOGet(1L, "title1", "desc1", Status.IN_PROGRESS, Priority.HIGH, 1L, 2L, 0L),
+                new TaskDTOGet(2L, "title2", "desc2", Status.IN_PROGRESS, Priority.LOW, 1L, 2L, 0L),
+                new TaskDTOGet(3L, "new title3", "desc3", Status.COMPLETED, Priority.LOW, 1L, 2L, 0L)));
+
+        assertEquals(Arrays.asList(200, 200, 200), results.stream().map(BulkItemResultDTO::getStatus).toList());
+        verify(taskArchiveService).restore(2L);
+        verifyNoMoreInteractions(taskArchiveService);
+        assertEquals(Status.IN_PROGRESS, archived.getStatus());
+    }
+
+    /**
+     * Тест массового обновления с устаревшей или отсутствующей версией: отклоняется только этот элемент
+     */
+    @Test
+    void shouldRejectItems_withStaleOrMissingVersion() {
+        Task task2 = new Task(2L, "title2", "desc2", Status.PENDING, Priority.LOW, user1, user2, new ArrayList<>());
+        ReflectionTestUtils.setField(task1, "version", 3L);
+        ReflectionTestUtils.setField(task2, "version", 0L);
+        when(userCheckService.isAdmin()).thenReturn(true);
+        when(taskRepository.findAllById(any())).thenReturn(Arrays.asList(task1, task2));
+
+        List<BulkItemResultDTO> results = taskBulkService.updateTasks(Arrays.asList(
+                new TaskDTOGet(1L, "new title", "desc1", Status.COMPLETED, Priority.HIGH, 1L, 2L, 2L),
+                new TaskDTOGet(2L, "new title2", "desc2", Status.COMPLETED, Priority.LOW, 1L, 2L),
+                new TaskDTOGet(2L, "new title2", "desc2", Status.COMPLETED, Priority.LOW, 1L, 2L, 0L)));
+
+        assertEquals(Arrays.asList(412, 428, 200), results.stream().map(BulkItemResultDTO::getStatus).toList());
+        assertEquals("title1", task1.getTitle());
+        assertEquals("new title2", task2.getTitle());
+        verify(taskReadCache).evictTasks(List.of(2L), Set.of(1L), Set.of(2L));
+    }
+
+    /**
+     * Тест массового удаления: комментарии и задачи удаляются одним запросом на пачку
+     */
+    @Test
+    void shouldDeleteExistingTasks_andReportMissingOnes() {
+        when(userCheckService.isAdmin()).thenReturn(true);
+        when(taskRepository.findAllById(any())).thenReturn(Arrays.asList(task1));
+
+        List<BulkItemResultDTO> results = taskBulkService.deleteTasks(Arrays.asList(1L, 99L, 1L));
+
+        assertEquals(Arrays.asList(204, 404, 404), results.stream().map(BulkItemResultDTO::getStatus).toList());
+        verify(commentRepository).deleteByTaskIds(Set.of(1L));
+        verify(taskRepository).deleteAllByIdInBatch(Set.of(1L));
+        verify(taskReadCache).evictTasks(Set.of(1L), Set.of(1L), Set.of(2L));
+        verify(changeLogService).recordAll(List.of(ChangeLogService.Entry.task(1L, ChangeType.DELETED, null)));
+    }
+
+    @Test
+    void shouldThrowAccessDeniedException_whenNotAdmin() {
+        when(userCheckService.isAdmin()).thenReturn(false);
+
+        Assertions.assertThrows(AccessDeniedException.class, () -> taskBulkService.deleteTasks(List.of(1L)));
+        verifyNoInteractions(taskRepository, commentRepository);
+    }
+}
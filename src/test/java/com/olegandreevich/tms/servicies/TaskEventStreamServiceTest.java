@@ -0,0 +1,166 @@
+package com.olegandreevich.tms.servicies;
+
+import com.olegandreevich.tms.dto.TaskDTO;
+import com.olegandreevich.tms.dto.TaskEventDTO;
+import com.olegandreevich.tms.entities.enums.Priority;
+import com.olegandreevich.tms.entities.enums.Status;
+import com.olegandreevich.tms.events.ChangeType;
+import com.olegandreevich.tms.events.CommentChangedEvent;
+import com.olegandreevich.tms.events.TaskChangedEvent;
+import com.olegandreevich.tms.mappers.TaskMapper;
+import com.olegandreevich.tms.repositories.TaskRepository;
+import com.olegandreevich.tms.util.exceptions.ServiceOverloadedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TaskEventStreamServiceTest {
+
+    @Mock
+    private UserCheckService userCheckService;
+    @Mock
+    private TaskReadCache taskReadCache;
+    @Mock
+    private TaskRepository taskRepository;
+    @Mock
+    private TaskMapper taskMapper;
+
+    private TaskEventStreamService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new TaskEventStreamService(userCheckService, taskReadCache, taskRepository, taskMapper,
+                16, 3, 2, Duration.ofSeconds(15), Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void taskEvent_IsRoutedToAuthorAndAssigneeOnly() {
+        service.onTaskChanged(new TaskChangedEvent(10L, 1L, 2L, ChangeType.UPDATED));
+
+        assertEquals(List.of(new TaskEventDTO("task", ChangeType.UPDATED, 10L, null)),
+                service.replaySince(1L, 0).stream().map(TaskEventStreamService.StreamEvent::payload).toList());
+        assertEquals(1, service.replaySince(2L, 0).size());
+        assertTrue(service.replaySince(3L, 0).isEmpty());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void commentEvent_IsRoutedToTaskOwners() {
+        when(taskReadCache.getTask(eq(10L), any(Function.class)))
+                .thenReturn(new TaskDTO("title", "desc", Status.PENDING, Priority.LOW, 1L, 2L));
+
+        service.onCommentChanged(new CommentChangedEvent(7L, 10L, ChangeType.CREATED));
+
+        assertEquals(new TaskEventDTO("comment", ChangeType.CREATED, 10L, 7L),
+                service.replaySince(2L, 0).get(0).payload());
+    }
+
+    @Test
+    void replaySince_ReturnsOnlyNewerEvents_orNullWhenBufferWasOverrun() {
+        for (long taskId = 1; taskId <= 5; taskId++) {
+            service.onTaskChanged(new TaskChangedEvent(taskId, 1L, 1L, ChangeType.CREATED));
+        }
+
+        // Буфер хранит три последних события: 3, 4, 5
+        assertEquals(List.of(4L, 5L),
+                service.replaySince(1L, 3).stream().map(TaskEventStreamService.StreamEvent::id).toList());
+        assertTrue(service.replaySince(1L, 5).isEmpty());
+        assertNull(service.replaySince(1L, 1));   // событие 2 уже вытеснено
+        assertNull(service.replaySince(1L, 42));  // ID из другого узла или до перезапуска
+    }
+
+    @Test
+    void subscribe_OverConnectionLimit_Throws() {
+        when(userCheckService.getCurrentUserId()).thenReturn(1L);
+
+        service.subscribe(null);
+        service.subscribe(null);
+
+        assertThrows(ServiceOverloadedException.class, () -> service.subscribe(null));
+        assertEquals(2, service.getConnectionCount());
+    }
+
+    /** * События, публикуемые из нескольких потоков, доставляются подписчику все и по порядку ID. */
+    @Test
+    void concurrentPublish_DeliversEveryEventInOrder() throws Exception {
+        int publishers = 8;
+        int eventsPerPublisher = 500;
+        int total = publishers * eventsPerPublisher;
+        List<Long> delivered = new CopyOnWriteArrayList<>();
+        CountDownLatch allDelivered = new CountDownLatch(total);
+        TaskEventStreamService streamService = new TaskEventStreamService(userCheckService, taskReadCache,
+                taskRepository, taskMapper, total, 3, 2, Duration.ofSeconds(15), Duration.ofMinutes(1)) {
+            @Override
+            SseEmitter newEmitter() {
+                return new SseEmitter() {
+                    @Override
+                    public void send(SseEventBuilder builder) throws IOException {
+                        String text = builder.build().stream()
+                                .map(part -> part.getData().toString())
+                                .reduce("", String::concat);
+                        if (text.contains("event:" + TaskEventStreamService.CHANGE_EVENT)) {
+                            delivered.add(Long.parseLong(text.substring("id:".length(), text.indexOf('\n'))));
+                            allDelivered.countDown();
+                        }
+                    }
+                };
+            }
+        };
+        when(userCheckService.getCurrentUserId()).thenReturn(1L);
+        try {
+            streamService.subscribe(null);
+
+            CountDownLatch start = new CountDownLatch(1);
+            List<CompletableFuture<Void>> futures = IntStream.range(0, publishers)
+                    .mapToObj(publisher -> CompletableFuture.runAsync(() -> {
+                        awaitQuietly(start);
+                        for (int i = 0; i < eventsPerPublisher; i++) {
+                            streamService.publish(Set.of(1L), new TaskEventDTO("task", ChangeType.UPDATED, 10L, null));
+                        }
+                    }))
+                    .toList();
+            start.countDown();
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+
+            assertTrue(allDelivered.await(10, TimeUnit.SECONDS));
+            assertEquals(LongStream.rangeClosed(1, total).boxed().toList(), delivered);
+        } finally {
+            streamService.shutdown();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.olegandreevich.tms.servicies;
+
+import com.olegandreevich.tms.configs.ReplicaDataSource;
+import com.olegandreevich.tms.dto.TaskDTO;
+import com.olegandreevich.tms.entities.enums.Priority;
+import com.olegandreevich.tms.entities.enums.Status;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TaskReadCacheTest {
+
+    @Mock
+    private DataSource dataSource;
+    @Mock
+    private CacheInvalidationBus invalidationBus;
+
+    private TaskReadCache taskReadCache;
+    private TransactionTemplate readOnlyTransaction;
+
+    // Реплика отстает: на ней еще версия задачи до изменения, в основной БД - после
+    private final TaskDTO onReplica = task(1L);
+    private final TaskDTO onPrimary = task(2L);
+
+    @BeforeEach
+    void setup() throws SQLException {
+        when(dataSource.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        taskReadCache = new TaskReadCache(new SimpleMeterRegistry(), Duration.ofMinutes(1), 100, invalidationBus,
+                transactionManager);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Тест чтения своих изменений: после сброса задачи из кэша чтение в транзакции только для чтения
+     * не возвращает в кэш устаревшую задачу с реплики
+     */
+    @Test
+    void shouldLoadFromPrimary_insideReadOnlyTransaction() {
+        taskReadCache.evictTask(1L, 1L, 2L); // задача изменена, изменение зафиксировано
+
+        TaskDTO loaded = readOnlyTransaction.execute(status -> taskReadCache.getTask(1L, database()));
+        TaskDTO cached = readOnlyTransaction.execute(status -> taskReadCache.getTask(1L, database()));
+
+        assertEquals(2L, loaded.getVersion());
+        assertEquals(2L, cached.getVersion());
+    }
+
+    @Test
+    void shouldLoadTaskListsFromPrimary_insideReadOnlyTransaction() {
+        List<TaskDTO> byAuthor = readOnlyTransaction.execute(status ->
+                taskReadCache.getByAuthor(1L, () -> List.of(database().apply(1L))));
+        List<TaskDTO> byAssignee = readOnlyTransaction.execute(status ->
+                taskReadCache.getByAssignee(2L, () -> List.of(database().apply(1L))));
+
+        assertEquals(2L, byAuthor.get(0).getVersion());
+        assertEquals(2L, byAssignee.get(0).getVersion());
+    }
+
+    /** * В транзакции вызывающего метода загрузчик участвует в ней и не берет второе соединение из пула. */
+    @Test
+    void shouldJoinCallerTransaction_withoutSecondConnection() throws SQLException {
+        TransactionTemplate readWriteTransaction = new TransactionTemplate(readOnlyTransaction.getTransactionManager());
+
+        readWriteTransaction.executeWithoutResult(status -> taskReadCache.getTask(1L, database()));
+        readOnlyTransaction.executeWithoutResult(status -> taskReadCache.getTask(2L, database()));
+
+        verify(dataSource, times(2)).getConnection();
+        assertFalse(ReplicaDataSource.isPrimaryRequired());
+    }
+
+    @Test
+    void shouldOpenOwnTransaction_outsideTransaction() throws SQLException {
+        TaskDTO loaded = taskReadCache.getTask(1L, id -> {
+            assertTrue(TransactionSynchronizationManager.isActualTransactionActive());
+            return database().apply(id);
+        });
+
+        assertEquals(2L, loaded.getVersion());
+        verify(dataSource, times(1)).getConnection();
+    }
+
+    /** * Чтение в транзакции только для чтения попадает на реплику, если не требуется основная БД,
+     * как при LazyConnectionDataSourceProxy с ReplicaDataSource. */
+    private Function<Long, TaskDTO> database() {
+        return id -> TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && !ReplicaDataSource.isPrimaryRequired() ? onReplica : onPrimary;
+    }
+
+    private static TaskDTO task(Long version) {
+        return new TaskDTO("title", "desc", Status.IN_PROGRESS, Priority.HIGH, 1L, 2L, version);
+    }
+}
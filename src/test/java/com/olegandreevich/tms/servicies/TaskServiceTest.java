@@ -1,6 +1,7 @@
 package com.olegandreevich.tms.servicies;
 
 import com.olegandreevich.tms.dto.CommentDTO;
+import com.olegandreevich.tms.dto.CursorPageDTO;
 import com.olegandreevich.tms.dto.TaskDTO;
 import com.olegandreevich.tms.dto.TaskDTOGet;
 import com.olegandreevich.tms.dto.TaskWithCommentsDTO;
@@ -10,29 +11,43 @@ import com.olegandreevich.tms.entities.User;
 import com.olegandreevich.tms.entities.enums.Priority;
 import com.olegandreevich.tms.entities.enums.Role;
 import com.olegandreevich.tms.entities.enums.Status;
+import com.olegandreevich.tms.events.ChangeType;
+import com.olegandreevich.tms.events.TaskChangedEvent;
 import com.olegandreevich.tms.mappers.TaskMapper;
 import com.olegandreevich.tms.mappers.TaskMapperGet;
 import com.olegandreevich.tms.mappers.TaskWithCommentsMapper;
 import com.olegandreevich.tms.repositories.TaskRepository;
 import com.olegandreevich.tms.repositories.UserRepository;
+import com.olegandreevich.tms.util.CursorUtil;
+import com.olegandreevich.tms.util.exceptions.PreconditionFailedException;
 import com.olegandreevich.tms.util.exceptions.ResourceNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.apache.coyote.BadRequestException;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.access.AccessDeniedException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.time.Duration;
 import java.util.*;
+import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -55,6 +70,15 @@ class TaskServiceTest {
     private CommentService commentService;
     @Mock
     private TaskWithCommentsMapper taskWithCommentsMapper;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private ChangeLogService changeLogService;
+    @Mock
+    private TaskArchiveService taskArchiveService;
+    @Spy
+    private TaskReadCache taskReadCache = new TaskReadCache(new SimpleMeterRegistry(), Duration.ofMinutes(1), 100,
+            mock(CacheInvalidationBus.class), mock(PlatformTransactionManager.class));
 
     // Моки пользователей
     User user1 = new User(1L, "111@mail.ru", "user1", "pass",
@@ -131,20 +155,80 @@ class TaskServiceTest {
         int size = 10;
         Sort.Direction direction = Sort.Direction.ASC;
         String sortField = "title";
+        PageRequest pageRequest = PageRequest.of(page, size, Sort.by(direction, sortField).and(Sort.by(direction, "id")));
 
-        List tasks = Arrays.asList(task1, task2, task3);
-        Page pagedTasks = new PageImpl<>(tasks);
+        List<TaskDTOGet> tasks = Arrays.asList(taskDTOget1, taskDTOget2, taskDTOget3);
         when(userCheckService.isAdmin()).thenReturn(true); // Мок администрирования
-        when(taskRepository.findAll(PageRequest.of(page, size, direction, sortField))).thenReturn(pagedTasks);
-        when(taskMapperGet.toDto(any(Task.class))).thenReturn(taskDTOget1, taskDTOget2, taskDTOget3);
+        when(taskRepository.findHotDtosBy(pageRequest)).thenReturn(new SliceImpl<>(tasks, pageRequest, false));
 
         // Act
-        Page result = taskService.getTasks(page, size, direction, sortField);
+        Slice<TaskDTOGet> result = taskService.getTasks(page, size, direction, sortField, false);
 
         // Assert
         assertNotNull(result);
-        assertEquals(3, result.getTotalElements()); // Убедитесь, что количество задач верное
-        verify(taskRepository).findAll(PageRequest.of(page, size, direction, sortField));
+        assertEquals(3, result.getNumberOfElements()); // Убедитесь, что количество задач верное
+        verify(taskRepository).findHotDtosBy(pageRequest);
+        verify(taskRepository, never()).findAllDtosBy(any());
+        verify(taskRepository, never()).count();
+        verifyNoInteractions(taskMapperGet); // DTO строятся в запросе, без маппинга сущностей
+    }
+
+    /**
+     * Тест ограничения глубины страниц в режиме OFFSET
+     */
+    @Test
+    void shouldRejectDeepOffsetPage() {
+        when(userCheckService.isAdmin()).thenReturn(true);
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> taskService.getTasks(TaskService.MAX_OFFSET_PAGE + 1, 10, Sort.Direction.ASC, "id", false));
+        verifyNoInteractions(taskRepository);
+    }
+
+    /**
+     * Тест первой страницы по курсору: возвращается курсор следующей страницы
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldReturnFirstScrollPageWithCursor() {
+        when(userCheckService.isAdmin()).thenReturn(true);
+        when(taskRepository.findBy(any(Specification.class), any(Function.class)))
+                .thenReturn(Arrays.asList(task1, task2, task3));
+        when(taskMapperGet.toDto(any(Task.class))).thenReturn(taskDTOget1, taskDTOget2);
+
+        CursorPageDTO<TaskDTOGet> result = taskService.scrollTasks(null, 2, Sort.Direction.ASC, "title", false);
+
+        assertEquals(Arrays.asList(taskDTOget1, taskDTOget2), result.getItems());
+        assertEquals(CursorUtil.encode(2L, "title2"), result.getNextCursor());
+        verify(taskRepository, never()).count();
+    }
+
+    /**
+     * Тест последней страницы по курсору: курсор следующей страницы отсутствует
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldReturnLastScrollPageWithoutCursor() {
+        when(userCheckService.isAdmin()).thenReturn(true);
+        when(taskRepository.findBy(any(Specification.class), any(Function.class)))
+                .thenReturn(Arrays.asList(task3));
+        when(taskMapperGet.toDto(any(Task.class))).thenReturn(taskDTOget3);
+
+        CursorPageDTO<TaskDTOGet> result = taskService.scrollTasks(
+                CursorUtil.encode(2L, "PENDING"), 2, Sort.Direction.DESC, "status", false);
+
+        assertEquals(Arrays.asList(taskDTOget3), result.getItems());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void shouldRejectCorruptedCursorAndUnknownSortField() {
+        when(userCheckService.isAdmin()).thenReturn(true);
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> taskService.scrollTasks(CursorUtil.encode(2L, "UNKNOWN"), 2, Sort.Direction.ASC, "status", false));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> taskService.scrollTasks(null, 2, Sort.Direction.ASC, "description", false));
     }
 
     /**
@@ -175,6 +259,7 @@ class TaskServiceTest {
 
         // Проверка результата
         assertEquals(createdTaskDTO, taskDTO1);
+        verify(changeLogService).record(ChangeLogService.Entry.task(14L, ChangeType.CREATED, createdTaskDTO));
     }
 
     /**
@@ -186,7 +271,7 @@ class TaskServiceTest {
         when(userCheckService.isAdmin()).thenReturn(true);
 
         when(taskRepository.findById(1L)).thenReturn(Optional.of(task1));
-        when(taskRepository.save(any(Task.class))).thenAnswer(i -> i.getArguments()[0]);
+        when(taskRepository.saveAndFlush(any(Task.class))).thenAnswer(i -> i.getArguments()[0]);
 
         when(taskMapper.toDto(any(Task.class))).thenAnswer(i -> {
             Task task = i.getArgument(0);
@@ -195,10 +280,65 @@ class TaskServiceTest {
         });
 
         // Вызов метода сервиса
-        TaskDTO updatedTaskDTO = taskService.updateTask(1L, taskDTO1);
+        TaskDTO updatedTaskDTO = taskService.updateTask(1L, taskDTO1, null);
 
         // Проверки
         assertEquals(updatedTaskDTO, taskDTO1);
+        verifyNoInteractions(taskArchiveService);
+    }
+
+    /**
+     * Тест оптимистической блокировки: задача изменена после того, как клиент получил ее версию
+     */
+    @Test
+    void shouldRejectUpdate_whenVersionDiffers() {
+        ReflectionTestUtils.setField(task1, "version", 3L);
+        when(userCheckService.isAdmin()).thenReturn(true);
+        when(taskRepository.findById(1L)).thenReturn(Optional.of(task1));
+
+        Assertions.assertThrows(PreconditionFailedException.class,
+                () -> taskService.updateTask(1L, taskDTO1, 2L));
+        verify(taskRepository, never()).saveAndFlush(any());
+        verifyNoInteractions(changeLogService, eventPublisher);
+    }
+
+    @Test
+    void shouldUpdate_whenVersionMatches() throws ResourceNotFoundException, BadRequestException {
+        ReflectionTestUtils.setField(task1, "version", 3L);
+        when(userCheckService.isAdmin()).thenReturn(true);
+        when(taskRepository.findById(1L)).thenReturn(Optional.of(task1));
+        when(taskRepository.saveAndFlush(any(Task.class))).thenAnswer(i -> i.getArguments()[0]);
+
+        taskService.updateTask(1L, taskDTO1, 3L);
+
+        verify(taskRepository).saveAndFlush(task1);
+    }
+
+    /**
+     * Тест переоткрытия архивной задачи: перед изменением статуса задача возвращается из архива
+     */
+    @Test
+    void shouldRestoreArchivedTask_whenReopened() throws ResourceNotFoundException, BadRequestException {
+        ReflectionTestUtils.setField(task2, "archived", true);
+        when(userCheckService.isAdmin()).thenReturn(true);
+        when(taskRepository.findById(2L)).thenReturn(Optional.of(task2));
+        when(taskRepository.saveAndFlush(any(Task.class))).thenAnswer(i -> i.getArguments()[0]);
+
+        taskService.updateTask(2L, new TaskDTO("title2", "desc2", Status.IN_PROGRESS, Priority.LOW, 2L, 2L), null);
+
+        verify(taskArchiveService).restore(2L);
+    }
+
+    @Test
+    void shouldKeepArchivedTaskInArchive_whenStillCompleted() throws ResourceNotFoundException, BadRequestException {
+        ReflectionTestUtils.setField(task2, "archived", true);
+        when(userCheckService.isAdmin()).thenReturn(true);
+        when(taskRepository.findById(2L)).thenReturn(Optional.of(task2));
+        when(taskRepository.saveAndFlush(any(Task.class))).thenAnswer(i -> i.getArguments()[0]);
+
+        taskService.updateTask(2L, taskDTO2, null);
+
+        verifyNoInteractions(taskArchiveService);
     }
 
     /**
@@ -209,13 +349,15 @@ class TaskServiceTest {
 
         when(userCheckService.isAdmin()).thenReturn(true);
         // Настройки мока репозитория
-        when(taskRepository.findById(1L)).thenReturn(Optional.of(task1));
+        when(taskRepository.findWithCommentsById(1L)).thenReturn(Optional.of(task1));
 
         // Вызов метода сервиса
         taskService.deleteTask(1L);
 
         // Проверка вызова удаления
         verify(taskRepository).delete(task1);
+        verify(eventPublisher).publishEvent(new TaskChangedEvent(1L, 1L, 1L, ChangeType.DELETED));
+        verify(changeLogService).record(ChangeLogService.Entry.task(1L, ChangeType.DELETED, null));
     }
 
     /**
@@ -239,66 +381,87 @@ class TaskServiceTest {
         assertEquals(retrievedTaskDTO, taskDTO1);
     }
 
+    /**
+     * Тест кэширования задачи по ID и сброса кэша при обновлении
+     */
     @Test
-    void shouldReturnTasks_whenSearchedByAuthorId() {
-
+    void shouldServeTaskFromCache_untilTaskIsUpdated() throws ResourceNotFoundException, BadRequestException {
         when(userCheckService.isAdmin()).thenReturn(true);
-        when(taskRepository.findByAuthor_Id(1L)).thenReturn(Arrays.asList(task1));
-
+        when(taskRepository.findById(1L)).thenReturn(Optional.of(task1));
+        when(taskRepository.saveAndFlush(any(Task.class))).thenAnswer(i -> i.getArguments()[0]);
         when(taskMapper.toDto(any(Task.class))).thenAnswer(i -> {
             Task task = i.getArgument(0);
             return new TaskDTO(task.getTitle(), task.getDescription(),
                     task.getStatus(), task.getPriority(), task.getAuthor().getId(), task.getAssignee().getId());
         });
 
+        taskService.getTaskById(1L);
+        taskService.getTaskById(1L);
+        verify(taskRepository, times(1)).findById(1L); // Второе чтение из кэша
+
+        TaskDTO changed = new TaskDTO("new title", "desc1", Status.COMPLETED, Priority.HIGH, 1L, 1L);
+        taskService.updateTask(1L, changed, null);
+        verify(taskReadCache).evictTask(1L, 1L, 1L);
+
+        TaskDTO reloaded = taskService.getTaskById(1L);
+        assertEquals("new title", reloaded.getTitle());
+        verify(taskRepository, times(3)).findById(1L); // update + повторная загрузка после сброса
+    }
+
+    @Test
+    void shouldServeAuthorTasksFromCache_untilEvicted() {
+        when(userCheckService.isAdmin()).thenReturn(true);
+        when(taskRepository.findDtosByAuthorId(1L)).thenReturn(Arrays.asList(taskDTO1));
+
+        taskService.findTasksByAuthorId(1L);
+        taskService.findTasksByAuthorId(1L);
+        verify(taskRepository, times(1)).findDtosByAuthorId(1L);
+
+        taskReadCache.evictTask(null, 1L, 2L);
+        taskService.findTasksByAuthorId(1L);
+        verify(taskRepository, times(2)).findDtosByAuthorId(1L);
+    }
+
+    @Test
+    void shouldReturnTasks_whenSearchedByAuthorId() {
+
+        when(userCheckService.isAdmin()).thenReturn(true);
+        when(taskRepository.findDtosByAuthorId(1L)).thenReturn(Arrays.asList(taskDTO1));
+
         List<TaskDTO> tasksByAuthor = taskService.findTasksByAuthorId(1L);
 
         assertEquals(tasksByAuthor, Arrays.asList(taskDTO1));
+        verifyNoInteractions(taskMapper); // DTO строятся в запросе, без маппинга сущностей
     }
 
     @Test
     void shouldReturnTasks_whenSearchedByAssigneeId() {
 
         when(userCheckService.isAdmin()).thenReturn(true);
-        when(taskRepository.findByAssignee_Id(2L)).thenReturn(Arrays.asList(task1));
-
-        when(taskMapper.toDto(any(Task.class))).thenAnswer(i -> {
-            Task task = i.getArgument(0);
-            return new TaskDTO(task.getTitle(), task.getDescription(),
-                    task.getStatus(), task.getPriority(), task.getAuthor().getId(), task.getAssignee().getId());
-        });
+        when(taskRepository.findDtosByAssigneeId(2L)).thenReturn(Arrays.asList(taskDTO1));
 
         List<TaskDTO> tasksByAssignee = taskService.findTasksByAssigneeId(2L);
 
         assertEquals(tasksByAssignee, Arrays.asList(taskDTO1));
+        verifyNoInteractions(taskMapper);
     }
 
     @Test
     void shouldReturnTasksWithComments_whenSearchedByAuthorId() {
 
         // Настройка мок-объекта userCheckService
-        when(userCheckService.getCachedUserId()).thenReturn(1L);
+        when(userCheckService.getCurrentUserId()).thenReturn(1L);
 
         // Настройка мок-объекта taskRepository
-        when(taskRepository.findByAuthor_Id(1L)).thenReturn(Arrays.asList(task1));
+        when(taskRepository.findByAuthor_IdAndArchivedFalse(1L)).thenReturn(Arrays.asList(task1));
 
         // Настройка мок-объекта commentService
-        when(commentService.getCommentsForTask(1L)).thenReturn(Arrays.asList(commentDTO1));
+        when(commentService.getCommentsForTasks(Arrays.asList(1L)))
+                .thenReturn(Map.of(1L, Arrays.asList(commentDTO1)));
 
         // Настройка мок-объекта taskWithCommentsMapper
-        when(taskWithCommentsMapper.toDtoWithComments(any(Task.class)))
-                .thenAnswer(i -> {
-                    Task task = i.getArgument(0);
-                    return new TaskWithCommentsDTO(
-                            task.getId(),
-                            task.getTitle(),
-                            task.getDescription(),
-                            task.getStatus(),
-                            task.getPriority(),
-                            task.getAuthor().getId(),
-                            task.getAssignee().getId(),
-                            commentService.getCommentsForTask(task.getId()));
-                });
+        when(taskWithCommentsMapper.toDtoWithComments(any(Task.class), anyList()))
+                .thenAnswer(this::toTaskWithCommentsDTO);
 
         // Выполнение метода
         List<TaskWithCommentsDTO> result = taskService.findTasksByAuthorIdWithComments(1L);
@@ -311,28 +474,18 @@ class TaskServiceTest {
     void shouldReturnTasksWithComments_whenSearchedByAssigneeId() {
 
         // Настройка мок-объекта userCheckService
-        when(userCheckService.getCachedUserId()).thenReturn(2L);
+        when(userCheckService.getCurrentUserId()).thenReturn(2L);
 
         // Настройка мок-объекта taskRepository
-        when(taskRepository.findByAssignee_Id(2L)).thenReturn(Arrays.asList(task2));
+        when(taskRepository.findByAssignee_IdAndArchivedFalse(2L)).thenReturn(Arrays.asList(task2));
 
         // Настройка мок-объекта commentService
-        when(commentService.getCommentsForTask(2L)).thenReturn(Arrays.asList(commentDTO2));
+        when(commentService.getCommentsForTasks(Arrays.asList(2L)))
+                .thenReturn(Map.of(2L, Arrays.asList(commentDTO2)));
 
         // Настройка мок-объекта taskWithCommentsMapper
-        when(taskWithCommentsMapper.toDtoWithComments(any(Task.class)))
-                .thenAnswer(i -> {
-                    Task task = i.getArgument(0);
-                    return new TaskWithCommentsDTO(
-                            task.getId(),
-                            task.getTitle(),
-                            task.getDescription(),
-                            task.getStatus(),
-                            task.getPriority(),
-                            task.getAuthor().getId(),
-                            task.getAssignee().getId(),
-                            commentService.getCommentsForTask(task.getId()));
-                });
+        when(taskWithCommentsMapper.toDtoWithComments(any(Task.class), anyList()))
+                .thenAnswer(this::toTaskWithCommentsDTO);
 
         // Выполнение метода
         List<TaskWithCommentsDTO> result = taskService.findTasksByAssigneeIdWithComments(2L);
@@ -341,10 +494,50 @@ class TaskServiceTest {
         assertEquals(result, Arrays.asList(taskWithCommentsDTO2));
     }
 
+    /**
+     * Тест загрузки комментариев: комментарии всех задач запрашиваются одним вызовом сервиса комментариев.
+     * Количество SQL-запросов проверяет CommentBatchLoadingTests на настоящей БД
+     */
+    @Test
+    void shouldRequestCommentsForAllTasksInOneCall() {
+        when(userCheckService.getCurrentUserId()).thenReturn(1L);
+        List<Task> manyTasks = new ArrayList<>();
+        for (long id = 1; id <= 500; id++) {
+            manyTasks.add(new Task(id, "title" + id, "desc", Status.PENDING, Priority.LOW, user1, user2,
+                    new ArrayList<>()));
+        }
+        when(taskRepository.findByAuthor_IdAndArchivedFalse(1L)).thenReturn(manyTasks);
+        when(commentService.getCommentsForTasks(anyList())).thenReturn(Map.of(1L, Arrays.asList(commentDTO1)));
+        when(taskWithCommentsMapper.toDtoWithComments(any(Task.class), anyList()))
+                .thenAnswer(this::toTaskWithCommentsDTO);
+
+        List<TaskWithCommentsDTO> result = taskService.findTasksByAuthorIdWithComments(1L);
+
+        assertEquals(500, result.size());
+        assertEquals(Arrays.asList(commentDTO1), result.get(0).getComments());
+        assertEquals(Collections.emptyList(), result.get(1).getComments());
+        verify(taskRepository, times(1)).findByAuthor_IdAndArchivedFalse(1L);
+        verify(commentService, times(1)).getCommentsForTasks(anyList());
+    }
+
+    private TaskWithCommentsDTO toTaskWithCommentsDTO(InvocationOnMock i) {
+        Task task = i.getArgument(0);
+        List<CommentDTO> comments = i.getArgument(1);
+        return new TaskWithCommentsDTO(
+                task.getId(),
+                task.getTitle(),
+                task.getDescription(),
+                task.getStatus(),
+                task.getPriority(),
+                task.getAuthor().getId(),
+                task.getAssignee().getId(),
+                comments);
+    }
+
     @Test
     void shouldThrowAccessDeniedException_whenNonAdminSearchesOtherUsersTasks() {
         // Настройка мок-объекта userCheckService
-        when(userCheckService.getCachedUserId()).thenReturn(2L); // Текущий пользователь имеет ID 2
+        when(userCheckService.getCurrentUserId()).thenReturn(2L); // Текущий пользователь имеет ID 2
         when(userCheckService.isAdmin()).thenReturn(false);
 
         // Ожидаемое исключение
@@ -0,0 +1,141 @@
+package com.olegandreevich.tms.servicies;
+
+import com.olegandreevich.tms.dto.CursorPageDTO;
+import com.olegandreevich.tms.dto.TaskSearchResultDTO;
+import com.olegandreevich.tms.entities.enums.Priority;
+import com.olegandreevich.tms.entities.enums.Status;
+import com.olegandreevich.tms.util.CursorUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TaskTextSearchServiceTest {
+
+    @InjectMocks
+    private TaskTextSearchService taskTextSearchService;
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    @Mock
+    private UserCheckService userCheckService;
+
+    private List<TaskSearchResultDTO> results(long fromId, int count) {
+        List<TaskSearchResultDTO> result = new ArrayList<>();
+        for (long id = fromId; id > fromId - count; id--) {
+            result.add(new TaskSearchResultDTO(id, "title" + id, Status.PENDING, Priority.HIGH, 1L, 2L,
+                    id / 10.0, "title" + id, null, null));
+        }
+        return result;
+    }
+
+    /**
+     * Тест поиска пользователем: в запрос добавляется фильтр по автору или исполнителю
+     */
+    @Test
+    void shouldFilterByCurrentUser_whenNotAdmin() {
+        when(userCheckService.isAdmin()).thenReturn(false);
+        when(userCheckService.getCurrentUserId()).thenReturn(2L);
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<MapSqlParameterSource> params = ArgumentCaptor.forClass(MapSqlParameterSource.class);
+        when(jdbcTemplate.query(sql.capture(), params.capture(), ArgumentMatchers.<RowMapper<TaskSearchResultDTO>>any())).thenReturn(List.of());
+
+        taskTextSearchService.search("отчет", null, 10, false);
+
+        assertTrue(sql.getValue().contains("t.author_id = :userId or t.assignee_id = :userId"));
+        assertEquals(2L, params.getValue().getValue("userId"));
+        assertEquals(11, params.getValue().getValue("limit"));
+    }
+
+    @Test
+    void shouldNotFilterByUser_whenAdmin() {
+        when(userCheckService.isAdmin()).thenReturn(true);
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        when(jdbcTemplate.query(sql.capture(), any(MapSqlParameterSource.class), ArgumentMatchers.<RowMapper<TaskSearchResultDTO>>any()))
+                .thenReturn(List.of());
+
+        taskTextSearchService.search("отчет", null, 10, false);
+
+        assertFalse(sql.getValue().contains(":userId"));
+        assertTrue(sql.getValue().contains("not t.archived"));
+        verify(userCheckService, never()).getCurrentUserId();
+    }
+
+    @Test
+    void shouldSearchArchive_whenIncludeArchived() {
+        when(userCheckService.isAdmin()).thenReturn(true);
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        when(jdbcTemplate.query(sql.capture(), any(MapSqlParameterSource.class), ArgumentMatchers.<RowMapper<TaskSearchResultDTO>>any()))
+                .thenReturn(List.of());
+
+        taskTextSearchService.search("отчет", null, 10, true);
+
+        assertFalse(sql.getValue().contains("archived"));
+    }
+
+    /**
+     * Тест пагинации: курсор содержит ID и релевантность последней задачи страницы
+     */
+    @Test
+    void shouldReturnCursorOfLastItem_whenMoreResultsExist() {
+        when(userCheckService.isAdmin()).thenReturn(true);
+        when(jdbcTemplate.query(anyString(), any(MapSqlParameterSource.class), ArgumentMatchers.<RowMapper<TaskSearchResultDTO>>any()))
+                .thenReturn(results(9, 3));
+
+        CursorPageDTO<TaskSearchResultDTO> page = taskTextSearchService.search("отчет", null, 2, false);
+
+        assertEquals(List.of(9L, 8L), page.getItems().stream().map(TaskSearchResultDTO::getId).toList());
+        assertEquals(CursorUtil.encode(8L, 0.8), page.getNextCursor());
+    }
+
+    @Test
+    void shouldSearchAfterCursorPosition() {
+        when(userCheckService.isAdmin()).thenReturn(true);
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<MapSqlParameterSource> params = ArgumentCaptor.forClass(MapSqlParameterSource.class);
+        when(jdbcTemplate.query(sql.capture(), params.capture(), ArgumentMatchers.<RowMapper<TaskSearchResultDTO>>any())).thenReturn(results(7, 1));
+
+        CursorPageDTO<TaskSearchResultDTO> page = taskTextSearchService.search("отчет", CursorUtil.encode(8L, 0.8), 2, false);
+
+        assertTrue(sql.getValue().contains("r.rank < :afterRank"));
+        assertEquals(8L, params.getValue().getValue("afterId"));
+        assertEquals(0.8, params.getValue().getValue("afterRank"));
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void shouldThrowIllegalArgumentException_whenQueryIsBlankOrCursorIsCorrupted() {
+        assertThrows(IllegalArgumentException.class, () -> taskTextSearchService.search(" ", null, 10, false));
+        assertThrows(IllegalArgumentException.class,
+                () -> taskTextSearchService.search("a".repeat(TaskTextSearchService.MAX_QUERY_LENGTH + 1), null, 10, false));
+
+        when(userCheckService.isAdmin()).thenReturn(true);
+        assertThrows(IllegalArgumentException.class,
+                () -> taskTextSearchService.search("отчет", CursorUtil.encode(8L, "abc"), 10, false));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    /**
+     * Тест экранирования: пользовательский HTML экранируется, теги выделения сохраняются
+     */
+    @Test
+    void shouldEscapeHtml_butKeepHighlightTags() {
+        assertEquals("&lt;script&gt; <mark>отчет</mark>",
+                TaskTextSearchService.escapeHighlight("<script> <mark>отчет</mark>"));
+        assertNull(TaskTextSearchService.escapeHighlight(null));
+    }
+}
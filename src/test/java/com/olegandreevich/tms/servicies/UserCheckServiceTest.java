@@ -0,0 +1,110 @@
+package com.olegandreevich.tms.servicies;
+
+import com.olegandreevich.tms.entities.User;
+import com.olegandreevich.tms.repositories.UserRepository;
+import com.olegandreevich.tms.security.UserDetailsTMS;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserCheckServiceTest {
+
+    @InjectMocks
+    private UserCheckService userCheckService;
+    @Mock
+    private UserRepository userRepository;
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private static void authenticate(Long userId, String email) {
+        UserDetailsTMS userDetails = new UserDetailsTMS(userId, email, "",
+                List.of(new SimpleGrantedAuthority("USER")));
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities()));
+    }
+
+    @Test
+    void getCurrentUserId_IdInPrincipal_NoDatabaseQuery() {
+        authenticate(5L, "user5@example.com");
+
+        assertEquals(5L, userCheckService.getCurrentUserId());
+        assertTrue(userCheckService.isAuthor(5L));
+        assertTrue(userCheckService.isAssignee(5L));
+        assertFalse(userCheckService.isAuthor(6L));
+
+        // Проверки владельца больше не обращаются к БД
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void getCurrentUserId_PrincipalWithoutId_FallsBackToRepository() {
+        User user = new User("legacy@example.com", "legacy", "encoded");
+        user.setId(9L);
+        authenticate(null, "legacy@example.com");
+        when(userRepository.findByEmail("legacy@example.com")).thenReturn(Optional.of(user));
+
+        assertEquals(9L, userCheckService.getCurrentUserId());
+    }
+
+    @Test
+    void getCurrentUserId_ConcurrentUsers_NoIdentityLeak() throws Exception {
+        int users = 64;
+        int checksPerUser = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+
+        try {
+            for (long userId = 1; userId <= users; userId++) {
+                long id = userId;
+                results.add(executor.submit(() -> {
+                    // Каждая задача — отдельный "запрос" со своим пользователем
+                    authenticate(id, "user" + id + "@example.com");
+                    try {
+                        start.await();
+                        int mismatches = 0;
+                        for (int i = 0; i < checksPerUser; i++) {
+                            if (!userCheckService.getCurrentUserId().equals(id) || !userCheckService.isAuthor(id)) {
+                                mismatches++;
+                            }
+                        }
+                        return mismatches;
+                    } finally {
+                        SecurityContextHolder.clearContext();
+                    }
+                }));
+            }
+            start.countDown();
+
+            for (Future<Integer> result : results) {
+                assertEquals(0, result.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verifyNoInteractions(userRepository);
+    }
+}
@@ -0,0 +1,89 @@
+package com.olegandreevich.tms.servicies;
+
+import com.olegandreevich.tms.entities.User;
+import com.olegandreevich.tms.entities.enums.Role;
+import com.olegandreevich.tms.repositories.UserRepository;
+import com.olegandreevich.tms.util.exceptions.UsernameNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserDetailsServiceTMSTest {
+
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private CacheInvalidationBus invalidationBus;
+    @Mock
+    private UserEntityCache userEntityCache;
+
+    private SimpleMeterRegistry meterRegistry;
+    private UserDetailsServiceTMS userDetailsService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        userDetailsService = new UserDetailsServiceTMS(userRepository, meterRegistry, invalidationBus, userEntityCache,
+                Duration.ofMinutes(5), 100);
+    }
+
+    private static User user(Role role) {
+        User user = new User("user@example.com", "user", "encoded");
+        user.setRole(role);
+        return user;
+    }
+
+    @Test
+    void loadUserByUsername_SecondCall_UsesCache() {
+        when(userRepository.findByEmail("user@example.com")).thenReturn(Optional.of(user(Role.USER)));
+
+        UserDetails first = userDetailsService.loadUserByUsername("user@example.com");
+        UserDetails second = userDetailsService.loadUserByUsername("user@example.com");
+
+        assertSame(first, second);
+        verify(userRepository, times(1)).findByEmail("user@example.com");
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "userDetails").tag("result", "hit")
+                .functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "userDetails").tag("result", "miss")
+                .functionCounter().count());
+    }
+
+    @Test
+    void loadUserByUsername_AfterEvict_ReloadsUser() {
+        when(userRepository.findByEmail("user@example.com"))
+                .thenReturn(Optional.of(user(Role.USER)))
+                .thenReturn(Optional.of(user(Role.ADMIN)));
+
+        userDetailsService.loadUserByUsername("user@example.com");
+        userDetailsService.evict("user@example.com");
+        UserDetails reloaded = userDetailsService.loadUserByUsername("user@example.com");
+
+        assertEquals("ADMIN", reloaded.getAuthorities().iterator().next().getAuthority());
+        verify(invalidationBus).publish("userDetails", List.of("user@example.com"));
+        verify(userRepository, times(2)).findByEmail("user@example.com");
+    }
+
+    @Test
+    void loadUserByUsername_UnknownUser_ThrowsAndIsNotCached() {
+        when(userRepository.findByEmail("missing@example.com")).thenReturn(Optional.empty());
+
+        assertThrows(UsernameNotFoundException.class,
+                () -> userDetailsService.loadUserByUsername("missing@example.com"));
+        assertThrows(UsernameNotFoundException.class,
+                () -> userDetailsService.loadUserByUsername("missing@example.com"));
+
+        verify(userRepository, times(2)).findByEmail("missing@example.com");
+    }
+}
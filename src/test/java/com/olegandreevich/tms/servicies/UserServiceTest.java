@@ -0,0 +1,69 @@
+package com.olegandreevich.tms.servicies;
+
+import com.olegandreevich.tms.entities.User;
+import com.olegandreevich.tms.repositories.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Optional;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserServiceTest {
+
+    @InjectMocks
+    private UserService userService;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private PasswordEncoder passwordEncoder;
+    @Mock
+    private UserCheckService userCheckService;
+    @Mock
+    private UserDetailsServiceTMS userDetailsService;
+    @Mock
+    private UserEntityCache userEntityCache;
+
+    @Test
+    void makeAdmin_EvictsCachedUserDetails() {
+        User user = new User("user@example.com", "user", "encoded");
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+        userService.makeAdmin(1L);
+
+        verify(userRepository).save(user);
+        verify(userDetailsService).evict("user@example.com");
+        verify(userEntityCache).evict(1L);
+    }
+
+    @Test
+    void revokeAdmin_EvictsCachedUserDetails() {
+        User user = new User("admin@example.com", "admin", "encoded");
+        when(userRepository.findById(2L)).thenReturn(Optional.of(user));
+
+        userService.revokeAdmin(2L);
+
+        verify(userRepository).save(user);
+        verify(userDetailsService).evict("admin@example.com");
+        verify(userEntityCache).evict(2L);
+    }
+
+    @Test
+    void updatePassword_EvictsCachedUserDetails() {
+        User user = new User("user@example.com", "user", "encoded");
+        user.setId(3L);
+        when(passwordEncoder.encode("newPassword")).thenReturn("newEncoded");
+        when(userRepository.findByUsername("user")).thenReturn(Optional.of(user));
+
+        userService.updatePassword("user", "newPassword");
+
+        verify(userRepository).updatePassword("newEncoded", "user");
+        verify(userDetailsService).evict("user@example.com");
+        verify(userEntityCache).evict(3L);
+    }
+}